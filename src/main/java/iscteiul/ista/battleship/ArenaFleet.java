@@ -0,0 +1,160 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view of the fleet of a game stored in a {@link GameArena} slot. Ships are
+ * copied into the slot when added, following the rules of
+ * {@link Fleet#addShip(IShip)}, so only ships of a known kind and bearing can
+ * be added, and {@link #getShips()} returns views of the copies.
+ */
+public final class ArenaFleet implements IFleet {
+    private final GameArena arena;
+    private final int slot;
+
+    ArenaFleet(GameArena arena, int slot) {
+        this.arena = arena;
+        this.slot = slot;
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    @Override
+    public BoardConfig getConfig() {
+        return arena.getConfig();
+    }
+
+    private int shipCount() {
+        return arena.buffer(slot).getInt(arena.base(slot) + GameArena.SHIP_COUNT);
+    }
+
+    @Override
+    public List<IShip> getShips() {
+        List<IShip> ships = new ArrayList<>(shipCount());
+        for (int id = 0; id < shipCount(); id++)
+            ships.add(new ArenaShip(arena, slot, id));
+        return ships;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#addShip(battleship.IShip)
+     */
+    @Override
+    public boolean addShip(IShip s) {
+        int count = shipCount();
+        if (count >= arena.maxShips())
+            return false;
+        ShipShape shape = ShipShape.of(ShipKind.fromCategory(s.getCategory()), s.getBearing());
+        if (shape == null)
+            return false;
+
+        CellCodec codec = getCodec();
+        int row = s.getPosition().getRow();
+        int column = s.getPosition().getColumn();
+        for (int i = 0; i < shape.getSize(); i++) {
+            int r = row + shape.getRowOffset(i);
+            int c = column + shape.getColumnOffset(i);
+            if (!codec.isInside(r, c) || arena.isForbidden(slot, codec.encode(r, c)))
+                return false;
+        }
+
+        ByteBuffer buffer = arena.buffer(slot);
+        int record = arena.ship(slot, count);
+        buffer.put(record + GameArena.SHIP_KIND, (byte) shape.getKind().ordinal());
+        buffer.put(record + GameArena.SHIP_BEARING, (byte) shape.getBearing().ordinal());
+        buffer.put(record + GameArena.SHIP_HITS, (byte) 0);
+        buffer.putInt(record + GameArena.SHIP_ANCHOR, codec.encode(row, column));
+        for (int i = 0; i < shape.getSize(); i++) {
+            int r = row + shape.getRowOffset(i);
+            int c = column + shape.getColumnOffset(i);
+            buffer.put(arena.occupancy(slot, codec.encode(r, c)), (byte) (count + 1));
+            for (int hr = r - 1; hr <= r + 1; hr++)
+                for (int hc = c - 1; hc <= c + 1; hc++)
+                    if (codec.isInside(hr, hc))
+                        arena.forbid(slot, codec.encode(hr, hc));
+        }
+        int header = arena.base(slot);
+        buffer.putInt(header + GameArena.SHIP_COUNT, count + 1);
+        buffer.putInt(header + GameArena.FLOATING, buffer.getInt(header + GameArena.FLOATING) + 1);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getShipsLike(java.lang.String)
+     */
+    @Override
+    public List<IShip> getShipsLike(String category) {
+        List<IShip> shipsLike = new ArrayList<>();
+        for (IShip s : getShips())
+            if (s.getCategory().equals(category))
+                shipsLike.add(s);
+        return shipsLike;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getFloatingShips()
+     */
+    @Override
+    public List<IShip> getFloatingShips() {
+        List<IShip> floatingShips = new ArrayList<>();
+        for (IShip s : getShips())
+            if (s.stillFloating())
+                floatingShips.add(s);
+        return floatingShips;
+    }
+
+    @Override
+    public int countFloatingShips() {
+        return arena.buffer(slot).getInt(arena.base(slot) + GameArena.FLOATING);
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return the index of the ship lying on the cell, or -1 for water
+     */
+    int shipIndexAt(int cell) {
+        return (arena.buffer(slot).get(arena.occupancy(slot, cell)) & 0xFF) - 1;
+    }
+
+    @Override
+    public IShip shipAt(IPosition pos) {
+        if (!getCodec().isInside(pos.getRow(), pos.getColumn()))
+            return null;
+        return shipAt(getCodec().encode(pos));
+    }
+
+    @Override
+    public IShip shipAt(int cell) {
+        if (!getCodec().isInside(cell))
+            return null;
+        int id = shipIndexAt(cell);
+        return id < 0 ? null : new ArenaShip(arena, slot, id);
+    }
+
+    /**
+     * This operation shows the state of a fleet
+     */
+    @Override
+    public void printStatus() {
+        Fleet.printShips(getShips());
+        Fleet.printShips(getFloatingShips());
+        Fleet.printShips(getShipsLike("Galeao"));
+        Fleet.printShips(getShipsLike("Fragata"));
+        Fleet.printShips(getShipsLike("Nau"));
+        Fleet.printShips(getShipsLike("Caravela"));
+        Fleet.printShips(getShipsLike("Barca"));
+    }
+}
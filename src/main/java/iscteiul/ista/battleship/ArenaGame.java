@@ -0,0 +1,161 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view of a game stored in a {@link GameArena} slot, counting shots as
+ * {@link Game#fire(IPosition)} does. Firing only reads and writes the slot;
+ * a ship view is created when a shot sinks it.
+ */
+public final class ArenaGame implements IGame {
+    private final GameArena arena;
+    private final int slot;
+    private final ArenaFleet fleet;
+
+    ArenaGame(GameArena arena, int slot) {
+        this.arena = arena;
+        this.slot = slot;
+        this.fleet = new ArenaFleet(arena, slot);
+    }
+
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return the fleet under attack
+     */
+    public ArenaFleet getFleet() {
+        return fleet;
+    }
+
+    private int counter(int field) {
+        return arena.buffer(slot).getInt(arena.base(slot) + field);
+    }
+
+    private void increment(int field) {
+        ByteBuffer buffer = arena.buffer(slot);
+        int index = arena.base(slot) + field;
+        buffer.putInt(index, buffer.getInt(index) + 1);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IGame#fire(battleship.IPosition)
+     */
+    @Override
+    public IShip fire(IPosition pos) {
+        return fire(pos.getRow(), pos.getColumn());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IGame#fire(int)
+     */
+    @Override
+    public IShip fire(int cell) {
+        CellCodec codec = arena.getConfig().getCodec();
+        return fire(codec.row(cell), codec.column(cell));
+    }
+
+    private IShip fire(int row, int column) {
+        CellCodec codec = arena.getConfig().getCodec();
+        if (!codec.isInside(row, column)) {
+            increment(GameArena.INVALID_SHOTS);
+            return null;
+        }
+        int cell = codec.encode(row, column);
+        if (arena.isFired(slot, cell)) {
+            increment(GameArena.REPEATED_SHOTS);
+            return null;
+        }
+        arena.markFired(slot, cell);
+        arena.buffer(slot).putChar(arena.shot(slot, counter(GameArena.SHOT_COUNT)), (char) cell);
+        increment(GameArena.SHOT_COUNT);
+
+        int id = fleet.shipIndexAt(cell);
+        if (id < 0)
+            return null;
+        increment(GameArena.HITS);
+        if (!arena.hit(slot, id, row, column))
+            return null;
+        increment(GameArena.SINKS);
+        return new ArenaShip(arena, slot, id);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IGame#getShots()
+     */
+    @Override
+    public List<IPosition> getShots() {
+        CellCodec codec = arena.getConfig().getCodec();
+        List<IPosition> shots = new ArrayList<>(counter(GameArena.SHOT_COUNT));
+        for (int i = 0; i < counter(GameArena.SHOT_COUNT); i++)
+            shots.add(codec.decode(arena.buffer(slot).getChar(arena.shot(slot, i))));
+        return shots;
+    }
+
+    @Override
+    public int getRepeatedShots() {
+        return counter(GameArena.REPEATED_SHOTS);
+    }
+
+    @Override
+    public int getInvalidShots() {
+        return counter(GameArena.INVALID_SHOTS);
+    }
+
+    @Override
+    public int getHits() {
+        return counter(GameArena.HITS);
+    }
+
+    @Override
+    public int getSunkShips() {
+        return counter(GameArena.SINKS);
+    }
+
+    @Override
+    public int getRemainingShips() {
+        return fleet.countFloatingShips();
+    }
+
+    private void printBoard(char marker, boolean fired) {
+        BoardConfig config = arena.getConfig();
+        StringBuilder line = new StringBuilder(config.getColumns());
+        for (int row = 0; row < config.getRows(); row++) {
+            line.setLength(0);
+            for (int col = 0; col < config.getColumns(); col++) {
+                int cell = config.getCodec().encode(row, col);
+                boolean marked = fired ? arena.isFired(slot, cell) : fleet.shipIndexAt(cell) >= 0;
+                line.append(marked ? marker : '.');
+            }
+            System.out.println(line);
+        }
+    }
+
+    /**
+     * Prints the board showing valid shots that have been fired
+     */
+    @Override
+    public void printValidShots() {
+        printBoard('X', true);
+    }
+
+    /**
+     * Prints the board showing the fleet
+     */
+    @Override
+    public void printFleet() {
+        printBoard('#', false);
+    }
+}
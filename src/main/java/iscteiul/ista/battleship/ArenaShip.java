@@ -0,0 +1,168 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A view of a ship stored in a {@link GameArena} slot. Its kind, bearing,
+ * anchor cell and hit mask live off the heap; the view only knows where.
+ * Two views of the same ship are equal.
+ */
+public final class ArenaShip implements IShip {
+    private final GameArena arena;
+    private final int slot;
+    private final int id;
+
+    ArenaShip(GameArena arena, int slot, int id) {
+        this.arena = arena;
+        this.slot = slot;
+        this.id = id;
+    }
+
+    private int record() {
+        return arena.ship(slot, id);
+    }
+
+    ShipShape getShape() {
+        return arena.shape(slot, id);
+    }
+
+    private int anchor() {
+        return arena.buffer(slot).getInt(record() + GameArena.SHIP_ANCHOR);
+    }
+
+    private int anchorRow() {
+        return arena.getConfig().getCodec().row(anchor());
+    }
+
+    private int anchorColumn() {
+        return arena.getConfig().getCodec().column(anchor());
+    }
+
+    private int hitMask() {
+        return arena.buffer(slot).get(record() + GameArena.SHIP_HITS);
+    }
+
+    @Override
+    public String getCategory() {
+        return getShape().getKind().getCategory();
+    }
+
+    @Override
+    public Integer getSize() {
+        return getShape().getSize();
+    }
+
+    /**
+     * @return the cells of the ship; they are bare coordinates, whether each
+     * has been hit is kept by the arena
+     */
+    @Override
+    public List<IPosition> getPositions() {
+        ShipShape shape = getShape();
+        CellCodec codec = arena.getConfig().getCodec();
+        List<IPosition> positions = new ArrayList<>(shape.getSize());
+        for (int i = 0; i < shape.getSize(); i++)
+            positions.add(codec.decode(
+                    codec.encode(anchorRow() + shape.getRowOffset(i), anchorColumn() + shape.getColumnOffset(i))));
+        return positions;
+    }
+
+    @Override
+    public IPosition getPosition() {
+        return arena.getConfig().getCodec().decode(anchor());
+    }
+
+    @Override
+    public Compass getBearing() {
+        return getShape().getBearing();
+    }
+
+    @Override
+    public boolean stillFloating() {
+        return Integer.bitCount(hitMask()) < getShape().getSize();
+    }
+
+    @Override
+    public int getTopMostPos() {
+        return anchorRow() + getShape().getMinRow();
+    }
+
+    @Override
+    public int getBottomMostPos() {
+        return anchorRow() + getShape().getMaxRow();
+    }
+
+    @Override
+    public int getLeftMostPos() {
+        return anchorColumn() + getShape().getMinColumn();
+    }
+
+    @Override
+    public int getRightMostPos() {
+        return anchorColumn() + getShape().getMaxColumn();
+    }
+
+    @Override
+    public boolean occupies(IPosition pos) {
+        return occupies(pos.getRow(), pos.getColumn());
+    }
+
+    @Override
+    public boolean occupies(int row, int column) {
+        return getShape().indexOf(row - anchorRow(), column - anchorColumn()) >= 0;
+    }
+
+    @Override
+    public boolean tooCloseTo(IShip other) {
+        for (int i = 0; i < Ship.cellCount(other); i++)
+            if (tooCloseTo(Ship.cellRow(other, i), Ship.cellColumn(other, i)))
+                return true;
+        return false;
+    }
+
+    @Override
+    public boolean tooCloseTo(IPosition pos) {
+        return tooCloseTo(pos.getRow(), pos.getColumn());
+    }
+
+    private boolean tooCloseTo(int row, int column) {
+        ShipShape shape = getShape();
+        for (int i = 0; i < shape.getSize(); i++)
+            if (Math.abs(anchorRow() + shape.getRowOffset(i) - row) <= 1
+                    && Math.abs(anchorColumn() + shape.getColumnOffset(i) - column) <= 1)
+                return true;
+        return false;
+    }
+
+    @Override
+    public void shoot(IPosition pos) {
+        shoot(pos.getRow(), pos.getColumn());
+    }
+
+    @Override
+    public void shoot(int row, int column) {
+        arena.hit(slot, id, row, column);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ArenaShip))
+            return false;
+        ArenaShip that = (ArenaShip) other;
+        return arena == that.arena && slot == that.slot && id == that.id;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * slot + id;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + getCategory() + " " + getBearing() + " " + getPosition() + "]";
+    }
+}
@@ -12,8 +12,10 @@ public class Barge extends Ship {
      * @param pos     - upper left position of the barge
      */
     public Barge(Compass bearing, IPosition pos) {
-        super(Barge.NAME, bearing, pos);
-        getPositions().add(new Position(pos.getRow(), pos.getColumn()));
+        super(Barge.NAME, bearing, pos, ShipShape.of(ShipKind.BARGE, bearing));
+        // a barge takes its one cell whatever its bearing, even one with no shape
+        if (getShape() == null)
+            getPositions().add(new Position(pos.getRow(), pos.getColumn()));
     }
 
     @Override
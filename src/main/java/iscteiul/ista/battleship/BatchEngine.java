@@ -0,0 +1,185 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * Plays many games at once for simulation, keeping their state in parallel
+ * primitive arrays instead of {@link Game} and {@link Fleet} objects: the ship
+ * on each cell of every board, one bit per fired cell, the cells each ship
+ * still has afloat and the counters of each game. {@link #fire(int[])} applies
+ * one shot to every game in a single loop over those arrays.
+ *
+ * Fleets are laid out with {@link Fleet#addShip(IShip)} and copied in with
+ * {@link #setFleet(int, IFleet)}; shots are counted as
+ * {@link Game#fire(int)} counts them.
+ */
+public final class BatchEngine {
+    private final BoardConfig config;
+    private final int games;
+    private final int cells;
+    private final int words;
+    private final int maxShips;
+
+    /**
+     * Per cell of each board, the index of the ship lying on it plus one
+     */
+    private final byte[] shipAt;
+    private final long[] fired;
+    /**
+     * Per ship of each game, the number of its cells not hit yet
+     */
+    private final byte[] afloat;
+
+    private final int[] floating;
+    private final int[] shots;
+    private final int[] hits;
+    private final int[] sinks;
+    private final int[] invalidShots;
+    private final int[] repeatedShots;
+
+    /**
+     * @param config the board and rules of every game
+     * @param games  the number of games played at once
+     */
+    public BatchEngine(BoardConfig config, int games) {
+        if (config.getFleetSize() > 254)
+            throw new IllegalArgumentException("ERROR! a batch game holds at most 254 ships");
+        if (games <= 0 || (long) games * config.getCells() > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("ERROR! invalid number of games " + games);
+        this.config = config;
+        this.games = games;
+        this.cells = config.getCells();
+        this.words = (cells + 63) >>> 6;
+        this.maxShips = config.getFleetSize();
+
+        shipAt = new byte[games * cells];
+        fired = new long[games * words];
+        afloat = new byte[games * maxShips];
+        floating = new int[games];
+        shots = new int[games];
+        hits = new int[games];
+        sinks = new int[games];
+        invalidShots = new int[games];
+        repeatedShots = new int[games];
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * Starts a game over with a copy of the given fleet, nothing fired yet.
+     * Each ship is taken as the cells of the board it lies on.
+     *
+     * @param game  the index of a game
+     * @param fleet a fleet on the same board
+     */
+    public void setFleet(int game, IFleet fleet) {
+        if (!config.sameBoard(fleet.getConfig()))
+            throw new IllegalArgumentException("ERROR! the fleet is on a " + fleet.getCodec() + " board, not "
+                    + config.getCodec());
+        if (fleet.getShips().size() > maxShips)
+            throw new IllegalArgumentException("ERROR! a batch game holds at most " + maxShips + " ships");
+
+        CellCodec codec = config.getCodec();
+        Arrays.fill(shipAt, game * cells, (game + 1) * cells, (byte) 0);
+        Arrays.fill(fired, game * words, (game + 1) * words, 0L);
+        Arrays.fill(afloat, game * maxShips, (game + 1) * maxShips, (byte) 0);
+        floating[game] = 0;
+        shots[game] = hits[game] = sinks[game] = invalidShots[game] = repeatedShots[game] = 0;
+
+        for (int id = 0; id < fleet.getShips().size(); id++) {
+            IShip s = fleet.getShips().get(id);
+            for (int i = 0; i < Ship.cellCount(s); i++) {
+                int row = Ship.cellRow(s, i);
+                int column = Ship.cellColumn(s, i);
+                int cell = game * cells + codec.encode(row, column);
+                if (codec.isInside(row, column) && shipAt[cell] == 0) {
+                    shipAt[cell] = (byte) (id + 1);
+                    afloat[game * maxShips + id]++;
+                }
+            }
+            if (afloat[game * maxShips + id] > 0)
+                floating[game]++;
+        }
+    }
+
+    /**
+     * Fires one shot in every game
+     *
+     * @param targets for each game, the cell to fire at, as numbered by the
+     *                codec of the board; cells off the board are invalid shots
+     * @return the number of games in which the shot sank a ship
+     */
+    public int fire(int[] targets) {
+        if (targets.length != games)
+            throw new IllegalArgumentException("ERROR! expected " + games + " shots, got " + targets.length);
+        int sunk = 0;
+        for (int game = 0; game < games; game++) {
+            int cell = targets[game];
+            if (cell < 0 || cell >= cells) {
+                invalidShots[game]++;
+                continue;
+            }
+            int word = game * words + (cell >>> 6);
+            long bit = 1L << cell;
+            if ((fired[word] & bit) != 0) {
+                repeatedShots[game]++;
+                continue;
+            }
+            fired[word] |= bit;
+            shots[game]++;
+            int id = shipAt[game * cells + cell] & 0xFF;
+            if (id == 0)
+                continue;
+            hits[game]++;
+            if (--afloat[game * maxShips + id - 1] == 0) {
+                sinks[game]++;
+                floating[game]--;
+                sunk++;
+            }
+        }
+        return sunk;
+    }
+
+    /**
+     * @return the number of valid, not repeated, shots fired in the game
+     */
+    public int getShots(int game) {
+        return shots[game];
+    }
+
+    public int getRepeatedShots(int game) {
+        return repeatedShots[game];
+    }
+
+    public int getInvalidShots(int game) {
+        return invalidShots[game];
+    }
+
+    public int getHits(int game) {
+        return hits[game];
+    }
+
+    public int getSunkShips(int game) {
+        return sinks[game];
+    }
+
+    public int getRemainingShips(int game) {
+        return floating[game];
+    }
+
+    /**
+     * @return true if the cell has been fired at in the game
+     */
+    public boolean isFired(int game, int cell) {
+        return (fired[game * words + (cell >>> 6)] & (1L << cell)) != 0;
+    }
+}
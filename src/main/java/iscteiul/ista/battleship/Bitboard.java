@@ -0,0 +1,204 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * A set of board cells packed into two 64-bit words. Cell (row, column) is
+ * stored at bit {@code row * BOARD_SIZE + column}; bits 0..63 live in the low
+ * word and the remaining ones in the high word, so a 10x10 board needs exactly
+ * two longs and no further allocation.
+ */
+public final class Bitboard {
+    static final int SIZE = IFleet.BOARD_SIZE;
+    static final int CELLS = SIZE * SIZE;
+
+    private static final long HI_MASK = CELLS >= 128 ? -1L : (1L << (CELLS - 64)) - 1;
+    private static final long[] NOT_FIRST_COLUMN = columnMask(0);
+    private static final long[] NOT_LAST_COLUMN = columnMask(SIZE - 1);
+
+    static {
+        assert CELLS > 64 && CELLS <= 128 : "a bitboard holds between 65 and 128 cells";
+    }
+
+    private static long[] columnMask(int excluded) {
+        long lo = 0;
+        long hi = 0;
+        for (int cell = 0; cell < CELLS; cell++)
+            if (cell % SIZE != excluded) {
+                if (cell < 64)
+                    lo |= 1L << cell;
+                else
+                    hi |= 1L << (cell - 64);
+            }
+        return new long[]{lo, hi};
+    }
+
+    /**
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return true if the cell lies on the board
+     */
+    public static boolean isInside(int row, int column) {
+        return row >= 0 && row < SIZE && column >= 0 && column < SIZE;
+    }
+
+    /**
+     * @param row    the row of the cell (must be inside the board)
+     * @param column the column of the cell (must be inside the board)
+     * @return the bit index of the cell
+     */
+    public static int index(int row, int column) {
+        return row * SIZE + column;
+    }
+
+    // -----------------------------------------------------
+
+    private long lo;
+    private long hi;
+
+    public Bitboard() {
+        this(0L, 0L);
+    }
+
+    /**
+     * @param lo bits of cells 0..63
+     * @param hi bits of cells 64 and above
+     */
+    public Bitboard(long lo, long hi) {
+        this.lo = lo;
+        this.hi = hi & HI_MASK;
+    }
+
+    public long getLo() {
+        return lo;
+    }
+
+    public long getHi() {
+        return hi;
+    }
+
+    public boolean get(int cell) {
+        return cell < 64 ? (lo & (1L << cell)) != 0 : (hi & (1L << (cell - 64))) != 0;
+    }
+
+    public void set(int cell) {
+        if (cell < 64)
+            lo |= 1L << cell;
+        else
+            hi |= 1L << (cell - 64);
+    }
+
+    public void clear(int cell) {
+        if (cell < 64)
+            lo &= ~(1L << cell);
+        else
+            hi &= ~(1L << (cell - 64));
+    }
+
+    public void clear() {
+        lo = 0;
+        hi = 0;
+    }
+
+    public boolean isEmpty() {
+        return (lo | hi) == 0;
+    }
+
+    public int cardinality() {
+        return Long.bitCount(lo) + Long.bitCount(hi);
+    }
+
+    public boolean intersects(Bitboard other) {
+        return ((lo & other.lo) | (hi & other.hi)) != 0;
+    }
+
+    /**
+     * @param other another bitboard
+     * @return true if every cell of the other bitboard is also in this one
+     */
+    public boolean containsAll(Bitboard other) {
+        return (other.lo & ~lo) == 0 && (other.hi & ~hi) == 0;
+    }
+
+    public void or(Bitboard other) {
+        lo |= other.lo;
+        hi |= other.hi;
+    }
+
+    public void and(Bitboard other) {
+        lo &= other.lo;
+        hi &= other.hi;
+    }
+
+    public void andNot(Bitboard other) {
+        lo &= ~other.lo;
+        hi &= ~other.hi;
+    }
+
+    /**
+     * @param from the first cell to consider
+     * @return the first set cell at or after {@code from}, or -1 if there is none
+     */
+    public int nextSetBit(int from) {
+        if (from < 64) {
+            long word = lo & (-1L << from);
+            if (word != 0)
+                return Long.numberOfTrailingZeros(word);
+            from = 64;
+        }
+        if (from >= 128)
+            return -1;
+        long word = hi & (-1L << (from - 64));
+        return word != 0 ? 64 + Long.numberOfTrailingZeros(word) : -1;
+    }
+
+    /**
+     * Grows this set by its 8-neighbour halo: every cell adjacent (also
+     * diagonally) to a set cell becomes set as well.
+     */
+    public void dilate() {
+        // horizontal neighbours, without wrapping around the board edges
+        long rowLo = lo | ((lo << 1) & NOT_FIRST_COLUMN[0]) | ((lo >>> 1 | hi << 63) & NOT_LAST_COLUMN[0]);
+        long rowHi = hi | ((hi << 1 | lo >>> 63) & NOT_FIRST_COLUMN[1]) | ((hi >>> 1) & NOT_LAST_COLUMN[1]);
+
+        // vertical neighbours: one row is SIZE bits away
+        long downLo = rowLo << SIZE;
+        long downHi = rowHi << SIZE | rowLo >>> (64 - SIZE);
+        long upLo = rowLo >>> SIZE | rowHi << (64 - SIZE);
+        long upHi = rowHi >>> SIZE;
+
+        lo = rowLo | downLo | upLo;
+        hi = (rowHi | downHi | upHi) & HI_MASK;
+    }
+
+    public Bitboard copy() {
+        return new Bitboard(lo, hi);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof Bitboard))
+            return false;
+        Bitboard that = (Bitboard) other;
+        return lo == that.lo && hi == that.hi;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(lo * 31 + hi);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(CELLS + SIZE);
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++)
+                sb.append(get(index(row, col)) ? '#' : '.');
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A fleet that keeps its occupancy as packed {@link Bitboard}s instead of
+ * walking ship and position lists. Every cell knows the index of the ship
+ * lying on it, so finding the ship at a cell costs a single array access.
+ */
+public class BitboardFleet implements IFleet {
+    private static final int MAX_SHIPS = FLEET_SIZE + 1;
+
+    private final List<IShip> ships;
+    private final Bitboard occupied;
+    private final Bitboard forbidden;
+    private final byte[] shipByCell;
+    private final long[] shipLo;
+    private final long[] shipHi;
+
+    public BitboardFleet() {
+        ships = new ArrayList<>();
+        occupied = new Bitboard();
+        forbidden = new Bitboard();
+        shipByCell = new byte[Bitboard.CELLS];
+        shipLo = new long[MAX_SHIPS];
+        shipHi = new long[MAX_SHIPS];
+    }
+
+    @Override
+    public List<IShip> getShips() {
+        return ships;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#addShip(battleship.IShip)
+     */
+    @Override
+    public boolean addShip(IShip s) {
+        if (ships.size() >= MAX_SHIPS)
+            return false;
+
+        Bitboard mask = new Bitboard();
+        for (int i = 0; i < Ship.cellCount(s); i++) {
+            int row = Ship.cellRow(s, i);
+            int column = Ship.cellColumn(s, i);
+            if (!Bitboard.isInside(row, column))
+                return false;
+            mask.set(Bitboard.index(row, column));
+        }
+        if (mask.isEmpty() || mask.intersects(forbidden))
+            return false;
+
+        int id = ships.size();
+        ships.add(s);
+        shipLo[id] = mask.getLo();
+        shipHi[id] = mask.getHi();
+        for (int cell = mask.nextSetBit(0); cell >= 0; cell = mask.nextSetBit(cell + 1))
+            shipByCell[cell] = (byte) (id + 1);
+
+        occupied.or(mask);
+        mask.dilate();
+        forbidden.or(mask);
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getShipsLike(java.lang.String)
+     */
+    @Override
+    public List<IShip> getShipsLike(String category) {
+        List<IShip> shipsLike = new ArrayList<>();
+        for (IShip s : ships)
+            if (s.getCategory().equals(category))
+                shipsLike.add(s);
+        return shipsLike;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#getFloatingShips()
+     */
+    @Override
+    public List<IShip> getFloatingShips() {
+        List<IShip> floatingShips = new ArrayList<>();
+        for (IShip s : ships)
+            if (s.stillFloating())
+                floatingShips.add(s);
+        return floatingShips;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#shipAt(battleship.IPosition)
+     */
+    @Override
+    public IShip shipAt(IPosition pos) {
+        if (!Bitboard.isInside(pos.getRow(), pos.getColumn()))
+            return null;
+        int id = shipIndexAt(Bitboard.index(pos.getRow(), pos.getColumn()));
+        return id < 0 ? null : ships.get(id);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#shipAt(int)
+     */
+    @Override
+    public IShip shipAt(int cell) {
+        if (!CellCodec.STANDARD.isInside(cell))
+            return null;
+        int id = shipIndexAt(cell);
+        return id < 0 ? null : ships.get(id);
+    }
+
+    /**
+     * @param cell a bit index inside the board
+     * @return the index of the ship lying on the cell, or -1 for water
+     */
+    int shipIndexAt(int cell) {
+        return shipByCell[cell] - 1;
+    }
+
+    /**
+     * @param id   the index of a ship of this fleet
+     * @param hits the cells that have been hit so far
+     * @return true if every cell of the ship has been hit
+     */
+    boolean isSunk(int id, Bitboard hits) {
+        return (shipLo[id] & ~hits.getLo()) == 0 && (shipHi[id] & ~hits.getHi()) == 0;
+    }
+
+    /**
+     * @return the cells occupied by the ships of this fleet
+     */
+    Bitboard getOccupied() {
+        return occupied;
+    }
+
+    /**
+     * This operation shows the state of a fleet
+     */
+    @Override
+    public void printStatus() {
+        Fleet.printShips(ships);
+        Fleet.printShips(getFloatingShips());
+        Fleet.printShips(getShipsLike("Galeao"));
+        Fleet.printShips(getShipsLike("Fragata"));
+        Fleet.printShips(getShipsLike("Nau"));
+        Fleet.printShips(getShipsLike("Caravela"));
+        Fleet.printShips(getShipsLike("Barca"));
+    }
+}
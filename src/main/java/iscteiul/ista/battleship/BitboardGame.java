@@ -0,0 +1,159 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A game played over a {@link BitboardFleet}. Shots and hits are kept as
+ * bitboards, so {@link #fire(IPosition)} costs a constant number of bit
+ * operations and allocates nothing, however many ships and shots there are.
+ */
+public class BitboardGame implements IGame {
+    private final BitboardFleet fleet;
+    private final Bitboard shots;
+    private final Bitboard hits;
+    private final int[] shotOrder;
+    private int shotCount;
+
+    private int countInvalidShots;
+    private int countRepeatedShots;
+    private int countHits;
+    private int countSinks;
+
+    /**
+     * @param fleet the fleet under attack
+     */
+    public BitboardGame(BitboardFleet fleet) {
+        this.fleet = fleet;
+        shots = new Bitboard();
+        hits = new Bitboard();
+        shotOrder = new int[Bitboard.CELLS];
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IGame#fire(battleship.IPosition)
+     */
+    @Override
+    public IShip fire(IPosition pos) {
+        return fire(pos.getRow(), pos.getColumn());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IGame#fire(int)
+     */
+    @Override
+    public IShip fire(int cell) {
+        return fire(CellCodec.STANDARD.row(cell), CellCodec.STANDARD.column(cell));
+    }
+
+    private IShip fire(int row, int column) {
+        if (!Bitboard.isInside(row, column)) {
+            countInvalidShots++;
+            return null;
+        }
+        int cell = Bitboard.index(row, column);
+        if (shots.get(cell)) {
+            countRepeatedShots++;
+            return null;
+        }
+        shots.set(cell);
+        shotOrder[shotCount++] = cell;
+
+        int id = fleet.shipIndexAt(cell);
+        if (id < 0)
+            return null;
+
+        IShip s = fleet.getShips().get(id);
+        s.shoot(row, column);
+        hits.set(cell);
+        countHits++;
+        if (fleet.isSunk(id, hits)) {
+            countSinks++;
+            return s;
+        }
+        return null;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IGame#getShots()
+     */
+    @Override
+    public List<IPosition> getShots() {
+        List<IPosition> list = new ArrayList<>(shotCount);
+        for (int i = 0; i < shotCount; i++)
+            list.add(Coordinate.of(shotOrder[i] / Bitboard.SIZE, shotOrder[i] % Bitboard.SIZE));
+        return list;
+    }
+
+    @Override
+    public int getRepeatedShots() {
+        return countRepeatedShots;
+    }
+
+    @Override
+    public int getInvalidShots() {
+        return countInvalidShots;
+    }
+
+    @Override
+    public int getHits() {
+        return countHits;
+    }
+
+    @Override
+    public int getSunkShips() {
+        return countSinks;
+    }
+
+    @Override
+    public int getRemainingShips() {
+        return fleet.getShips().size() - countSinks;
+    }
+
+    /**
+     * @return the cells shot so far
+     */
+    public Bitboard getShotBoard() {
+        return shots.copy();
+    }
+
+    /**
+     * @return the cells shot so far that hit a ship
+     */
+    public Bitboard getHitBoard() {
+        return hits.copy();
+    }
+
+    private void printBoard(Bitboard cells, char marker) {
+        for (int row = 0; row < Bitboard.SIZE; row++) {
+            for (int col = 0; col < Bitboard.SIZE; col++)
+                System.out.print(cells.get(Bitboard.index(row, col)) ? marker : '.');
+            System.out.println();
+        }
+    }
+
+    /**
+     * Prints the board showing valid shots that have been fired
+     */
+    @Override
+    public void printValidShots() {
+        printBoard(shots, 'X');
+    }
+
+    /**
+     * Prints the board showing the fleet
+     */
+    @Override
+    public void printFleet() {
+        printBoard(fleet.getOccupied(), '#');
+    }
+}
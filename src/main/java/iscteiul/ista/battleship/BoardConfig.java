@@ -0,0 +1,140 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * The rules a fleet and a game are played under: the size of the board and
+ * the number of ships of a fleet. Boards the fleet fills well keep their
+ * per-cell state in flat arrays: those of up to {@link #DENSE_CELLS} cells
+ * and at most {@link #DENSE_CELLS_PER_SHIP} cells per ship. Other boards,
+ * which are mostly empty water, only store the cells that have something on
+ * them, in tiles or hash tables, so their memory follows the ships and shots
+ * rather than the area.
+ */
+public final class BoardConfig {
+    /**
+     * Boards up to this number of cells use dense storage
+     */
+    public static final int DENSE_CELLS = 1 << 20;
+
+    /**
+     * Boards with more cells than this per ship of the fleet use sparse
+     * storage, whatever their size
+     */
+    public static final int DENSE_CELLS_PER_SHIP = 256;
+
+    /**
+     * The classic 10x10 board with its fleet of 11 ships, one more than
+     * {@link IFleet#FLEET_SIZE}, as a {@link Fleet} has always accepted
+     */
+    public static final BoardConfig STANDARD = new BoardConfig(IFleet.BOARD_SIZE, IFleet.BOARD_SIZE,
+            IFleet.FLEET_SIZE + 1);
+
+    private final int rows;
+    private final int columns;
+    private final int fleetSize;
+    private final CellCodec codec;
+
+    /**
+     * @param rows      number of rows of the board
+     * @param columns   number of columns of the board
+     * @param fleetSize number of ships of a fleet
+     */
+    public BoardConfig(int rows, int columns, int fleetSize) {
+        if (fleetSize < 0)
+            throw new IllegalArgumentException("ERROR! invalid fleet size " + fleetSize);
+        this.codec = rows == IFleet.BOARD_SIZE && columns == IFleet.BOARD_SIZE ? CellCodec.STANDARD
+                : new CellCodec(rows, columns);
+        this.rows = rows;
+        this.columns = columns;
+        this.fleetSize = fleetSize;
+    }
+
+    /**
+     * @param size      number of rows and columns of the board
+     * @param fleetSize number of ships of a fleet
+     */
+    public static BoardConfig square(int size, int fleetSize) {
+        return new BoardConfig(size, size, fleetSize);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getFleetSize() {
+        return fleetSize;
+    }
+
+    /**
+     * @return the codec numbering the cells of the board
+     */
+    public CellCodec getCodec() {
+        return codec;
+    }
+
+    /**
+     * @return the number of cells of the board
+     */
+    public int getCells() {
+        return codec.getCells();
+    }
+
+    public boolean isInside(int row, int column) {
+        return codec.isInside(row, column);
+    }
+
+    /**
+     * @return true if per-cell state is kept in flat arrays
+     */
+    public boolean isDense() {
+        return getCells() <= DENSE_CELLS && getCells() <= (long) DENSE_CELLS_PER_SHIP * Math.max(1, fleetSize);
+    }
+
+    /**
+     * @return an empty set of cells suited to the size of the board
+     */
+    CellSet newCellSet() {
+        return isDense() ? new DenseCellSet(getCells()) : new TiledCellSet(codec);
+    }
+
+    /**
+     * @return an empty map from cells to positive numbers suited to the size
+     * of the board
+     */
+    CellMap newCellMap() {
+        return isDense() ? new DenseCellMap(getCells()) : new HashCellMap();
+    }
+
+    /**
+     * @return true if both boards have the same number of rows and columns
+     */
+    public boolean sameBoard(BoardConfig other) {
+        return rows == other.rows && columns == other.columns;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof BoardConfig))
+            return false;
+        BoardConfig that = (BoardConfig) other;
+        return sameBoard(that) && fleetSize == that.fleetSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * codec.hashCode() + fleetSize;
+    }
+
+    @Override
+    public String toString() {
+        return codec + " fleet of " + fleetSize;
+    }
+}
@@ -12,26 +12,13 @@ public class Caravel extends Ship {
      * @param pos     initial point for positioning the Caravel
      */
     public Caravel(Compass bearing, IPosition pos) throws NullPointerException, IllegalArgumentException {
-        super(Caravel.NAME, bearing, pos);
+        super(Caravel.NAME, bearing, pos, ShipShape.of(ShipKind.CARAVEL, bearing));
 
-        //super já está a tratar do null
-        //if (bearing == null)
-        //  throw new NullPointerException("ERROR! invalid bearing for the caravel");
+        if (bearing == null)
+            throw new NullPointerException("ERROR! invalid bearing for the caravel");
 
-        switch (bearing) {
-            case NORTH:
-            case SOUTH:
-                for (int r = 0; r < SIZE; r++)
-                    getPositions().add(new Position(pos.getRow() + r, pos.getColumn()));
-                break;
-            case EAST:
-            case WEST:
-                for (int c = 0; c < SIZE; c++)
-                    getPositions().add(new Position(pos.getRow(), pos.getColumn() + c));
-                break;
-            default:
-                throw new IllegalArgumentException("ERROR! invalid bearing for the caravel");
-        }
+        if (getShape() == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for the caravel");
 
     }
 
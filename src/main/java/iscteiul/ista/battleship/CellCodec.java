@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * Converts between positions and packed cell numbers, {@code row * columns +
+ * column}, for a board of a given size. A cell in a row outside the board
+ * still gets a number, negative or past the last cell, that decodes back to
+ * the same row and column. A column outside the board does not survive the
+ * round trip: it spills into the next or previous row, so on a 10x10 board
+ * (0, 10) decodes as (1, 0). Check {@link #isInside(int, int)} before
+ * encoding a position that may be off the board.
+ */
+public final class CellCodec {
+    /**
+     * The codec of the standard board
+     */
+    public static final CellCodec STANDARD = new CellCodec(IFleet.BOARD_SIZE, IFleet.BOARD_SIZE);
+
+    private final int rows;
+    private final int columns;
+    private final Coordinate.Cache coordinates;
+
+    /**
+     * @param rows    number of rows of the board
+     * @param columns number of columns of the board
+     */
+    public CellCodec(int rows, int columns) {
+        if (rows <= 0 || columns <= 0 || (long) rows * columns > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("ERROR! invalid board size " + rows + "x" + columns);
+        this.rows = rows;
+        this.columns = columns;
+        this.coordinates = Coordinate.cache(rows, columns);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return the number of cells of the board
+     */
+    public int getCells() {
+        return rows * columns;
+    }
+
+    public boolean isInside(int row, int column) {
+        return row >= 0 && row < rows && column >= 0 && column < columns;
+    }
+
+    /**
+     * @param cell a cell number
+     * @return true if the cell lies on the board
+     */
+    public boolean isInside(int cell) {
+        return cell >= 0 && cell < rows * columns;
+    }
+
+    public int encode(int row, int column) {
+        return row * columns + column;
+    }
+
+    public int encode(IPosition pos) {
+        return encode(pos.getRow(), pos.getColumn());
+    }
+
+    public int row(int cell) {
+        return Math.floorDiv(cell, columns);
+    }
+
+    public int column(int cell) {
+        return Math.floorMod(cell, columns);
+    }
+
+    /**
+     * @param cell a cell number
+     * @return its coordinate, interned when the cell lies on the board
+     */
+    public Coordinate decode(int cell) {
+        return coordinates.get(row(cell), column(cell));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof CellCodec))
+            return false;
+        CellCodec that = (CellCodec) other;
+        return rows == that.rows && columns == that.columns;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * rows + columns;
+    }
+
+    @Override
+    public String toString() {
+        return rows + "x" + columns;
+    }
+}
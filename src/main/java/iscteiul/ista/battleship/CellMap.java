@@ -0,0 +1,18 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * Maps cells of a board, numbered by its {@link CellCodec}, to positive
+ * numbers. Cells never put in the map are mapped to zero.
+ */
+interface CellMap {
+    int get(int cell);
+
+    /**
+     * @param cell  a cell of the board
+     * @param value a positive number
+     */
+    void put(int cell, int value);
+}
@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A set of cells of a board, numbered by its {@link CellCodec}
+ */
+interface CellSet {
+    boolean contains(int cell);
+
+    /**
+     * @param cell a cell of the board
+     * @return true if the cell was not in the set yet
+     */
+    boolean add(int cell);
+
+    /**
+     * @param cell a cell of the board
+     * @return true if the cell was in the set
+     */
+    boolean remove(int cell);
+
+    /**
+     * @return the number of cells in the set
+     */
+    int size();
+
+    /**
+     * Visits every cell of the set, in no particular order
+     *
+     * @param action what to do with each cell
+     */
+    void forEach(IntConsumer action);
+
+    /**
+     * @param codec  the codec of the board
+     * @param row    a row of the board
+     * @param column a column of the board, multiple of 64
+     * @return the cells of the row from that column on, one bit per column,
+     * the first column in the lowest bit
+     */
+    default long rowWord(CellCodec codec, int row, int column) {
+        long word = 0;
+        int end = Math.min(column + 64, codec.getColumns());
+        for (int c = column; c < end; c++)
+            if (contains(codec.encode(row, c)))
+                word |= 1L << (c - column);
+        return word;
+    }
+}
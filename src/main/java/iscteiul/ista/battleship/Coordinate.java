@@ -0,0 +1,161 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable (row, column) pair. Unlike {@link Position} it carries no game
+ * state: whether a cell is occupied or hit is kept by the fleet and the game
+ * that own the board. Coordinates of a board are interned, so asking for one
+ * never allocates and they can safely be used as hash keys.
+ */
+public final class Coordinate implements IPosition {
+    /**
+     * Boards up to this number of cells have all their coordinates cached
+     */
+    static final int MAX_CACHED_CELLS = 1 << 16;
+
+    private static final Map<Long, Cache> CACHES = new ConcurrentHashMap<>();
+    private static final Cache DEFAULT = cache(IFleet.BOARD_SIZE, IFleet.BOARD_SIZE);
+
+    /**
+     * @param row    the row of the coordinate
+     * @param column the column of the coordinate
+     * @return the coordinate, shared for every cell of the standard board
+     */
+    public static Coordinate of(int row, int column) {
+        return DEFAULT.get(row, column);
+    }
+
+    /**
+     * @param rows    number of rows of the board
+     * @param columns number of columns of the board
+     * @return the flyweight cache for boards of that size
+     */
+    public static Cache cache(int rows, int columns) {
+        return CACHES.computeIfAbsent(((long) rows << 32) | columns, key -> new Cache(rows, columns));
+    }
+
+    /**
+     * @return the hash code shared by every {@link IPosition} with these
+     * coordinates
+     */
+    static int hash(int row, int column) {
+        return 31 * row + column;
+    }
+
+    /**
+     * The interned coordinates of a board of a given size. Boards larger than
+     * {@link #MAX_CACHED_CELLS} cells, and coordinates outside the board, get
+     * a fresh coordinate on each request.
+     */
+    public static final class Cache {
+        private final int rows;
+        private final int columns;
+        private final Coordinate[] cells;
+
+        private Cache(int rows, int columns) {
+            this.rows = rows;
+            this.columns = columns;
+            long count = (long) rows * columns;
+            if (count <= MAX_CACHED_CELLS) {
+                cells = new Coordinate[(int) count];
+                for (int r = 0; r < rows; r++)
+                    for (int c = 0; c < columns; c++)
+                        cells[r * columns + c] = new Coordinate(r, c);
+            } else {
+                cells = null;
+            }
+        }
+
+        public Coordinate get(int row, int column) {
+            if (cells != null && row >= 0 && row < rows && column >= 0 && column < columns)
+                return cells[row * columns + column];
+            return new Coordinate(row, column);
+        }
+    }
+
+    // -----------------------------------------------------
+
+    private final int row;
+    private final int column;
+
+    private Coordinate(int row, int column) {
+        this.row = row;
+        this.column = column;
+    }
+
+    @Override
+    public int getRow() {
+        return row;
+    }
+
+    @Override
+    public int getColumn() {
+        return column;
+    }
+
+    @Override
+    public boolean isAdjacentTo(IPosition other) {
+        return Math.abs(row - other.getRow()) <= 1 && Math.abs(column - other.getColumn()) <= 1;
+    }
+
+    /**
+     * A coordinate has no state to change
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void occupy() {
+        throw new UnsupportedOperationException("a coordinate cannot be occupied, its board keeps that state");
+    }
+
+    /**
+     * A coordinate has no state to change
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void shoot() {
+        throw new UnsupportedOperationException("a coordinate cannot be shot, its board keeps that state");
+    }
+
+    /**
+     * @return false, a bare coordinate knows nothing about the board
+     */
+    @Override
+    public boolean isOccupied() {
+        return false;
+    }
+
+    /**
+     * @return false, a bare coordinate knows nothing about the board
+     */
+    @Override
+    public boolean isHit() {
+        return false;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other)
+            return true;
+        if (!(other instanceof IPosition))
+            return false;
+        IPosition that = (IPosition) other;
+        return row == that.getRow() && column == that.getColumn();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(row, column);
+    }
+
+    @Override
+    public String toString() {
+        return ("Linha = " + row + " Coluna = " + column);
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * A {@link CellMap} with one slot per cell of the board
+ */
+final class DenseCellMap implements CellMap {
+    private final int[] values;
+
+    DenseCellMap(int cells) {
+        values = new int[cells];
+    }
+
+    @Override
+    public int get(int cell) {
+        return values[cell];
+    }
+
+    @Override
+    public void put(int cell, int value) {
+        values[cell] = value;
+    }
+}
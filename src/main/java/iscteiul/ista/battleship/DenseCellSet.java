@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link CellSet} with one bit per cell of the board
+ */
+final class DenseCellSet implements CellSet {
+    private final long[] bits;
+    private int size;
+
+    DenseCellSet(int cells) {
+        bits = new long[(cells + 63) >>> 6];
+    }
+
+    @Override
+    public boolean contains(int cell) {
+        return (bits[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    @Override
+    public boolean add(int cell) {
+        if (contains(cell))
+            return false;
+        bits[cell >>> 6] |= 1L << cell;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(int cell) {
+        if (!contains(cell))
+            return false;
+        bits[cell >>> 6] &= ~(1L << cell);
+        size--;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < bits.length; i++)
+            for (long word = bits[i]; word != 0; word &= word - 1)
+                action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+    }
+}
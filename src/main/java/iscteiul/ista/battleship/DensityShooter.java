@@ -0,0 +1,269 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fires at the cell covered by the most placements of the ships still
+ * afloat. A placement is a footprint of a kind of ship at an anchor keeping
+ * it on the board; it stays possible until one of its cells turns out to be
+ * water, or part or halo of a sunk ship, or until a hit lands in its halo,
+ * since the ship hit there would touch it. While some hit belongs to a ship
+ * not sunk yet, only the placements covering such hits are counted, once per hit
+ * they cover, which finishes off the ship before hunting again.
+ *
+ * Every placement of the board is listed once, along with the placements
+ * covering each cell. A shot only visits the placements covering the cells it
+ * reveals and updates the coverage of their cells, so choosing a shot costs a
+ * pass over the cells however many shots were fired before.
+ */
+public class DensityShooter implements Shooter {
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+    private static final int KINDS = ShipKind.values().length;
+
+    private final FleetComposition composition;
+
+    private BoardConfig config;
+    private CellCodec codec;
+    /**
+     * Per placement, its kind and cells; the cells of placement p run from
+     * {@code start[p]} to {@code start[p + 1]}
+     */
+    private byte[] kind = new byte[0];
+    private int[] start = new int[1];
+    private int[] cells = new int[0];
+    /**
+     * Per cell, the placements covering it, from {@code coverStart[cell]} to
+     * {@code coverStart[cell + 1]}
+     */
+    private int[] coverStart = new int[1];
+    private int[] covering = new int[0];
+    /**
+     * Per kind and cell, the possible placements covering the cell
+     */
+    private int[] initialCoverage = new int[0];
+
+    private int[] order = new int[0];
+    private boolean[] known = new boolean[0];
+    private boolean[] possible = new boolean[0];
+    private int[] openHits = new int[0];
+    private int[] coverage = new int[0];
+    /**
+     * Per kind and cell, the hits not sunk yet covered by the possible
+     * placements covering the cell
+     */
+    private int[] hitCoverage = new int[0];
+    private final int[] afloat = new int[KINDS];
+    private int unresolvedHits;
+
+    /**
+     * Hunts the standard fleet
+     */
+    public DensityShooter() {
+        this(FleetComposition.STANDARD);
+    }
+
+    /**
+     * @param composition the ships of the fleets to hunt
+     */
+    public DensityShooter(FleetComposition composition) {
+        this.composition = composition;
+    }
+
+    @Override
+    public void start(BoardConfig config, Random random) {
+        if (!config.equals(this.config))
+            list(config);
+        int cellCount = config.getCells();
+        for (int i = 0; i < cellCount; i++)
+            order[i] = i;
+        for (int i = cellCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int cell = order[i];
+            order[i] = order[j];
+            order[j] = cell;
+        }
+        Arrays.fill(known, false);
+        Arrays.fill(possible, true);
+        Arrays.fill(openHits, 0);
+        System.arraycopy(initialCoverage, 0, coverage, 0, coverage.length);
+        Arrays.fill(hitCoverage, 0);
+        for (ShipKind k : ShipKind.values())
+            afloat[k.ordinal()] = composition.getCount(k);
+        unresolvedHits = 0;
+    }
+
+    /**
+     * Lists every placement of the ships of the composition on the board
+     */
+    private void list(BoardConfig config) {
+        this.config = config;
+        this.codec = config.getCodec();
+        int cellCount = config.getCells();
+
+        List<int[]> placements = new ArrayList<>();
+        for (ShipKind k : ShipKind.values()) {
+            if (composition.getCount(k) == 0)
+                continue;
+            List<ShipShape> shapes = new ArrayList<>();
+            for (Compass bearing : BEARINGS) {
+                ShipShape shape = ShipShape.of(k, bearing);
+                boolean seen = false;
+                for (ShipShape other : shapes)
+                    seen |= FleetGenerator.sameFootprint(shape, other);
+                if (seen)
+                    continue;
+                shapes.add(shape);
+                for (int row = -shape.getMinRow(); row < config.getRows() - shape.getMaxRow(); row++)
+                    for (int column = -shape.getMinColumn(); column < config.getColumns() - shape.getMaxColumn();
+                         column++) {
+                        int[] placement = new int[shape.getSize() + 1];
+                        placement[0] = k.ordinal();
+                        for (int i = 0; i < shape.getSize(); i++)
+                            placement[i + 1] = codec.encode(row + shape.getRowOffset(i),
+                                    column + shape.getColumnOffset(i));
+                        placements.add(placement);
+                    }
+            }
+        }
+
+        int count = placements.size();
+        kind = new byte[count];
+        start = new int[count + 1];
+        for (int p = 0; p < count; p++) {
+            kind[p] = (byte) placements.get(p)[0];
+            start[p + 1] = start[p] + placements.get(p).length - 1;
+        }
+        cells = new int[start[count]];
+        coverStart = new int[cellCount + 1];
+        initialCoverage = new int[KINDS * cellCount];
+        for (int p = 0; p < count; p++)
+            for (int i = 1; i < placements.get(p).length; i++) {
+                int cell = placements.get(p)[i];
+                cells[start[p] + i - 1] = cell;
+                coverStart[cell + 1]++;
+                initialCoverage[kind[p] * cellCount + cell]++;
+            }
+        for (int cell = 0; cell < cellCount; cell++)
+            coverStart[cell + 1] += coverStart[cell];
+        covering = new int[cells.length];
+        int[] filled = Arrays.copyOf(coverStart, cellCount);
+        for (int p = 0; p < count; p++)
+            for (int i = start[p]; i < start[p + 1]; i++)
+                covering[filled[cells[i]]++] = p;
+
+        order = new int[cellCount];
+        known = new boolean[cellCount];
+        possible = new boolean[count];
+        openHits = new int[count];
+        coverage = new int[KINDS * cellCount];
+        hitCoverage = new int[KINDS * cellCount];
+    }
+
+    @Override
+    public int nextShot() {
+        int cellCount = config.getCells();
+        int[] counts = unresolvedHits > 0 ? hitCoverage : coverage;
+        int best = -1;
+        long bestScore = -1;
+        for (int i = 0; i < cellCount; i++) {
+            int cell = order[i];
+            if (known[cell])
+                continue;
+            long score = 0;
+            for (int k = 0; k < KINDS; k++)
+                score += (long) afloat[k] * counts[k * cellCount + cell];
+            if (score > bestScore) {
+                best = cell;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public void shotResult(int cell, boolean hit, IShip sunk) {
+        if (!codec.isInside(cell) || known[cell])
+            return;
+        known[cell] = true;
+        if (sunk != null) {
+            unresolvedHits -= Ship.cellCount(sunk) - 1;
+            afloat[ShipKind.fromCategory(sunk.getCategory()).ordinal()]--;
+            for (int i = 0; i < Ship.cellCount(sunk); i++)
+                for (int r = Ship.cellRow(sunk, i) - 1; r <= Ship.cellRow(sunk, i) + 1; r++)
+                    for (int c = Ship.cellColumn(sunk, i) - 1; c <= Ship.cellColumn(sunk, i) + 1; c++)
+                        if (codec.isInside(r, c)) {
+                            known[codec.encode(r, c)] = true;
+                            ruleOut(codec.encode(r, c));
+                        }
+        } else if (hit) {
+            unresolvedHits++;
+            int row = codec.row(cell);
+            int column = codec.column(cell);
+            for (int r = row - 1; r <= row + 1; r++)
+                for (int c = column - 1; c <= column + 1; c++)
+                    if (codec.isInside(r, c) && (r != row || c != column))
+                        ruleOutTouching(codec.encode(r, c), cell);
+            for (int i = coverStart[cell]; i < coverStart[cell + 1]; i++) {
+                int p = covering[i];
+                if (possible[p]) {
+                    openHits[p]++;
+                    for (int j = start[p]; j < start[p + 1]; j++)
+                        hitCoverage[kind[p] * config.getCells() + cells[j]]++;
+                }
+            }
+        } else {
+            ruleOut(cell);
+        }
+    }
+
+    /**
+     * Rules out every placement covering a cell where no ship can be
+     */
+    private void ruleOut(int cell) {
+        for (int i = coverStart[cell]; i < coverStart[cell + 1]; i++)
+            if (possible[covering[i]])
+                discard(covering[i]);
+    }
+
+    /**
+     * Rules out every placement covering a cell next to a hit without
+     * covering the hit, as it would touch the ship hit there
+     */
+    private void ruleOutTouching(int cell, int hit) {
+        for (int i = coverStart[cell]; i < coverStart[cell + 1]; i++) {
+            int p = covering[i];
+            if (!possible[p])
+                continue;
+            boolean covers = false;
+            for (int j = start[p]; j < start[p + 1]; j++)
+                covers |= cells[j] == hit;
+            if (!covers)
+                discard(p);
+        }
+    }
+
+    /**
+     * Takes a possible placement out of the coverage of its cells
+     */
+    private void discard(int p) {
+        int base = kind[p] * config.getCells();
+        possible[p] = false;
+        for (int j = start[p]; j < start[p + 1]; j++) {
+            coverage[base + cells[j]]--;
+            hitCoverage[base + cells[j]] -= openHits[p];
+        }
+    }
+
+    /**
+     * @return the possible placements of a kind of ship covering a cell
+     */
+    int coverage(ShipKind shipKind, int cell) {
+        return coverage[shipKind.ordinal() * config.getCells() + cell];
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+
+/**
+ * Plays a heuristic shooter until the game gets small enough for an
+ * {@link EndgameSolver}, then plays the solver's best shots. The heuristic is
+ * told of every shot, so it could take over again at any time.
+ */
+public class EndgameShooter implements Shooter {
+    /**
+     * The configurations the solver takes on by default
+     */
+    public static final int DEFAULT_CONFIGURATIONS = 200;
+
+    private final FleetComposition composition;
+    private final Shooter heuristic;
+    private final EndgameSolver solver;
+
+    private ShotInference inference;
+    private BoardConfig config;
+    private boolean solving;
+
+    /**
+     * @param composition the ships of the fleets to hunt
+     * @param heuristic   the shooter playing until the endgame
+     */
+    public EndgameShooter(FleetComposition composition, Shooter heuristic) {
+        this(composition, heuristic, new EndgameSolver(DEFAULT_CONFIGURATIONS));
+    }
+
+    /**
+     * @param composition the ships of the fleets to hunt
+     * @param heuristic   the shooter playing until the endgame
+     * @param solver      the solver taking over in the endgame
+     */
+    public EndgameShooter(FleetComposition composition, Shooter heuristic, EndgameSolver solver) {
+        this.composition = composition;
+        this.heuristic = heuristic;
+        this.solver = solver;
+    }
+
+    @Override
+    public void start(BoardConfig config, Random random) {
+        if (!config.equals(this.config)) {
+            this.config = config;
+            inference = new ShotInference(config, composition);
+        }
+        inference.reset();
+        heuristic.start(config, random);
+        solving = false;
+    }
+
+    @Override
+    public int nextShot() {
+        int shot = solver.bestShot(inference);
+        solving = shot >= 0;
+        return solving ? shot : heuristic.nextShot();
+    }
+
+    @Override
+    public void shotResult(int cell, boolean hit, IShip sunk) {
+        inference.observe(cell, hit, sunk);
+        heuristic.shotResult(cell, hit, sunk);
+    }
+
+    /**
+     * @return true if the solver chose the last shot
+     */
+    public boolean isSolving() {
+        return solving;
+    }
+}
@@ -0,0 +1,565 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Finds the shot that sinks the ships still afloat in the fewest shots on
+ * average, once few enough cells are left open that every way the ships can
+ * lie can be listed.
+ *
+ * The open cells are the open hits plus the cells neither fired at nor known
+ * to be water, at most {@link #MAX_CELLS} of them, each given a bit of a long.
+ * A configuration is the mask of the open cells holding the ships afloat. The
+ * search listing them first covers each open hit with a ship, then places the
+ * other ships, pruned with the halo of every ship placed so far. All of them
+ * are equally likely, as every legal fleet is.
+ *
+ * Firing at a cell splits the configurations by what the shot reveals: a miss,
+ * a hit, or a ship sunk along with its cells. The expected shots of a set of
+ * configurations is the least, over the cells some of them hold, of one plus
+ * the expected shots of the parts weighted by their size. A set holding a
+ * single configuration takes one shot per cell left. The cells fired at, the
+ * hits and the cells of the ships sunk among them pin down the configurations
+ * left, so their {@link Zobrist} hash keys a {@link TranspositionTable} shared
+ * by the searches, and the cells of the first shot are searched in parallel.
+ * The keys hash the whole board rather than the open cells, so the states
+ * solved for one shot are still there for the next. The shots each configuration still needs,
+ * plus the chance the next shot misses, bound the search from below: a cell is
+ * skipped once its bound cannot beat the best cell found, and a part of the
+ * configurations is searched only as far as needed to beat it. The table
+ * keeps exact values and such bounds apart.
+ *
+ * A state is small enough when its configurations and the sets of them the
+ * search visits stay within the limits of the solver; otherwise it declines,
+ * and the caller plays on by other means until the state shrinks.
+ */
+public class EndgameSolver {
+    /**
+     * The most open cells the solver takes on
+     */
+    public static final int MAX_CELLS = 64;
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+    /**
+     * The placements tried per configuration allowed before the listing
+     * gives up
+     */
+    private static final int NODES_PER_CONFIGURATION = 64;
+    /**
+     * The gap below which two expected shots count as equal
+     */
+    private static final double TIE = 1e-9;
+    /**
+     * The sets of configurations searched by default before the solver gives
+     * up
+     */
+    public static final long DEFAULT_SEARCH_NODES = 1 << 10;
+    /**
+     * The entries of the table of a solver by default
+     */
+    public static final int DEFAULT_TABLE_ENTRIES = 1 << 16;
+    /**
+     * What the table returns for a state it does not hold, the bits of -0.0,
+     * which no state is worth
+     */
+    private static final long MISSING = Long.MIN_VALUE;
+
+    private final int maxConfigurations;
+    private final long searchNodes;
+    private final ForkJoinPool pool;
+    private final TranspositionTable table;
+
+    private int[] openCells = new int[MAX_CELLS];
+    private int open;
+    private long hits;
+    /**
+     * Per configuration, its occupied cells, and the cells of each of its
+     * ships from {@code configuration * shipsAfloat}
+     */
+    private long[] occupancy = new long[16];
+    private long[] shipCells = new long[16];
+    private int configurations;
+    private int shipsAfloat;
+    /**
+     * Per kind of ship afloat, largest first, the cells and halo of each of
+     * its placements over the open cells, and the ships left to place
+     */
+    private long[][] placements;
+    private int[] left;
+    private long[] placed;
+    private long nodes;
+    private long rootKey;
+    private final AtomicLong searched = new AtomicLong();
+    private double expectedShots;
+
+    /**
+     * Solves on the common pool, searching the default number of sets, with a
+     * table of its own
+     *
+     * @param maxConfigurations the most configurations the solver takes on
+     */
+    public EndgameSolver(int maxConfigurations) {
+        this(maxConfigurations, DEFAULT_SEARCH_NODES, ForkJoinPool.commonPool(),
+                new TranspositionTable(DEFAULT_TABLE_ENTRIES));
+    }
+
+    /**
+     * The table may be shared with other solvers hunting the same ships on the
+     * same board, as the values of the states it keeps depend on nothing else
+     *
+     * @param maxConfigurations the most configurations the solver takes on
+     * @param searchNodes       the most sets of configurations searched
+     * @param pool              the pool searching the first shots
+     * @param table             the table keeping the values of the states
+     */
+    public EndgameSolver(int maxConfigurations, long searchNodes, ForkJoinPool pool, TranspositionTable table) {
+        if (maxConfigurations < 1)
+            throw new IllegalArgumentException("ERROR! invalid number of configurations " + maxConfigurations);
+        if (searchNodes < 1)
+            throw new IllegalArgumentException("ERROR! invalid number of search nodes " + searchNodes);
+        this.maxConfigurations = maxConfigurations;
+        this.searchNodes = searchNodes;
+        this.pool = pool;
+        this.table = table;
+    }
+
+    /**
+     * Solves the game as told by an inference
+     *
+     * @param state what the shots so far revealed
+     * @return the cell to fire at, or -1 when the game has too many open cells
+     * or configurations to solve in time, or none is left
+     */
+    public int bestShot(ShotInference state) {
+        configurations = 0;
+        expectedShots = Double.NaN;
+        if (!list(state) || !enumerate(state) || configurations == 0)
+            return -1;
+
+        if (configurations == 1) {
+            long left = occupancy[0] & ~hits;
+            expectedShots = Long.bitCount(left);
+            return left == 0 ? -1 : openCells[Long.numberOfTrailingZeros(left)];
+        }
+        int[] all = new int[configurations];
+        for (int c = 0; c < configurations; c++)
+            all[c] = c;
+        table.newSearch();
+        searched.set(0);
+
+        int[] counts = new int[MAX_CELLS];
+        int[] order = candidates(all, hits, counts);
+        double[] values = new double[order.length];
+        AtomicLong best = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+        pool.invoke(new FirstShots(all, order, counts, values, best, 0, order.length));
+        if (searched.get() > searchNodes)
+            return -1;
+        int chosen = 0;
+        for (int i = 1; i < order.length; i++)
+            if (values[i] < values[chosen] - TIE)
+                chosen = i;
+        expectedShots = values[chosen];
+        return openCells[order[chosen]];
+    }
+
+    /**
+     * @return the expected shots left after the last solved state, or NaN if
+     * it was not solved
+     */
+    public double getExpectedShots() {
+        return expectedShots;
+    }
+
+    /**
+     * @return the configurations of the last state, up to one past the most
+     * the solver takes on
+     */
+    public int getConfigurations() {
+        return configurations;
+    }
+
+    /**
+     * Gives a bit to each open cell, and hashes what the shots revealed
+     *
+     * @return false if there are too many
+     */
+    private boolean list(ShotInference state) {
+        open = 0;
+        hits = 0;
+        rootKey = 0;
+        BoardConfig config = state.getConfig();
+        for (int cell = 0; cell < config.getCells(); cell++) {
+            if (state.isShot(cell))
+                rootKey ^= Zobrist.shot(cell);
+            if (state.isOpenHit(cell))
+                rootKey ^= Zobrist.hit(cell);
+            if (state.isSunk(cell))
+                rootKey ^= Zobrist.hit(cell) ^ Zobrist.sunkCell(cell);
+            if (!state.isOpenHit(cell) && (state.isShot(cell) || state.isImpossible(cell)))
+                continue;
+            if (open == MAX_CELLS)
+                return false;
+            if (state.isOpenHit(cell))
+                hits |= 1L << open;
+            openCells[open++] = cell;
+        }
+        return true;
+    }
+
+    /**
+     * Lists every configuration of the ships afloat over the open cells
+     *
+     * @return false if there are too many
+     */
+    private boolean enumerate(ShotInference state) {
+        BoardConfig config = state.getConfig();
+        CellCodec codec = config.getCodec();
+        int[] bits = new int[config.getCells()];
+        Arrays.fill(bits, -1);
+        for (int i = 0; i < open; i++)
+            bits[openCells[i]] = i;
+
+        List<long[]> kindPlacements = new ArrayList<>();
+        List<Integer> kindCounts = new ArrayList<>();
+        ShipKind[] kinds = ShipKind.values();
+        for (int k = kinds.length - 1; k >= 0; k--) {
+            if (state.getAfloat(kinds[k]) == 0)
+                continue;
+            List<Long> found = new ArrayList<>();
+            List<ShipShape> shapes = new ArrayList<>();
+            for (Compass bearing : BEARINGS) {
+                ShipShape shape = ShipShape.of(kinds[k], bearing);
+                boolean seen = false;
+                for (ShipShape other : shapes)
+                    seen |= FleetGenerator.sameFootprint(shape, other);
+                if (seen)
+                    continue;
+                shapes.add(shape);
+                for (int row = -shape.getMinRow(); row < config.getRows() - shape.getMaxRow(); row++)
+                    for (int column = -shape.getMinColumn(); column < config.getColumns() - shape.getMaxColumn();
+                         column++) {
+                        long mask = 0;
+                        long halo = 0;
+                        boolean fits = true;
+                        for (int i = 0; i < shape.getSize(); i++) {
+                            int r = row + shape.getRowOffset(i);
+                            int c = column + shape.getColumnOffset(i);
+                            int bit = bits[codec.encode(r, c)];
+                            fits = bit >= 0;
+                            if (!fits)
+                                break;
+                            mask |= 1L << bit;
+                            for (int hr = r - 1; hr <= r + 1; hr++)
+                                for (int hc = c - 1; hc <= c + 1; hc++)
+                                    if (codec.isInside(hr, hc) && bits[codec.encode(hr, hc)] >= 0)
+                                        halo |= 1L << bits[codec.encode(hr, hc)];
+                        }
+                        if (fits) {
+                            found.add(mask);
+                            found.add(halo);
+                        }
+                    }
+            }
+            long[] flat = new long[found.size()];
+            for (int i = 0; i < flat.length; i++)
+                flat[i] = found.get(i);
+            kindPlacements.add(flat);
+            kindCounts.add(state.getAfloat(kinds[k]));
+        }
+
+        placements = kindPlacements.toArray(new long[0][]);
+        left = new int[placements.length];
+        shipsAfloat = 0;
+        for (int k = 0; k < left.length; k++) {
+            left[k] = kindCounts.get(k);
+            shipsAfloat += left[k];
+        }
+        placed = new long[shipsAfloat];
+        nodes = 0;
+        return cover(0, 0, 0);
+    }
+
+    /**
+     * Places a ship over the first open hit no ship covers yet, in every way
+     * that keeps the other hits clear of its halo, then the ships left once
+     * every hit is covered. The ship over a given hit is the same however the
+     * others lie, so each configuration is listed once.
+     *
+     * @return false once there are too many configurations, or the search
+     * took too long
+     */
+    private boolean cover(int ships, long occupied, long blocked) {
+        long uncovered = hits & ~occupied;
+        if (uncovered == 0)
+            return placeRest(ships, 0, 0, occupied, blocked);
+        long hit = uncovered & -uncovered;
+        for (int k = 0; k < placements.length; k++) {
+            if (left[k] == 0)
+                continue;
+            long[] candidates = placements[k];
+            for (int p = 0; p < candidates.length; p += 2) {
+                long mask = candidates[p];
+                if ((mask & hit) == 0 || (mask & blocked) != 0)
+                    continue;
+                long nowOccupied = occupied | mask;
+                long nowBlocked = blocked | candidates[p + 1];
+                if ((hits & ~nowOccupied & nowBlocked) != 0)
+                    continue;
+                if (++nodes > NODES_PER_CONFIGURATION * (long) maxConfigurations)
+                    return false;
+                left[k]--;
+                placed[ships] = mask;
+                boolean going = cover(ships + 1, nowOccupied, nowBlocked);
+                left[k]++;
+                if (!going)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Places the ships not covering hits, by kind, each ship of a kind after
+     * the one before it, and keeps every configuration found
+     *
+     * @return false once there are too many configurations, or the search
+     * took too long
+     */
+    private boolean placeRest(int ships, int kind, int from, long occupied, long blocked) {
+        while (kind < left.length && left[kind] == 0) {
+            kind++;
+            from = 0;
+        }
+        if (kind == left.length) {
+            if (configurations == maxConfigurations) {
+                configurations++;
+                return false;
+            }
+            if (configurations == occupancy.length)
+                occupancy = Arrays.copyOf(occupancy, 2 * configurations);
+            if (shipCells.length < (configurations + 1) * shipsAfloat)
+                shipCells = Arrays.copyOf(shipCells, 2 * (configurations + 1) * shipsAfloat);
+            occupancy[configurations] = occupied;
+            System.arraycopy(placed, 0, shipCells, configurations * shipsAfloat, shipsAfloat);
+            configurations++;
+            return true;
+        }
+        long[] candidates = placements[kind];
+        for (int p = from; p < candidates.length; p += 2) {
+            long mask = candidates[p];
+            if ((mask & blocked) != 0)
+                continue;
+            if (++nodes > NODES_PER_CONFIGURATION * (long) maxConfigurations)
+                return false;
+            left[kind]--;
+            placed[ships] = mask;
+            boolean going = placeRest(ships + 1, kind, p + 2, occupied | mask, blocked | candidates[p + 1]);
+            left[kind]++;
+            if (!going)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Counts the configurations of a set holding each open cell not fired at
+     *
+     * @return the cells some configuration holds, the likeliest hits first
+     */
+    private int[] candidates(int[] set, long shot, int[] counts) {
+        long union = 0;
+        for (int c : set) {
+            long left = occupancy[c] & ~shot;
+            union |= left;
+            for (; left != 0; left &= left - 1)
+                counts[Long.numberOfTrailingZeros(left)]++;
+        }
+        int[] order = new int[Long.bitCount(union)];
+        for (int i = 0; union != 0; union &= union - 1)
+            order[i++] = Long.numberOfTrailingZeros(union);
+        // insertion sort on falling counts, keeping cells in order among ties
+        for (int i = 1; i < order.length; i++)
+            for (int j = i; j > 0 && counts[order[j]] > counts[order[j - 1]]; j--) {
+                int cell = order[j];
+                order[j] = order[j - 1];
+                order[j - 1] = cell;
+            }
+        return order;
+    }
+
+    /**
+     * Bounds the expected shots of a set from below: every cell of the ships
+     * takes a shot, and unless some cell holds a ship in every configuration
+     * the next shot may miss
+     */
+    private double least(int[] set, long shot) {
+        if (set.length == 1)
+            return Long.bitCount(occupancy[set[0]] & ~shot);
+        int[] counts = new int[MAX_CELLS];
+        int[] order = candidates(set, shot, counts);
+        long total = 0;
+        for (int cell : order)
+            total += counts[cell];
+        return (double) (total + set.length - counts[order[0]]) / set.length;
+    }
+
+    /**
+     * @param cutoff the value above which only a bound is needed
+     * @return the expected shots to sink every ship, playing the best shots,
+     * if less than the cutoff; otherwise a bound on them no less than it
+     */
+    private double expected(int[] set, long shot, long hit, long sunk, long key, double cutoff) {
+        if (set.length == 1)
+            return Long.bitCount(occupancy[set[0]] & ~shot);
+        double known = Double.longBitsToDouble(table.probe(key, MISSING));
+        if (known > 0 || known < 0 && -known >= cutoff)
+            return Math.abs(known);
+        // past the budget every answer is meaningless, and the search winds down
+        if (searched.incrementAndGet() > searchNodes)
+            return Double.POSITIVE_INFINITY;
+        int[] counts = new int[MAX_CELLS];
+        int[] order = candidates(set, shot, counts);
+        long cells = 0;
+        for (int cell : order)
+            cells += counts[cell];
+        double best = Double.POSITIVE_INFINITY;
+        for (int cell : order) {
+            double least = 1 + (double) (cells - counts[cell]) / set.length;
+            if (least >= Math.min(best, cutoff)) {
+                best = Math.min(best, least);
+                break;
+            }
+            best = Math.min(best, value(set, shot, hit, sunk, key, cell, Math.min(best, cutoff)));
+        }
+        // bounds are kept negated, as every set of several configurations takes a shot at least
+        if (searched.get() <= searchNodes)
+            table.store(key, Double.doubleToLongBits(best < cutoff ? best : -best), set.length);
+        return best;
+    }
+
+    /**
+     * @param cutoff the value above which only a bound is needed
+     * @return the expected shots to sink every ship when firing at a cell and
+     * playing the best shots after it, if less than the cutoff; otherwise a
+     * bound on them no less than it
+     */
+    private double value(int[] set, long shot, long hit, long sunk, long key, int bit, double cutoff) {
+        long cell = 1L << bit;
+        long nowShot = shot | cell;
+        long missKey = key ^ Zobrist.shot(openCells[bit]);
+        long hitKey = missKey ^ Zobrist.hit(openCells[bit]);
+        // the part of each configuration: a miss, a hit, or the sinking of one of the ships listed
+        int[] partOf = new int[set.length];
+        long[] sunkShips = new long[4];
+        int parts = 2;
+        int[] sizes = new int[set.length + 2];
+        for (int i = 0; i < set.length; i++) {
+            int c = set[i];
+            if ((occupancy[c] & cell) != 0) {
+                long ship = 0;
+                for (int s = c * shipsAfloat; ship == 0; s++)
+                    if ((shipCells[s] & cell) != 0)
+                        ship = shipCells[s];
+                partOf[i] = 1;
+                if ((ship & ~nowShot) == 0) {
+                    partOf[i] = 2;
+                    while (partOf[i] < parts && sunkShips[partOf[i] - 2] != ship)
+                        partOf[i]++;
+                    if (partOf[i] == parts) {
+                        if (parts - 2 == sunkShips.length)
+                            sunkShips = Arrays.copyOf(sunkShips, 2 * sunkShips.length);
+                        sunkShips[parts++ - 2] = ship;
+                    }
+                }
+            }
+            sizes[partOf[i]]++;
+        }
+        int[][] split = new int[parts][];
+        for (int part = 0; part < parts; part++)
+            split[part] = new int[sizes[part]];
+        Arrays.fill(sizes, 0);
+        for (int i = 0; i < set.length; i++)
+            split[partOf[i]][sizes[partOf[i]]++] = set[i];
+
+        // start from what each part needs at least, and search the parts while the total can beat the cutoff
+        double[] least = new double[parts];
+        double total = 1;
+        for (int part = 0; part < parts; part++)
+            if (split[part].length > 0) {
+                least[part] = least(split[part], nowShot);
+                total += least[part] * split[part].length / set.length;
+            }
+        for (int part = 0; part < parts && total < cutoff; part++) {
+            if (split[part].length < 2)
+                continue;
+            double weight = (double) split[part].length / set.length;
+            long partKey = part == 0 ? missKey : hitKey;
+            if (part >= 2)
+                for (long ship = sunkShips[part - 2]; ship != 0; ship &= ship - 1)
+                    partKey ^= Zobrist.sunkCell(openCells[Long.numberOfTrailingZeros(ship)]);
+            double exact = expected(split[part], nowShot, part == 0 ? hit : hit | cell,
+                    part < 2 ? sunk : sunk | sunkShips[part - 2], partKey, least[part] + (cutoff - total) / weight);
+            total += (exact - least[part]) * weight;
+        }
+        return total;
+    }
+
+    /**
+     * Weighs the first shots of a range of candidates, skipping those that
+     * cannot beat the best found so far
+     */
+    private final class FirstShots extends RecursiveAction {
+        private final int[] set;
+        private final int[] order;
+        private final int[] counts;
+        private final double[] values;
+        private final AtomicLong best;
+        private final int from;
+        private final int to;
+
+        FirstShots(int[] set, int[] order, int[] counts, double[] values, AtomicLong best, int from, int to) {
+            this.set = set;
+            this.order = order;
+            this.counts = counts;
+            this.values = values;
+            this.best = best;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                FirstShots left = new FirstShots(set, order, counts, values, best, from, middle);
+                left.fork();
+                new FirstShots(set, order, counts, values, best, middle, to).compute();
+                left.join();
+                return;
+            }
+            // a cutoff just past the best keeps ties exact, so the first of them wins whatever the timing
+            double cutoff = Double.longBitsToDouble(best.get()) + TIE;
+            long cells = 0;
+            for (int cell : order)
+                cells += counts[cell];
+            double bound = 1 + (double) (cells - counts[order[from]]) / set.length;
+            if (bound >= cutoff) {
+                values[from] = bound;
+                return;
+            }
+            double value = value(set, hits, hits, 0, rootKey, order[from], cutoff);
+            values[from] = value;
+            long current;
+            while (value < Double.longBitsToDouble(current = best.get())
+                    && !best.compareAndSet(current, Double.doubleToLongBits(value)))
+                ;
+        }
+    }
+}
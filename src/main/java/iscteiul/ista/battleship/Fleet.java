@@ -19,10 +19,61 @@ public class Fleet implements IFleet {
 
     // -----------------------------------------------------
 
+    private final BoardConfig config;
+    private final CellCodec codec;
+
     private List<IShip> ships;
 
+    /**
+     * For every cell of the board, the index of the ship lying on it plus one
+     * (zero means water). Filled in as ships are added.
+     */
+    private CellMap shipByCell;
+
+    /**
+     * The cells where no new ship may lie: the cells of every {@link Ship} of
+     * the fleet plus their 8-neighbour halo.
+     */
+    private CellSet forbidden;
+
+    /**
+     * Ships of other {@link IShip} implementations, whose own notion of being
+     * too close cannot be folded into the forbidden mask.
+     */
+    private List<IShip> customShips;
+
+    /**
+     * Number of floating ships among those that report their own sinking, and
+     * the other ships, whose state has to be asked for
+     */
+    private int floatingCount;
+    private List<IShip> polledShips;
+
     public Fleet() {
+        this(BoardConfig.STANDARD);
+    }
+
+    /**
+     * @param config the board and rules of the fleet
+     */
+    public Fleet(BoardConfig config) {
+        this.config = config;
+        this.codec = config.getCodec();
         ships = new ArrayList<>();
+        shipByCell = config.newCellMap();
+        forbidden = config.newCellSet();
+        customShips = new ArrayList<>();
+        polledShips = new ArrayList<>();
+    }
+
+    @Override
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    @Override
+    public CellCodec getCodec() {
+        return codec;
     }
 
     @Override
@@ -38,13 +89,80 @@ public class Fleet implements IFleet {
     @Override
     public boolean addShip(IShip s) {
         boolean result = false;
-        if ((ships.size() <= FLEET_SIZE) && (isInsideBoard(s)) && (!colisionRisk(s))) {
+        if ((ships.size() < config.getFleetSize()) && (isInsideBoard(s)) && (!colisionRisk(s))) {
             ships.add(s);
+            indexCells(s, ships.size());
+            if (s instanceof Ship)
+                forbidCells(s);
+            else
+                customShips.add(s);
+            trackFloating(s);
             result = true;
         }
         return result;
     }
 
+    /**
+     * Records the given ship as the occupant of each of its cells. A cell that
+     * already belongs to an earlier ship keeps it, as a linear search would.
+     *
+     * @param s  The ship that has just been added
+     * @param id The index of the ship plus one
+     */
+    private void indexCells(IShip s, int id) {
+        for (int i = 0; i < Ship.cellCount(s); i++) {
+            int row = Ship.cellRow(s, i);
+            int column = Ship.cellColumn(s, i);
+            if (isInsideBoard(row, column) && shipByCell.get(codec.encode(row, column)) == 0)
+                shipByCell.put(codec.encode(row, column), id);
+        }
+    }
+
+    private void trackFloating(IShip s) {
+        // a ship already reporting to another fleet is polled here instead
+        if (s instanceof Ship && ((Ship) s).getShape() != null && ((Ship) s).joinFleet(this)) {
+            if (s.stillFloating())
+                floatingCount++;
+        } else {
+            polledShips.add(s);
+        }
+    }
+
+    /**
+     * Called by a ship of this fleet when its last cell is hit
+     */
+    void shipSunk() {
+        floatingCount--;
+    }
+
+    /**
+     * Called by a ship of this fleet when the hit that sank it is taken back
+     */
+    void shipRefloated() {
+        floatingCount++;
+    }
+
+    /**
+     * Adds the cells of the given ship and their halo to the forbidden mask
+     *
+     * @param s The ship that has just been added
+     */
+    private void forbidCells(IShip s) {
+        for (int i = 0; i < Ship.cellCount(s); i++)
+            for (int r = Ship.cellRow(s, i) - 1; r <= Ship.cellRow(s, i) + 1; r++)
+                for (int c = Ship.cellColumn(s, i) - 1; c <= Ship.cellColumn(s, i) + 1; c++)
+                    if (isInsideBoard(r, c))
+                        forbidden.add(codec.encode(r, c));
+    }
+
+    private boolean isForbidden(int row, int column) {
+        return forbidden.contains(codec.encode(row, column));
+    }
+
+    private boolean isInsideBoard(int row, int column) {
+        return codec.isInside(row, column);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -75,6 +193,20 @@ public class Fleet implements IFleet {
         return floatingShips;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#countFloatingShips()
+     */
+    @Override
+    public int countFloatingShips() {
+        int count = floatingCount;
+        for (int i = 0; i < polledShips.size(); i++)
+            if (polledShips.get(i).stillFloating())
+                count++;
+        return count;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -82,20 +214,57 @@ public class Fleet implements IFleet {
      */
     @Override
     public IShip shipAt(IPosition pos) {
+        return shipAt(pos.getRow(), pos.getColumn());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IFleet#shipAt(int)
+     */
+    @Override
+    public IShip shipAt(int cell) {
+        return shipAt(codec.row(cell), codec.column(cell));
+    }
+
+    private IShip shipAt(int row, int column) {
+        if (isInsideBoard(row, column)) {
+            int id = shipByCell.get(codec.encode(row, column));
+            return id == 0 ? null : ships.get(id - 1);
+        }
+        // only a ship that misreports its bounds can lie outside the board
         for (int i = 0; i < ships.size(); i++)
-            if (ships.get(i).occupies(pos))
+            if (ships.get(i).occupies(row, column))
                 return ships.get(i);
         return null;
     }
 
     private boolean isInsideBoard(IShip s) {
-        return (s.getLeftMostPos() >= 0 && s.getRightMostPos() <= BOARD_SIZE - 1 && s.getTopMostPos() >= 0
-                && s.getBottomMostPos() <= BOARD_SIZE - 1);
+        return (s.getLeftMostPos() >= 0 && s.getRightMostPos() <= config.getColumns() - 1 && s.getTopMostPos() >= 0
+                && s.getBottomMostPos() <= config.getRows() - 1);
     }
 
     private boolean colisionRisk(IShip s) {
+        for (int i = 0; i < customShips.size(); i++) {
+            if (customShips.get(i).tooCloseTo(s))
+                return true;
+        }
+        for (int i = 0; i < Ship.cellCount(s); i++) {
+            int row = Ship.cellRow(s, i);
+            int column = Ship.cellColumn(s, i);
+            if (isInsideBoard(row, column) ? isForbidden(row, column) : tooCloseToShips(new Position(row, column)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * The forbidden mask only covers the board, so a cell outside it (which
+     * only a ship misreporting its bounds can have) is checked ship by ship.
+     */
+    private boolean tooCloseToShips(IPosition p) {
         for (int i = 0; i < ships.size(); i++) {
-            if (ships.get(i).tooCloseTo(s))
+            if (ships.get(i) instanceof Ship && ships.get(i).tooCloseTo(p))
                 return true;
         }
         return false;
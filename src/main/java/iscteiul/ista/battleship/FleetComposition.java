@@ -0,0 +1,92 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * How many ships of each {@link ShipKind} a fleet is made of
+ */
+public final class FleetComposition {
+    /**
+     * The classic fleet: a galleon, a frigate, two carracks, three caravels
+     * and four barges, as many ships as {@link Fleet#addShip(IShip)} accepts
+     */
+    public static final FleetComposition STANDARD = new FleetComposition(4, 3, 2, 1, 1);
+
+    private final int[] counts;
+
+    /**
+     * @param barges    number of barges
+     * @param caravels  number of caravels
+     * @param carracks  number of carracks
+     * @param frigates  number of frigates
+     * @param galleons  number of galleons
+     */
+    public FleetComposition(int barges, int caravels, int carracks, int frigates, int galleons) {
+        counts = new int[]{barges, caravels, carracks, frigates, galleons};
+        for (int count : counts)
+            if (count < 0)
+                throw new IllegalArgumentException("ERROR! invalid fleet composition " + Arrays.toString(counts));
+    }
+
+    /**
+     * @param kind a kind of ship
+     * @return the number of ships of that kind
+     */
+    public int getCount(ShipKind kind) {
+        return counts[kind.ordinal()];
+    }
+
+    /**
+     * @return the number of ships of the fleet
+     */
+    public int size() {
+        int size = 0;
+        for (int count : counts)
+            size += count;
+        return size;
+    }
+
+    /**
+     * @return the number of cells the ships of the fleet take
+     */
+    public int cells() {
+        int cells = 0;
+        for (ShipKind kind : ShipKind.values())
+            cells += getCount(kind) * kind.getSize();
+        return cells;
+    }
+
+    /**
+     * @return the kind of each ship of the fleet, largest ships first
+     */
+    public ShipKind[] getShips() {
+        ShipKind[] ships = new ShipKind[size()];
+        int i = 0;
+        for (int k = ShipKind.values().length - 1; k >= 0; k--)
+            for (int n = 0; n < counts[k]; n++)
+                ships[i++] = ShipKind.values()[k];
+        return ships;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof FleetComposition && Arrays.equals(counts, ((FleetComposition) other).counts);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(counts);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (ShipKind kind : ShipKind.values())
+            if (getCount(kind) > 0)
+                text.append(text.length() == 0 ? "" : ", ").append(getCount(kind)).append(' ').append(kind.getCategory());
+        return text.toString();
+    }
+}
@@ -0,0 +1,298 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the distinct legal fleets of a composition on a board, under the
+ * rule of {@link Fleet#addShip(IShip)}: ships lie on the board and do not
+ * touch, not even diagonally. Two fleets are the same when their ships of
+ * each kind cover the same cells.
+ *
+ * The board is walked cell by cell in row-major order, and at each cell
+ * either no ship starts or a ship whose first cell it is. A ship only blocks
+ * cells up to a few rows ahead, so all that the ships placed so far tell
+ * about the rest of the board fits in a mask of the next 64 cells. For each
+ * such mask the walk keeps how many ways there are to reach it with each
+ * number of ships of each kind placed, and forgets the cells behind it. The
+ * board is turned on its side when it is wider than tall, so boards up to 12
+ * cells across can be counted, however long they are.
+ *
+ * The masks reached at each cell are split across a fork/join pool.
+ */
+public class FleetCounter {
+    /**
+     * Cells after the current one whose state is kept while walking the board
+     */
+    static final int WINDOW = 64;
+
+    /**
+     * Masks of a cell advanced by a task without splitting it further
+     */
+    static final int MASKS_PER_TASK = 256;
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    private final BoardConfig config;
+    private final FleetComposition composition;
+    private final int rows;
+    private final int columns;
+    private final Footprint[] footprints;
+    /**
+     * The ships placed so far are kept as a mixed-radix index, where a ship
+     * of a kind adds the stride of the kind
+     */
+    private final int[] strides;
+    private final int combinations;
+    /**
+     * Per kind and index of ships placed, whether another ship of the kind
+     * is still to place
+     */
+    private final boolean[][] room;
+
+    /**
+     * @param config      the board of the fleets
+     * @param composition the ships of each fleet
+     * @throws IllegalArgumentException if the board is too wide to count
+     */
+    public FleetCounter(BoardConfig config, FleetComposition composition) {
+        if (!canCount(config))
+            throw new IllegalArgumentException("ERROR! cannot count fleets on a " + config.getCodec() + " board");
+        this.config = config;
+        this.composition = composition;
+        boolean transposed = config.getColumns() > config.getRows();
+        this.rows = transposed ? config.getColumns() : config.getRows();
+        this.columns = transposed ? config.getRows() : config.getColumns();
+
+        strides = new int[ShipKind.values().length];
+        long product = 1;
+        List<Footprint> distinct = new ArrayList<>();
+        for (ShipKind kind : ShipKind.values()) {
+            strides[kind.ordinal()] = (int) product;
+            product *= composition.getCount(kind) + 1;
+            if (product > 1 << 20)
+                throw new IllegalArgumentException("ERROR! cannot count fleets of " + composition);
+            if (composition.getCount(kind) == 0)
+                continue;
+            List<ShipShape> shapes = new ArrayList<>();
+            for (Compass bearing : BEARINGS) {
+                ShipShape shape = ShipShape.of(kind, bearing);
+                boolean seen = false;
+                for (ShipShape other : shapes)
+                    seen |= FleetGenerator.sameFootprint(shape, other);
+                if (!seen) {
+                    shapes.add(shape);
+                    distinct.add(new Footprint(shape, transposed));
+                }
+            }
+        }
+        combinations = (int) product;
+        footprints = distinct.toArray(new Footprint[0]);
+        room = new boolean[ShipKind.values().length][combinations];
+        for (ShipKind kind : ShipKind.values()) {
+            int count = composition.getCount(kind);
+            for (int i = 0; i < combinations; i++)
+                room[kind.ordinal()][i] = i / strides[kind.ordinal()] % (count + 1) < count;
+        }
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    public FleetComposition getComposition() {
+        return composition;
+    }
+
+    /**
+     * @param config a board
+     * @return true if the board is narrow enough to be counted
+     */
+    public static boolean canCount(BoardConfig config) {
+        int columns = Math.min(config.getRows(), config.getColumns());
+        // a frigate reaches 3 rows below its first cell, and its halo one more
+        return 5 * columns + 1 < WINDOW;
+    }
+
+    /**
+     * Counts on the common fork/join pool
+     *
+     * @return the number of distinct legal fleets
+     * @throws ArithmeticException if the count does not fit a long
+     */
+    public long count() {
+        return count(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool to count on
+     * @return the number of distinct legal fleets
+     * @throws ArithmeticException if the count does not fit a long
+     */
+    public long count(ForkJoinPool pool) {
+        Map<Long, long[]> layer = new HashMap<>();
+        long[] start = new long[combinations];
+        start[0] = 1;
+        layer.put(0L, start);
+        for (int cell = 0; cell < rows * columns; cell++) {
+            List<Map.Entry<Long, long[]>> masks = new ArrayList<>(layer.entrySet());
+            layer = pool.invoke(new Advance(cell, masks, 0, masks.size()));
+        }
+        long total = 0;
+        for (long[] ways : layer.values())
+            total = Math.addExact(total, ways[combinations - 1]);
+        return total;
+    }
+
+    /**
+     * Moves the ways of reaching a mask at a cell on to the next cell
+     */
+    private void advance(int cell, long mask, long[] ways, Map<Long, long[]> next) {
+        long[] skipped = next.computeIfAbsent(beyond(cell, mask), key -> new long[combinations]);
+        for (int i = 0; i < combinations; i++)
+            skipped[i] = Math.addExact(skipped[i], ways[i]);
+        if ((mask & 1) != 0)
+            return;
+
+        int row = cell / columns;
+        int column = cell % columns;
+        for (Footprint footprint : footprints) {
+            if (!footprint.fits(row, column, mask))
+                continue;
+            int stride = strides[footprint.kind.ordinal()];
+            boolean[] more = room[footprint.kind.ordinal()];
+            long[] placed = null;
+            for (int i = 0; i < combinations; i++) {
+                if (ways[i] == 0 || !more[i])
+                    continue;
+                if (placed == null)
+                    placed = next.computeIfAbsent(beyond(cell, mask | footprint.halos[column]),
+                            key -> new long[combinations]);
+                placed[i + stride] = Math.addExact(placed[i + stride], ways[i]);
+            }
+        }
+    }
+
+    /**
+     * @return the mask of the cell after the given one, without the cells
+     * past the end of the board, so that masks differing only there merge
+     */
+    private long beyond(int cell, long mask) {
+        int ahead = rows * columns - cell - 1;
+        return ahead < WINDOW ? mask >>> 1 & (1L << ahead) - 1 : mask >>> 1;
+    }
+
+    /**
+     * A footprint of a kind of ship, as offsets from its first cell in
+     * row-major order
+     */
+    private final class Footprint {
+        private final ShipKind kind;
+        private final long cells;
+        private final int height;
+        /**
+         * Per column of the first cell, whether the footprint stays on the
+         * board across
+         */
+        private final boolean[] fitsAcross;
+        /**
+         * Per column of the first cell, the cells after it that the footprint
+         * and its halo block
+         */
+        private final long[] halos;
+
+        Footprint(ShipShape shape, boolean transposed) {
+            this.kind = shape.getKind();
+            int size = shape.getSize();
+            int[] rowOffsets = new int[size];
+            int[] columnOffsets = new int[size];
+            int firstRow = Integer.MAX_VALUE;
+            int firstColumn = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                rowOffsets[i] = transposed ? shape.getColumnOffset(i) : shape.getRowOffset(i);
+                columnOffsets[i] = transposed ? shape.getRowOffset(i) : shape.getColumnOffset(i);
+                if (rowOffsets[i] < firstRow || rowOffsets[i] == firstRow && columnOffsets[i] < firstColumn) {
+                    firstRow = rowOffsets[i];
+                    firstColumn = columnOffsets[i];
+                }
+            }
+
+            long bits = 0;
+            int bottom = 0;
+            for (int i = 0; i < size; i++) {
+                rowOffsets[i] -= firstRow;
+                columnOffsets[i] -= firstColumn;
+                bits |= 1L << (rowOffsets[i] * columns + columnOffsets[i]);
+                bottom = Math.max(bottom, rowOffsets[i]);
+            }
+            cells = bits;
+            height = bottom + 1;
+
+            fitsAcross = new boolean[columns];
+            halos = new long[columns];
+            for (int column = 0; column < columns; column++) {
+                boolean inside = true;
+                long halo = 0;
+                for (int i = 0; i < size; i++) {
+                    inside &= column + columnOffsets[i] >= 0 && column + columnOffsets[i] < columns;
+                    for (int r = rowOffsets[i] - 1; r <= rowOffsets[i] + 1; r++)
+                        for (int c = columnOffsets[i] - 1; c <= columnOffsets[i] + 1; c++)
+                            if (r * columns + c > 0 && column + c >= 0 && column + c < columns)
+                                halo |= 1L << (r * columns + c);
+                }
+                fitsAcross[column] = inside;
+                halos[column] = halo;
+            }
+        }
+
+        /**
+         * @return true if the footprint starting at the cell lies on the board
+         * clear of the blocked cells
+         */
+        boolean fits(int row, int column, long mask) {
+            return fitsAcross[column] && row + height <= rows && (mask & cells) == 0;
+        }
+    }
+
+    private final class Advance extends RecursiveTask<Map<Long, long[]>> {
+        private final int cell;
+        private final List<Map.Entry<Long, long[]>> masks;
+        private final int from;
+        private final int to;
+
+        Advance(int cell, List<Map.Entry<Long, long[]>> masks, int from, int to) {
+            this.cell = cell;
+            this.masks = masks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Map<Long, long[]> compute() {
+            if (to - from <= MASKS_PER_TASK) {
+                Map<Long, long[]> next = new HashMap<>();
+                for (int i = from; i < to; i++)
+                    advance(cell, masks.get(i).getKey(), masks.get(i).getValue(), next);
+                return next;
+            }
+            int middle = (from + to) >>> 1;
+            Advance left = new Advance(cell, masks, from, middle);
+            left.fork();
+            Map<Long, long[]> next = new Advance(cell, masks, middle, to).compute();
+            for (Map.Entry<Long, long[]> entry : left.join().entrySet()) {
+                long[] known = next.putIfAbsent(entry.getKey(), entry.getValue());
+                if (known != null)
+                    for (int i = 0; i < known.length; i++)
+                        known[i] = Math.addExact(known[i], entry.getValue()[i]);
+            }
+            return next;
+        }
+    }
+}
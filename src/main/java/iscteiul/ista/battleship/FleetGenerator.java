@@ -0,0 +1,412 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Lays out random legal fleets, largest ships first.
+ *
+ * A ship of a kind can lie on the board in a number of placements: a distinct
+ * footprint (a caravel facing north covers the same cells as one facing south,
+ * so they count once) and an anchor keeping it on the board. By default each
+ * ship is drawn among the placements still free: on boards up to
+ * {@link #MASK_CELLS} cells the free anchors of every footprint are found at
+ * once by intersecting shifted copies of the free-cell mask, so no attempt is
+ * ever wasted on a collision; on larger boards, which are mostly empty, a
+ * placement is drawn and tried again if it collides.
+ *
+ * In uniform mode every ship is drawn among all its placements and the fleet
+ * is started over on the first collision. Every legal fleet is then exactly
+ * as likely as any other, at the cost of many more attempts.
+ *
+ * A generator holds no state of its own and can be shared between threads.
+ */
+public class FleetGenerator {
+    /**
+     * Fleets started over before giving up
+     */
+    static final int MAX_ATTEMPTS = 1_000;
+
+    /**
+     * Fleets started over before giving up in uniform mode, where most
+     * attempts collide
+     */
+    static final int MAX_UNIFORM_ATTEMPTS = 1 << 26;
+
+    /**
+     * Largest board whose free cells are kept as a bit mask
+     */
+    static final int MASK_CELLS = 1 << 16;
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    private final BoardConfig config;
+    private final FleetComposition composition;
+    private final boolean uniform;
+    private final ShipKind[] kinds;
+    private final Placements[] placements;
+    private final int words;
+    private final long[] board;
+
+    /**
+     * @param config      the board and rules of the fleets
+     * @param composition the ships of each fleet
+     */
+    public FleetGenerator(BoardConfig config, FleetComposition composition) {
+        this(config, composition, false);
+    }
+
+    /**
+     * @param config      the board and rules of the fleets
+     * @param composition the ships of each fleet
+     * @param uniform     true to draw every legal fleet with the same
+     *                    probability
+     */
+    public FleetGenerator(BoardConfig config, FleetComposition composition, boolean uniform) {
+        if (composition.size() > config.getFleetSize())
+            throw new IllegalArgumentException("ERROR! " + composition + " is more than a fleet of "
+                    + config.getFleetSize());
+        this.config = config;
+        this.composition = composition;
+        this.uniform = uniform;
+        this.kinds = composition.getShips();
+        this.placements = new Placements[ShipKind.values().length];
+        for (ShipKind kind : ShipKind.values())
+            placements[kind.ordinal()] = new Placements(kind);
+
+        if (config.getCells() <= MASK_CELLS) {
+            words = (config.getCells() + 63) >>> 6;
+            board = new long[words];
+            for (int cell = 0; cell < config.getCells(); cell++)
+                board[cell >>> 6] |= 1L << cell;
+        } else {
+            words = 0;
+            board = null;
+        }
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    public FleetComposition getComposition() {
+        return composition;
+    }
+
+    /**
+     * @return true if every legal fleet is drawn with the same probability
+     */
+    public boolean isUniform() {
+        return uniform;
+    }
+
+    /**
+     * @param kind a kind of ship
+     * @return the number of distinct placements of a ship of that kind on an
+     * empty board
+     */
+    public long countPlacements(ShipKind kind) {
+        return placements[kind.ordinal()].total;
+    }
+
+    /**
+     * @param random the source of randomness
+     * @return a new fleet with every ship of the composition
+     * @throws IllegalStateException if the ships do not seem to fit the board
+     */
+    public Fleet generate(Random random) {
+        int attempts = uniform ? MAX_UNIFORM_ATTEMPTS : MAX_ATTEMPTS;
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            Fleet fleet = uniform ? drawUniform(random) : board != null ? drawFromMask(random) : drawAndRetry(random);
+            if (fleet != null)
+                return fleet;
+        }
+        throw new IllegalStateException("ERROR! could not lay out " + composition + " on a " + config.getCodec()
+                + " board");
+    }
+
+    /**
+     * Draws every ship among all its placements, giving up on the first
+     * collision. Every ordering of the ships of a legal fleet is then drawn
+     * with the same probability, and each legal fleet has as many orderings
+     * as any other.
+     *
+     * @return the fleet, or null if a ship collided
+     */
+    private Fleet drawUniform(Random random) {
+        if (board == null) {
+            Fleet fleet = new Fleet(config);
+            for (ShipKind kind : kinds) {
+                Placements p = placements[kind.ordinal()];
+                if (p.total == 0 || !fleet.addShip(p.build(nextLong(random, p.total))))
+                    return null;
+            }
+            return fleet;
+        }
+
+        // most attempts collide, so check them on the mask and only build the fleet at the end
+        long[] free = board.clone();
+        int[] shapes = new int[kinds.length];
+        int[] anchors = new int[kinds.length];
+        for (int k = 0; k < kinds.length; k++) {
+            Placements p = placements[kinds[k].ordinal()];
+            if (p.total == 0)
+                return null;
+            long index = nextLong(random, p.total);
+            int s = 0;
+            while (index >= p.counts[s])
+                index -= p.counts[s++];
+            int anchor = p.anchor(s, index);
+            if (!p.fits(s, anchor, free))
+                return null;
+            p.occupy(s, anchor, free);
+            shapes[k] = s;
+            anchors[k] = anchor;
+        }
+        Fleet fleet = new Fleet(config);
+        for (int k = 0; k < kinds.length; k++) {
+            boolean added = fleet.addShip(placements[kinds[k].ordinal()].build(shapes[k], anchors[k]));
+            assert added;
+        }
+        return fleet;
+    }
+
+    /**
+     * Draws each ship among the placements that do not collide with the
+     * previous ones, finding them all with a few word operations per cell of
+     * the ship
+     *
+     * @return the fleet, or null if a ship had no room left
+     */
+    private Fleet drawFromMask(Random random) {
+        long[] free = board.clone();
+        long[] candidates = new long[words * 4];
+        Fleet fleet = new Fleet(config);
+        for (ShipKind kind : kinds) {
+            Placements p = placements[kind.ordinal()];
+            int total = 0;
+            for (int s = 0; s < p.shapes.length; s++)
+                total += p.freeAnchors(s, free, candidates, s * words);
+            if (total == 0)
+                return null;
+
+            int r = random.nextInt(total);
+            int s = 0;
+            int w = 0;
+            while (r >= Long.bitCount(candidates[s * words + w])) {
+                r -= Long.bitCount(candidates[s * words + w]);
+                if (++w == words) {
+                    w = 0;
+                    s++;
+                }
+            }
+            long word = candidates[s * words + w];
+            for (; r > 0; r--)
+                word &= word - 1;
+            int anchor = (w << 6) + Long.numberOfTrailingZeros(word);
+
+            boolean added = fleet.addShip(p.build(s, anchor));
+            assert added;
+            p.occupy(s, anchor, free);
+        }
+        return fleet;
+    }
+
+    /**
+     * Draws placements for each ship until one fits, for boards too large for
+     * a mask, where collisions are rare
+     *
+     * @return the fleet, or null if a ship found no room
+     */
+    private Fleet drawAndRetry(Random random) {
+        Fleet fleet = new Fleet(config);
+        for (ShipKind kind : kinds) {
+            Placements p = placements[kind.ordinal()];
+            boolean placed = false;
+            for (int attempt = 0; attempt < MAX_ATTEMPTS && !placed && p.total > 0; attempt++)
+                placed = fleet.addShip(p.build(nextLong(random, p.total)));
+            if (!placed)
+                return null;
+        }
+        return fleet;
+    }
+
+    /**
+     * @return a number drawn uniformly between 0 (inclusive) and bound
+     */
+    static long nextLong(Random random, long bound) {
+        if (bound <= Integer.MAX_VALUE)
+            return random.nextInt((int) bound);
+        long bits;
+        long value;
+        do {
+            bits = random.nextLong() >>> 1;
+            value = bits % bound;
+        } while (bits - value + (bound - 1) < 0);
+        return value;
+    }
+
+    /**
+     * The distinct footprints of a kind of ship and the anchors that keep each
+     * on the board
+     */
+    private final class Placements {
+        private final ShipKind kind;
+        private final ShipShape[] shapes;
+        private final long[] counts;
+        private final long total;
+        /**
+         * Per footprint, the anchors keeping it on the board, as a mask
+         */
+        private final long[][] domains;
+
+        Placements(ShipKind kind) {
+            this.kind = kind;
+            List<ShipShape> distinct = new ArrayList<>();
+            for (Compass bearing : BEARINGS) {
+                ShipShape shape = ShipShape.of(kind, bearing);
+                boolean seen = false;
+                for (ShipShape other : distinct)
+                    seen |= sameFootprint(shape, other);
+                if (!seen)
+                    distinct.add(shape);
+            }
+            shapes = distinct.toArray(new ShipShape[0]);
+
+            counts = new long[shapes.length];
+            long sum = 0;
+            for (int s = 0; s < shapes.length; s++) {
+                counts[s] = (long) Math.max(0, config.getRows() - shapes[s].getHeight() + 1)
+                        * Math.max(0, config.getColumns() - shapes[s].getWidth() + 1);
+                sum += counts[s];
+            }
+            total = sum;
+
+            if (config.getCells() <= MASK_CELLS) {
+                int n = (config.getCells() + 63) >>> 6;
+                domains = new long[shapes.length][n];
+                for (int s = 0; s < shapes.length; s++)
+                    for (int row = -shapes[s].getMinRow(); row < config.getRows() - shapes[s].getMaxRow(); row++)
+                        for (int column = -shapes[s].getMinColumn();
+                             column < config.getColumns() - shapes[s].getMaxColumn(); column++) {
+                            int cell = config.getCodec().encode(row, column);
+                            domains[s][cell >>> 6] |= 1L << cell;
+                        }
+            } else {
+                domains = null;
+            }
+        }
+
+        /**
+         * @param index a number below {@link #total}
+         * @return the ship at that placement
+         */
+        IShip build(long index) {
+            int s = 0;
+            while (index >= counts[s])
+                index -= counts[s++];
+            return build(s, anchor(s, index));
+        }
+
+        /**
+         * @param s     a footprint
+         * @param index a number below the count of the footprint
+         * @return the anchor cell of that placement of the footprint
+         */
+        int anchor(int s, long index) {
+            int anchorColumns = config.getColumns() - shapes[s].getWidth() + 1;
+            int row = (int) (index / anchorColumns) - shapes[s].getMinRow();
+            int column = (int) (index % anchorColumns) - shapes[s].getMinColumn();
+            return config.getCodec().encode(row, column);
+        }
+
+        /**
+         * @return true if every cell of the footprint at the anchor is free
+         */
+        boolean fits(int s, int anchor, long[] free) {
+            for (int i = 0; i < shapes[s].getSize(); i++) {
+                int cell = anchor + shapes[s].getRowOffset(i) * config.getColumns() + shapes[s].getColumnOffset(i);
+                if ((free[cell >>> 6] & (1L << cell)) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Clears the cells of the footprint at the anchor and their halo from
+         * the free mask
+         */
+        void occupy(int s, int anchor, long[] free) {
+            CellCodec codec = config.getCodec();
+            int row = codec.row(anchor);
+            int column = codec.column(anchor);
+            for (int i = 0; i < shapes[s].getSize(); i++) {
+                int cellRow = row + shapes[s].getRowOffset(i);
+                int cellColumn = column + shapes[s].getColumnOffset(i);
+                for (int r = cellRow - 1; r <= cellRow + 1; r++)
+                    for (int c = cellColumn - 1; c <= cellColumn + 1; c++)
+                        if (codec.isInside(r, c))
+                            free[codec.encode(r, c) >>> 6] &= ~(1L << codec.encode(r, c));
+            }
+        }
+
+        IShip build(int shape, int anchor) {
+            return Ship.buildShip(kind.getKeyword(), shapes[shape].getBearing(), config.getCodec().decode(anchor));
+        }
+
+        /**
+         * Finds the anchors of a footprint whose cells are all free
+         *
+         * @param s      the footprint
+         * @param free   the free cells
+         * @param out    where to write the anchors, as a mask
+         * @param offset the index of the first word to write
+         * @return the number of anchors found
+         */
+        int freeAnchors(int s, long[] free, long[] out, int offset) {
+            ShipShape shape = shapes[s];
+            int count = 0;
+            for (int w = 0; w < words; w++) {
+                long word = domains[s][w];
+                for (int i = 0; i < shape.getSize() && word != 0; i++)
+                    word &= shifted(free, w, shape.getRowOffset(i) * config.getColumns() + shape.getColumnOffset(i));
+                out[offset + w] = word;
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+    }
+
+    /**
+     * @return the word w of the mask shifted so that bit a holds bit a + shift
+     */
+    private long shifted(long[] mask, int w, int shift) {
+        int from = (w << 6) + shift;
+        int word = from >> 6;
+        int bit = from & 63;
+        long low = word >= 0 && word < words ? mask[word] : 0;
+        if (bit == 0)
+            return low;
+        long high = word + 1 >= 0 && word + 1 < words ? mask[word + 1] : 0;
+        return (low >>> bit) | (high << (64 - bit));
+    }
+
+    static boolean sameFootprint(ShipShape a, ShipShape b) {
+        if (a.getSize() != b.getSize())
+            return false;
+        int[] cellsA = new int[a.getSize()];
+        int[] cellsB = new int[b.getSize()];
+        for (int i = 0; i < a.getSize(); i++) {
+            cellsA[i] = a.getRowOffset(i) * 1024 + a.getColumnOffset(i);
+            cellsB[i] = b.getRowOffset(i) * 1024 + b.getColumnOffset(i);
+        }
+        Arrays.sort(cellsA);
+        Arrays.sort(cellsB);
+        return Arrays.equals(cellsA, cellsB);
+    }
+}
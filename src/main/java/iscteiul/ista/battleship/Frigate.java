@@ -12,21 +12,11 @@ public class Frigate extends Ship {
      * @param pos
      */
     public Frigate(Compass bearing, IPosition pos) throws IllegalArgumentException {
-        super(Frigate.NAME, bearing, pos);
-        switch (bearing) {
-            case NORTH:
-            case SOUTH:
-                for (int r = 0; r < SIZE; r++)
-                    getPositions().add(new Position(pos.getRow() + r, pos.getColumn()));
-                break;
-            case EAST:
-            case WEST:
-                for (int c = 0; c < SIZE; c++)
-                    getPositions().add(new Position(pos.getRow(), pos.getColumn() + c));
-                break;
-            default:
-                throw new IllegalArgumentException("ERROR! invalid bearing for thr frigate");
-        }
+        super(Frigate.NAME, bearing, pos, ShipShape.of(ShipKind.FRIGATE, bearing));
+        if (bearing == null)
+            throw new NullPointerException("ERROR! invalid bearing for the frigate");
+        if (getShape() == null)
+            throw new IllegalArgumentException("ERROR! invalid bearing for thr frigate");
     }
 
     /*
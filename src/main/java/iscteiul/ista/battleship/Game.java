@@ -4,6 +4,7 @@
 package iscteiul.ista.battleship;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -11,20 +12,68 @@ import java.util.List;
  *
  */
 public class Game implements IGame {
+    private static final int INITIAL_SHOTS = 128;
+
+    private final BoardConfig config;
+    private final CellCodec codec;
+
     private IFleet fleet;
-    private List<IPosition> shots;
 
-    private Integer countInvalidShots;
-    private Integer countRepeatedShots;
-    private Integer countHits;
-    private Integer countSinks;
+    /**
+     * Cells of the valid shots in firing order, and the set of cells already
+     * shot at
+     */
+    private int[] shots;
+    private int shotCount;
+    private CellSet fired;
 
+    private int countInvalidShots;
+    private int countRepeatedShots;
+    private int countHits;
+    private int countSinks;
+    /**
+     * The {@link Zobrist} hash of the valid shots, hits and sinks so far, and
+     * the ships of each kind sunk
+     */
+    private long hash;
+    private final int[] sunkByKind = new int[ShipKind.values().length];
+
+    /**
+     * What each shot did, while undoable: its row, column and outcome, one
+     * entry of {@value #TRAIL_WORDS} ints per shot. The entries from
+     * trailSize up to trailEnd are the shots undone, kept to be redone.
+     */
+    private static final int TRAIL_WORDS = 3;
+    private static final int INVALID = 0;
+    private static final int REPEATED = 1;
+    private static final int MISS = 2;
+    private static final int HIT = 3;
+    private static final int SINK = 4;
+    private int[] trail;
+    private int trailSize;
+    private int trailEnd;
 
     /**
      * @param fleet
      */
     public Game(IFleet fleet) {
-        shots = new ArrayList<>();
+        this(fleet, fleet.getConfig());
+    }
+
+    /**
+     * @param fleet  the fleet under attack
+     * @param config the board and rules of the game, on the same board as the
+     *               fleet
+     */
+    public Game(IFleet fleet, BoardConfig config) {
+        if (!config.sameBoard(fleet.getConfig()))
+            throw new IllegalArgumentException("ERROR! the fleet is on a " + fleet.getCodec() + " board, not "
+                    + config.getCodec());
+        this.config = config;
+        this.codec = config.getCodec();
+        // grown on demand; a small board never needs to grow it
+        shots = new int[Math.min(config.getCells(), INITIAL_SHOTS)];
+        fired = config.newCellSet();
         countInvalidShots = 0;
         countRepeatedShots = 0;
         // hits and sinks
@@ -40,25 +89,163 @@ public class Game implements IGame {
      */
     @Override
     public IShip fire(IPosition pos) {
-        if (!validShot(pos))
+        return fire(pos.getRow(), pos.getColumn());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IGame#fire(int)
+     */
+    @Override
+    public IShip fire(int cell) {
+        return fire(codec.row(cell), codec.column(cell));
+    }
+
+    private IShip fire(int row, int column) {
+        // a new shot branches off, so the shots undone so far can no longer be redone
+        trailEnd = trailSize;
+        return play(row, column);
+    }
+
+    private IShip play(int row, int column) {
+        int outcome;
+        IShip sunk = null;
+        if (!validShot(row, column)) {
             this.countInvalidShots++;
-        else { // valid shot!
-            if (repeatedShot(pos))
+            outcome = INVALID;
+        } else { // valid shot!
+            int cell = codec.encode(row, column);
+            if (!fired.add(cell)) {
                 this.countRepeatedShots++;
-            else {
-                shots.add(pos);
-                IShip s = fleet.shipAt(pos);
+                outcome = REPEATED;
+            } else {
+                if (shotCount == shots.length)
+                    shots = Arrays.copyOf(shots, shotCount * 2);
+                shots[shotCount++] = cell;
+                hash ^= Zobrist.shot(cell);
+                outcome = MISS;
+                IShip s = fleet.shipAt(cell);
                 if (s != null) {
-                    s.shoot(pos);
+                    s.shoot(row, column);
                     this.countHits++;
+                    hash ^= Zobrist.hit(cell);
+                    outcome = HIT;
                     if (!s.stillFloating()) {
                         this.countSinks++;
-                        return s;
+                        ShipKind kind = ShipKind.fromCategory(s.getCategory());
+                        if (kind != null)
+                            hash ^= Zobrist.sunk(kind, sunkByKind[kind.ordinal()]++);
+                        outcome = SINK;
+                        sunk = s;
                     }
                 }
             }
         }
-        return null;
+        if (trail != null)
+            push(row, column, outcome);
+        return sunk;
+    }
+
+    private void push(int row, int column, int outcome) {
+        int entry = trailSize * TRAIL_WORDS;
+        if (entry == trail.length)
+            trail = Arrays.copyOf(trail, entry * 2);
+        trail[entry] = row;
+        trail[entry + 1] = column;
+        trail[entry + 2] = outcome;
+        trailSize++;
+        trailEnd = Math.max(trailEnd, trailSize);
+    }
+
+    /**
+     * Makes every later shot undoable, or stops recording them and forgets
+     * the ones recorded. The trail grows with the shots, and is then reused by
+     * shots undone and fired again without allocating.
+     *
+     * @param undoable whether to record the shots
+     */
+    public void setUndoable(boolean undoable) {
+        if (!undoable)
+            trail = null;
+        else if (trail == null)
+            trail = new int[TRAIL_WORDS * 64];
+        trailSize = 0;
+        trailEnd = 0;
+    }
+
+    /**
+     * @return true if the shots are recorded so they can be undone
+     */
+    public boolean isUndoable() {
+        return trail != null;
+    }
+
+    /**
+     * @return true if there is a recorded shot to undo
+     */
+    public boolean canUndo() {
+        return trailSize > 0;
+    }
+
+    /**
+     * @return true if there is an undone shot to fire again
+     */
+    public boolean canRedo() {
+        return trailSize < trailEnd;
+    }
+
+    /**
+     * Takes back the last recorded shot, restoring the ship it hit, the
+     * fleet, the shots, the counters and the hash as they were before it
+     *
+     * @throws IllegalStateException         if there is no shot to undo
+     * @throws UnsupportedOperationException if the ship hit cannot take the
+     *                                       shot back, leaving the game as
+     *                                       it was
+     */
+    public void undo() {
+        if (!canUndo())
+            throw new IllegalStateException("ERROR! there is no shot to undo");
+        int entry = (trailSize - 1) * TRAIL_WORDS;
+        int outcome = trail[entry + 2];
+        if (outcome == INVALID)
+            this.countInvalidShots--;
+        else if (outcome == REPEATED)
+            this.countRepeatedShots--;
+        else {
+            int cell = shots[shotCount - 1];
+            if (outcome != MISS) {
+                // the ship goes first, so a ship that cannot take a shot back leaves the game as it was
+                IShip s = fleet.shipAt(cell);
+                Ship.unshoot(s, trail[entry], trail[entry + 1]);
+                this.countHits--;
+                hash ^= Zobrist.hit(cell);
+                if (outcome == SINK) {
+                    this.countSinks--;
+                    ShipKind kind = ShipKind.fromCategory(s.getCategory());
+                    if (kind != null)
+                        hash ^= Zobrist.sunk(kind, --sunkByKind[kind.ordinal()]);
+                }
+            }
+            shotCount--;
+            fired.remove(cell);
+            hash ^= Zobrist.shot(cell);
+        }
+        trailSize--;
+    }
+
+    /**
+     * Fires again the last shot undone
+     *
+     * @return the ship sunk by the shot, or null
+     * @throws IllegalStateException if there is no shot to redo
+     */
+    public IShip redo() {
+        if (!canRedo())
+            throw new IllegalStateException("ERROR! there is no shot to redo");
+        int entry = trailSize * TRAIL_WORDS;
+        return play(trail[entry], trail[entry + 1]);
     }
 
     /*
@@ -68,7 +255,10 @@ public class Game implements IGame {
      */
     @Override
     public List<IPosition> getShots() {
-        return shots;
+        List<IPosition> list = new ArrayList<>(shotCount);
+        for (int i = 0; i < shotCount; i++)
+            list.add(codec.decode(shots[i]));
+        return list;
     }
 
     /*
@@ -118,39 +308,46 @@ public class Game implements IGame {
      */
     @Override
     public int getRemainingShips() {
-        List<IShip> floatingShips = fleet.getFloatingShips();
-        return floatingShips.size();
+        return fleet.countFloatingShips();
     }
 
-    private boolean validShot(IPosition pos) {
-        return (pos.getRow() >= 0 && pos.getRow() <= Fleet.BOARD_SIZE && pos.getColumn() >= 0
-                && pos.getColumn() <= Fleet.BOARD_SIZE);
+    /**
+     * @return the {@link Zobrist} hash of the cells fired at, the cells hit
+     * and the kinds of the ships sunk, equal for games that revealed the same
+     */
+    public long getHash() {
+        return hash;
     }
 
-    private boolean repeatedShot(IPosition pos) {
-        for (int i = 0; i < shots.size(); i++)
-            if (shots.get(i).equals(pos))
-                return true;
-        return false;
+    private boolean validShot(int row, int column) {
+        return config.isInside(row, column);
     }
 
 
     public void printBoard(List<IPosition> positions, Character marker) {
-        char[][] map = new char[Fleet.BOARD_SIZE][Fleet.BOARD_SIZE];
-
-        for (int r = 0; r < Fleet.BOARD_SIZE; r++)
-            for (int c = 0; c < Fleet.BOARD_SIZE; c++)
-                map[r][c] = '.';
-
+        CellSet cells = config.newCellSet();
         for (IPosition pos : positions)
-            map[pos.getRow()][pos.getColumn()] = marker;
+            if (config.isInside(pos.getRow(), pos.getColumn()))
+                cells.add(codec.encode(pos));
+        printCells(cells, marker);
+    }
 
-        for (int row = 0; row < Fleet.BOARD_SIZE; row++) {
-            for (int col = 0; col < Fleet.BOARD_SIZE; col++)
-                System.out.print(map[row][col]);
-            System.out.println();
+    /**
+     * Prints the board one row at a time, reading the cells 64 columns at a
+     * time, so no copy of the whole board is ever built
+     */
+    private void printCells(CellSet cells, char marker) {
+        StringBuilder line = new StringBuilder(config.getColumns());
+        for (int row = 0; row < config.getRows(); row++) {
+            line.setLength(0);
+            for (int col = 0; col < config.getColumns(); col += 64) {
+                long word = cells.rowWord(codec, row, col);
+                int end = Math.min(col + 64, config.getColumns());
+                for (int c = col; c < end; c++)
+                    line.append((word & (1L << (c - col))) != 0 ? marker : '.');
+            }
+            System.out.println(line);
         }
-
     }
 
 
@@ -158,7 +355,7 @@ public class Game implements IGame {
      * Prints the board showing valid shots that have been fired
      */
     public void printValidShots() {
-        printBoard(getShots(), 'X');
+        printCells(fired, 'X');
     }
 
 
@@ -166,12 +363,13 @@ public class Game implements IGame {
      * Prints the board showing the fleet
      */
     public void printFleet() {
-        List<IPosition> shipPositions = new ArrayList<IPosition>();
-
+        CellSet occupied = config.newCellSet();
         for (IShip s : fleet.getShips())
-            shipPositions.addAll(s.getPositions());
+            for (int i = 0; i < Ship.cellCount(s); i++)
+                if (config.isInside(Ship.cellRow(s, i), Ship.cellColumn(s, i)))
+                    occupied.add(codec.encode(Ship.cellRow(s, i), Ship.cellColumn(s, i)));
 
-        printBoard(shipPositions, '#');
+        printCells(occupied, '#');
     }
 
 }
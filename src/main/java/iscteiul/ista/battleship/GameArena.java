@@ -0,0 +1,267 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Keeps the state of many games off the heap, each in a fixed-size slot of a
+ * direct {@link ByteBuffer}: the ship lying on each cell, the forbidden and
+ * fired cells, the ships and the shots in firing order. {@link ArenaFleet},
+ * {@link ArenaGame} and {@link ArenaShip} are flyweight views over a slot, so
+ * the heap holds only the views in use and the chunks of slots, however many
+ * games are live.
+ *
+ * Slots are handed out and given back under a lock; the state of one slot must
+ * only be used by one thread at a time.
+ */
+public final class GameArena {
+    /**
+     * Slots per direct buffer; buffers are allocated when their first slot is
+     */
+    static final int CHUNK_SLOTS = 1 << 12;
+
+    /**
+     * Largest board a slot can hold; shots are kept as 16-bit cells
+     */
+    public static final int MAX_CELLS = 1 << 16;
+
+    // slot header
+    static final int SHIP_COUNT = 0;
+    static final int INVALID_SHOTS = 4;
+    static final int REPEATED_SHOTS = 8;
+    static final int HITS = 12;
+    static final int SINKS = 16;
+    static final int SHOT_COUNT = 20;
+    static final int FLOATING = 24;
+    private static final int IN_USE = 28;
+    private static final int HEADER = 32;
+
+    // ship record: kind, bearing, hit mask, padding, anchor cell
+    static final int SHIP_KIND = 0;
+    static final int SHIP_BEARING = 1;
+    static final int SHIP_HITS = 2;
+    static final int SHIP_ANCHOR = 4;
+    static final int SHIP_RECORD = 8;
+
+    private static final ShipKind[] KINDS = ShipKind.values();
+    private static final Compass[] BEARINGS = Compass.values();
+
+    private final BoardConfig config;
+    private final int capacity;
+    private final int maxShips;
+
+    private final int occupancyOffset;
+    private final int forbiddenOffset;
+    private final int firedOffset;
+    private final int shipsOffset;
+    private final int shotsOffset;
+    private final int slotSize;
+
+    private final ByteBuffer[] chunks;
+    private final int[] freeSlots;
+    private int freeCount;
+
+    /**
+     * @param config   the board and rules of every game of the arena
+     * @param capacity the most games that can be live at once
+     */
+    public GameArena(BoardConfig config, int capacity) {
+        if (config.getCells() > MAX_CELLS)
+            throw new IllegalArgumentException("ERROR! an arena slot holds at most " + MAX_CELLS + " cells");
+        // ship ids take a byte
+        if (config.getFleetSize() > 254)
+            throw new IllegalArgumentException("ERROR! an arena slot holds at most 254 ships");
+        if (capacity <= 0)
+            throw new IllegalArgumentException("ERROR! invalid arena capacity " + capacity);
+
+        this.config = config;
+        this.capacity = capacity;
+        this.maxShips = config.getFleetSize();
+
+        int words = (config.getCells() + 63) >>> 6;
+        occupancyOffset = HEADER;
+        forbiddenOffset = align(occupancyOffset + config.getCells());
+        firedOffset = forbiddenOffset + words * 8;
+        shipsOffset = firedOffset + words * 8;
+        shotsOffset = shipsOffset + maxShips * SHIP_RECORD;
+        slotSize = align(shotsOffset + config.getCells() * 2);
+        if ((long) slotSize * CHUNK_SLOTS > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("ERROR! arena slots too large");
+
+        chunks = new ByteBuffer[(capacity + CHUNK_SLOTS - 1) / CHUNK_SLOTS];
+        freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; i++)
+            freeSlots[i] = capacity - 1 - i;
+        freeCount = capacity;
+    }
+
+    private static int align(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of bytes of off-heap memory a game takes
+     */
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    /**
+     * @return the number of games live in the arena
+     */
+    public synchronized int getLiveGames() {
+        return capacity - freeCount;
+    }
+
+    /**
+     * Starts a new game with an empty fleet
+     *
+     * @return the slot of the game
+     * @throws IllegalStateException if every slot is in use
+     */
+    public synchronized int allocate() {
+        if (freeCount == 0)
+            throw new IllegalStateException("ERROR! the arena is full");
+        int slot = freeSlots[--freeCount];
+        int chunk = slot / CHUNK_SLOTS;
+        if (chunks[chunk] == null)
+            chunks[chunk] = ByteBuffer.allocateDirect(slotSize * CHUNK_SLOTS).order(ByteOrder.nativeOrder());
+        ByteBuffer buffer = chunks[chunk];
+        int base = base(slot);
+        for (int i = 0; i < slotSize; i += 8)
+            buffer.putLong(base + i, 0L);
+        buffer.putInt(base + IN_USE, 1);
+        return slot;
+    }
+
+    /**
+     * Ends a game, making its slot available again. Views over the slot must
+     * not be used afterwards.
+     *
+     * @param slot the slot of the game
+     */
+    public synchronized void release(int slot) {
+        checkSlot(slot);
+        buffer(slot).putInt(base(slot) + IN_USE, 0);
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void checkSlot(int slot) {
+        if (slot < 0 || slot >= capacity || chunks[slot / CHUNK_SLOTS] == null
+                || buffer(slot).getInt(base(slot) + IN_USE) == 0)
+            throw new IllegalArgumentException("ERROR! slot " + slot + " holds no live game");
+    }
+
+    /**
+     * @param slot the slot of a live game
+     * @return a view of the fleet of that game
+     */
+    public ArenaFleet fleet(int slot) {
+        checkSlot(slot);
+        return new ArenaFleet(this, slot);
+    }
+
+    /**
+     * @param slot the slot of a live game
+     * @return a view of that game
+     */
+    public ArenaGame game(int slot) {
+        checkSlot(slot);
+        return new ArenaGame(this, slot);
+    }
+
+    // -----------------------------------------------------
+    // slot access for the views
+
+    ByteBuffer buffer(int slot) {
+        return chunks[slot / CHUNK_SLOTS];
+    }
+
+    int base(int slot) {
+        return (slot % CHUNK_SLOTS) * slotSize;
+    }
+
+    int maxShips() {
+        return maxShips;
+    }
+
+    int occupancy(int slot, int cell) {
+        return base(slot) + occupancyOffset + cell;
+    }
+
+    int ship(int slot, int id) {
+        return base(slot) + shipsOffset + id * SHIP_RECORD;
+    }
+
+    int shot(int slot, int i) {
+        return base(slot) + shotsOffset + i * 2;
+    }
+
+    ShipShape shape(int slot, int id) {
+        ByteBuffer buffer = buffer(slot);
+        int record = ship(slot, id);
+        return ShipShape.of(KINDS[buffer.get(record + SHIP_KIND)], BEARINGS[buffer.get(record + SHIP_BEARING)]);
+    }
+
+    /**
+     * Marks the cell of a ship as hit, counting the ship out of the floating
+     * ones when it was its last cell
+     *
+     * @return true if this hit sank the ship
+     */
+    boolean hit(int slot, int id, int row, int column) {
+        ByteBuffer buffer = buffer(slot);
+        int record = ship(slot, id);
+        ShipShape shape = shape(slot, id);
+        int anchor = buffer.getInt(record + SHIP_ANCHOR);
+        CellCodec codec = config.getCodec();
+        int i = shape.indexOf(row - codec.row(anchor), column - codec.column(anchor));
+        int hits = buffer.get(record + SHIP_HITS);
+        if (i < 0 || (hits & (1 << i)) != 0)
+            return false;
+        hits |= 1 << i;
+        buffer.put(record + SHIP_HITS, (byte) hits);
+        if (Integer.bitCount(hits) < shape.getSize())
+            return false;
+        int floating = base(slot) + FLOATING;
+        buffer.putInt(floating, buffer.getInt(floating) - 1);
+        return true;
+    }
+
+    boolean isForbidden(int slot, int cell) {
+        return testBit(slot, forbiddenOffset, cell);
+    }
+
+    void forbid(int slot, int cell) {
+        setBit(slot, forbiddenOffset, cell);
+    }
+
+    boolean isFired(int slot, int cell) {
+        return testBit(slot, firedOffset, cell);
+    }
+
+    void markFired(int slot, int cell) {
+        setBit(slot, firedOffset, cell);
+    }
+
+    private boolean testBit(int slot, int offset, int cell) {
+        return (buffer(slot).getLong(base(slot) + offset + (cell >>> 6) * 8) & (1L << cell)) != 0;
+    }
+
+    private void setBit(int slot, int offset, int cell) {
+        ByteBuffer buffer = buffer(slot);
+        int index = base(slot) + offset + (cell >>> 6) * 8;
+        buffer.putLong(index, buffer.getLong(index) | (1L << cell));
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads the games written by a {@link GameRecordWriter}, one at a time, from
+ * a memory-mapped file. Only a window of the file is mapped at once, moved
+ * along as the games are read, so files of any size can be read. The shots
+ * of a game are read straight from the mapping; only its ships are decoded,
+ * into arrays reused from game to game.
+ */
+public final class GameRecordReader implements Closeable {
+    /**
+     * The bytes mapped at once, unless a single game needs more
+     */
+    static final int WINDOW = 1 << 26;
+    private static final int HEADER = 5 * Integer.BYTES;
+    private static final int MAX_VARINT = 5;
+    private static final ShipKind[] KINDS = ShipKind.values();
+    private static final Compass[] BEARINGS = Compass.values();
+
+    private final FileChannel channel;
+    private final long size;
+    private final int window;
+    private final BoardConfig config;
+    private final boolean byteShots;
+
+    private MappedByteBuffer map;
+    private long mapStart;
+    /**
+     * Where the next game starts in the file
+     */
+    private long next = HEADER;
+
+    private int shipCount;
+    private byte[] kinds = new byte[16];
+    private byte[] bearings = new byte[16];
+    private int[] anchors = new int[16];
+    private int shotCount;
+    private int shotsAt;
+    /**
+     * The index in the mapping of the byte to read, and of the end of the game
+     */
+    private int at;
+    private int end;
+
+    /**
+     * @param path a file written by a {@link GameRecordWriter}
+     * @throws IOException if the file cannot be read
+     */
+    public GameRecordReader(Path path) throws IOException {
+        this(path, WINDOW);
+    }
+
+    GameRecordReader(Path path, int window) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        size = channel.size();
+        this.window = window;
+        try {
+            if (size < HEADER)
+                throw new IllegalArgumentException("ERROR! " + path + " is not a game record file");
+            map(0, HEADER);
+            if (map.getInt(0) != GameRecordWriter.MAGIC || map.getInt(4) != GameRecordWriter.VERSION)
+                throw new IllegalArgumentException("ERROR! " + path + " is not a game record file");
+            config = new BoardConfig(map.getInt(8), map.getInt(12), map.getInt(16));
+        } catch (RuntimeException | IOException e) {
+            channel.close();
+            throw e;
+        }
+        byteShots = config.getCells() <= GameRecordWriter.BYTE_CELLS;
+    }
+
+    /**
+     * @return the board of the games
+     */
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Moves on to the next game
+     *
+     * @return false if there is none left
+     * @throws IOException if the file cannot be read
+     */
+    public boolean next() throws IOException {
+        if (next >= size)
+            return false;
+        ensure(next, (int) Math.min(MAX_VARINT, size - next));
+        at = (int) (next - mapStart);
+        end = at + (int) Math.min(MAX_VARINT, size - next);
+        int length = varint();
+        long start = mapStart + at;
+        if (length < 0 || start + length > size)
+            throw new IllegalStateException("ERROR! the game at byte " + next + " is cut short");
+        ensure(start, length);
+        at = (int) (start - mapStart);
+        end = at + length;
+        next = start + length;
+
+        shipCount = varint();
+        // a ship takes at least two bytes
+        if (shipCount < 0 || shipCount > (end - at) / 2)
+            throw new IllegalStateException("ERROR! a game record runs past its end");
+        if (shipCount > kinds.length) {
+            kinds = Arrays.copyOf(kinds, shipCount);
+            bearings = Arrays.copyOf(bearings, shipCount);
+            anchors = Arrays.copyOf(anchors, shipCount);
+        }
+        for (int i = 0; i < shipCount; i++) {
+            if (at >= end)
+                throw new IllegalStateException("ERROR! a game record runs past its end");
+            int kindAndBearing = map.get(at++) & 0xFF;
+            int kind = kindAndBearing >>> GameRecordWriter.BEARING_BITS;
+            int bearing = kindAndBearing & ((1 << GameRecordWriter.BEARING_BITS) - 1);
+            if (kind >= KINDS.length || bearing >= BEARINGS.length)
+                throw new IllegalStateException("ERROR! a game record holds an unknown ship " + kindAndBearing);
+            kinds[i] = (byte) kind;
+            bearings[i] = (byte) bearing;
+            anchors[i] = varint();
+        }
+        shotCount = varint();
+        shotsAt = at;
+        if (shotCount < 0 || shotCount > end - shotsAt)
+            throw new IllegalStateException("ERROR! a game record runs past its end");
+        return true;
+    }
+
+    private int varint() {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (at >= end)
+                throw new IllegalStateException("ERROR! a game record runs past its end");
+            b = map.get(at++);
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0 && shift < 7 * MAX_VARINT);
+        if (b < 0)
+            throw new IllegalStateException("ERROR! a game record holds a number of more than " + MAX_VARINT
+                    + " bytes");
+        return value;
+    }
+
+    /**
+     * Maps the file from at least the given byte for at least the given
+     * length, if the current window does not hold them
+     */
+    private void ensure(long from, int length) throws IOException {
+        if (map != null && from >= mapStart && from + length <= mapStart + map.limit())
+            return;
+        map(from, (int) Math.min(Math.max(window, length), size - from));
+    }
+
+    private void map(long from, int length) throws IOException {
+        map = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        mapStart = from;
+    }
+
+    public int getShipCount() {
+        return shipCount;
+    }
+
+    public ShipKind getKind(int ship) {
+        return KINDS[kinds[ship]];
+    }
+
+    public Compass getBearing(int ship) {
+        return BEARINGS[bearings[ship]];
+    }
+
+    /**
+     * @return the cell of the anchor of the ship
+     */
+    public int getAnchor(int ship) {
+        return anchors[ship];
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    /**
+     * Visits the cells of the shots of the game in firing order, read from the
+     * mapping
+     *
+     * @param action what to do with each cell
+     */
+    public void forEachShot(IntConsumer action) {
+        if (byteShots) {
+            for (int i = 0; i < shotCount; i++)
+                action.accept(map.get(shotsAt + i) & 0xFF);
+            return;
+        }
+        at = shotsAt;
+        for (int i = 0; i < shotCount; i++)
+            action.accept(varint());
+    }
+
+    /**
+     * @return the fleet of the game, built anew
+     * @throws IllegalStateException if the ships of the record do not make a
+     *                               fleet, as they overlap, touch or leave the board
+     */
+    public Fleet getFleet() {
+        CellCodec codec = config.getCodec();
+        Fleet fleet = new Fleet(config);
+        for (int i = 0; i < shipCount; i++)
+            if (!fleet.addShip(Ship.buildShip(getKind(i).getKeyword(), getBearing(i), codec.decode(anchors[i]))))
+                throw new IllegalStateException("ERROR! a game record holds a ship the fleet refuses: " + getKind(i)
+                        + " at " + codec.decode(anchors[i]));
+        return fleet;
+    }
+
+    /**
+     * @return a new game over a new fleet, with the shots of the game fired
+     */
+    public Game replay() {
+        Game game = new Game(getFleet());
+        forEachShot(game::fire);
+        return game;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes games to a file of compact binary records, read back by a
+ * {@link GameRecordReader}.
+ *
+ * The file starts with a header of five big-endian ints: {@value #MAGIC},
+ * the format version, and the rows, columns and fleet size of the board. Each game
+ * follows as the number of bytes of the rest of its record, then the number
+ * of ships, then per ship a byte holding its kind and bearing and the cell of
+ * its anchor, then the number of valid shots and their cells in firing order.
+ * Numbers are unsigned varints, seven bits per byte with the high bit set on
+ * all but the last. On boards of at most {@value #BYTE_CELLS} cells each shot
+ * is a single byte.
+ */
+public final class GameRecordWriter implements Closeable {
+    static final int MAGIC = 0x42534752;
+    static final int VERSION = 1;
+    static final int BYTE_CELLS = 1 << 8;
+    static final int BEARING_BITS = 4;
+
+    private final BoardConfig config;
+    private final DataOutputStream out;
+    /**
+     * The record being written, so its length can go before it
+     */
+    private byte[] record = new byte[64];
+    private int length;
+    private long games;
+
+    /**
+     * @param path   the file to create, or to replace
+     * @param config the board of every game written
+     * @throws IOException if the file cannot be written
+     */
+    public GameRecordWriter(Path path, BoardConfig config) throws IOException {
+        this.config = config;
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(config.getRows());
+        out.writeInt(config.getColumns());
+        out.writeInt(config.getFleetSize());
+    }
+
+    /**
+     * Writes a game of shaped ships
+     *
+     * @param fleet the fleet fired at
+     * @param shots the valid shots, in firing order
+     * @throws IOException if the file cannot be written
+     */
+    public void write(IFleet fleet, List<IPosition> shots) throws IOException {
+        CellCodec codec = config.getCodec();
+        int[] cells = new int[shots.size()];
+        for (int i = 0; i < cells.length; i++) {
+            IPosition shot = shots.get(i);
+            if (!codec.isInside(shot.getRow(), shot.getColumn()))
+                throw new IllegalArgumentException("ERROR! shot " + shot + " is off the board");
+            cells[i] = codec.encode(shot);
+        }
+        write(fleet, cells, cells.length);
+    }
+
+    /**
+     * Writes a game of shaped ships
+     *
+     * @param fleet the fleet fired at
+     * @param shots the cells of the valid shots, in firing order
+     * @param count the shots to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(IFleet fleet, int[] shots, int count) throws IOException {
+        if (!config.sameBoard(fleet.getConfig()))
+            throw new IllegalArgumentException("ERROR! the fleet is on a " + fleet.getCodec() + " board, not "
+                    + config.getCodec());
+        CellCodec codec = config.getCodec();
+        length = 0;
+        List<IShip> ships = fleet.getShips();
+        putVarint(ships.size());
+        for (IShip s : ships) {
+            ShipKind kind = ShipKind.fromCategory(s.getCategory());
+            IPosition anchor = s.getPosition();
+            if (kind == null || !codec.isInside(anchor.getRow(), anchor.getColumn()))
+                throw new IllegalArgumentException("ERROR! ship " + s + " cannot be recorded");
+            put(kind.ordinal() << BEARING_BITS | s.getBearing().ordinal());
+            putVarint(codec.encode(anchor));
+        }
+        putVarint(count);
+        boolean bytes = config.getCells() <= BYTE_CELLS;
+        for (int i = 0; i < count; i++) {
+            if (!codec.isInside(shots[i]))
+                throw new IllegalArgumentException("ERROR! shot " + shots[i] + " is off the board");
+            if (bytes)
+                put(shots[i]);
+            else
+                putVarint(shots[i]);
+        }
+
+        int size = length;
+        while ((size & ~0x7F) != 0) {
+            out.write(size & 0x7F | 0x80);
+            size >>>= 7;
+        }
+        out.write(size);
+        out.write(record, 0, length);
+        games++;
+    }
+
+    /**
+     * @return the games written so far
+     */
+    public long getGames() {
+        return games;
+    }
+
+    private void put(int b) {
+        if (length == record.length)
+            record = Arrays.copyOf(record, length * 2);
+        record[length++] = (byte) b;
+    }
+
+    private void putVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            put(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        put(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
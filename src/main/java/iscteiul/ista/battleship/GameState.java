@@ -0,0 +1,291 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable game: firing returns a new state and leaves this one as it
+ * was. The new state shares all of this one but what the shot changed. Every
+ * state of a game shares the layout of the fleet. The fired cells are a
+ * bitboard kept in {@link PersistentWords}, and the hits of each ship a mask
+ * kept in another, so a shot copies the few nodes on the path to the word it
+ * changes. The shots are a list of the last shot linked to the ones before.
+ *
+ * States can thus be forked freely, and read and fired from by any number of
+ * threads without locking. The ships of the fleet are never shot at; the state
+ * alone knows which of their cells were hit.
+ */
+public final class GameState {
+    /**
+     * What stays the same through a game: the ships, and for each cell the
+     * ship lying on it and the index of the cell in the ship
+     */
+    private static final class Layout {
+        private final BoardConfig config;
+        private final IShip[] ships;
+        private final ShipKind[] kinds;
+        private final long[] full;
+        private final CellMap cells;
+
+        private Layout(IFleet fleet, BoardConfig config) {
+            this.config = config;
+            CellCodec codec = config.getCodec();
+            List<IShip> list = fleet.getShips();
+            ships = list.toArray(new IShip[0]);
+            kinds = new ShipKind[ships.length];
+            full = new long[ships.length];
+            cells = config.newCellMap();
+            int[] ofKind = new int[ShipKind.values().length];
+            for (int id = 0; id < ships.length; id++) {
+                IShip s = ships[id];
+                int count = Ship.cellCount(s);
+                if (count > Long.SIZE)
+                    throw new IllegalArgumentException("ERROR! ship " + s + " has more than " + Long.SIZE + " cells");
+                kinds[id] = ShipKind.fromCategory(s.getCategory());
+                if (kinds[id] != null && ++ofKind[kinds[id].ordinal()] > KIND_COUNT_MASK)
+                    throw new IllegalArgumentException("ERROR! more than " + KIND_COUNT_MASK + " ships of kind "
+                            + kinds[id]);
+                // a cell that already belongs to an earlier ship keeps it, as in Fleet
+                for (int i = 0; i < count; i++) {
+                    int row = Ship.cellRow(s, i);
+                    int column = Ship.cellColumn(s, i);
+                    if (codec.isInside(row, column) && cells.get(codec.encode(row, column)) == 0) {
+                        cells.put(codec.encode(row, column), id * Long.SIZE + i + 1);
+                        full[id] |= 1L << i;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A shot and the shots before it
+     */
+    private static final class Shot {
+        private final int cell;
+        private final Shot previous;
+
+        private Shot(int cell, Shot previous) {
+            this.cell = cell;
+            this.previous = previous;
+        }
+    }
+
+    private static final int KIND_COUNT_BITS = 12;
+    private static final int KIND_COUNT_MASK = (1 << KIND_COUNT_BITS) - 1;
+
+    private final Layout layout;
+    private final PersistentWords fired;
+    private final PersistentWords hits;
+    private final Shot last;
+    private final int shotCount;
+    private final int countInvalidShots;
+    private final int countRepeatedShots;
+    private final int countHits;
+    private final int countSinks;
+    /**
+     * The {@link Zobrist} hash, as in {@link Game#getHash()}, and the ships of
+     * each kind sunk, {@value #KIND_COUNT_BITS} bits per kind
+     */
+    private final long hash;
+    private final long sunkByKind;
+    private final int sunkShip;
+
+    private GameState(Layout layout, PersistentWords fired, PersistentWords hits, Shot last, int shotCount,
+                      int countInvalidShots, int countRepeatedShots, int countHits, int countSinks, long hash,
+                      long sunkByKind, int sunkShip) {
+        this.layout = layout;
+        this.fired = fired;
+        this.hits = hits;
+        this.last = last;
+        this.shotCount = shotCount;
+        this.countInvalidShots = countInvalidShots;
+        this.countRepeatedShots = countRepeatedShots;
+        this.countHits = countHits;
+        this.countSinks = countSinks;
+        this.hash = hash;
+        this.sunkByKind = sunkByKind;
+        this.sunkShip = sunkShip;
+    }
+
+    /**
+     * @param fleet a fleet
+     * @return the state before any shot at the fleet
+     */
+    public static GameState of(IFleet fleet) {
+        return of(fleet, fleet.getConfig());
+    }
+
+    /**
+     * @param fleet  a fleet, whose ships are not changed by the game
+     * @param config the board of the game, the same as the fleet's
+     * @return the state before any shot at the fleet
+     */
+    public static GameState of(IFleet fleet, BoardConfig config) {
+        if (!config.sameBoard(fleet.getConfig()))
+            throw new IllegalArgumentException("ERROR! the fleet is on a " + fleet.getCodec() + " board, not "
+                    + config.getCodec());
+        Layout layout = new Layout(fleet, config);
+        int cells = config.getCells();
+        return new GameState(layout, PersistentWords.zeros((cells + 63) >>> 6),
+                PersistentWords.zeros(layout.ships.length), null, 0, 0, 0, 0, 0, 0, 0, -1);
+    }
+
+    /**
+     * @param pos the target
+     * @return the state after the shot
+     */
+    public GameState fire(IPosition pos) {
+        return fire(pos.getRow(), pos.getColumn());
+    }
+
+    /**
+     * @param cell the target, numbered by the {@link CellCodec} of the board
+     * @return the state after the shot
+     */
+    public GameState fire(int cell) {
+        CellCodec codec = layout.config.getCodec();
+        return fire(codec.row(cell), codec.column(cell));
+    }
+
+    private GameState fire(int row, int column) {
+        CellCodec codec = layout.config.getCodec();
+        if (!codec.isInside(row, column))
+            return new GameState(layout, fired, hits, last, shotCount, countInvalidShots + 1, countRepeatedShots,
+                    countHits, countSinks, hash, sunkByKind, -1);
+        int cell = codec.encode(row, column);
+        long word = fired.get(cell >>> 6);
+        if ((word & 1L << cell) != 0)
+            return new GameState(layout, fired, hits, last, shotCount, countInvalidShots, countRepeatedShots + 1,
+                    countHits, countSinks, hash, sunkByKind, -1);
+
+        PersistentWords nowFired = fired.set(cell >>> 6, word | 1L << cell);
+        Shot nowLast = new Shot(cell, last);
+        long nowHash = hash ^ Zobrist.shot(cell);
+        int ship = layout.cells.get(cell) - 1;
+        if (ship < 0)
+            return new GameState(layout, nowFired, hits, nowLast, shotCount + 1, countInvalidShots,
+                    countRepeatedShots, countHits, countSinks, nowHash, sunkByKind, -1);
+
+        int id = ship / Long.SIZE;
+        long mask = hits.get(id) | 1L << ship % Long.SIZE;
+        nowHash ^= Zobrist.hit(cell);
+        if (mask != layout.full[id])
+            return new GameState(layout, nowFired, hits.set(id, mask), nowLast, shotCount + 1, countInvalidShots,
+                    countRepeatedShots, countHits + 1, countSinks, nowHash, sunkByKind, -1);
+
+        long nowSunkByKind = sunkByKind;
+        ShipKind kind = layout.kinds[id];
+        if (kind != null) {
+            int shift = kind.ordinal() * KIND_COUNT_BITS;
+            int before = (int) (sunkByKind >>> shift) & KIND_COUNT_MASK;
+            nowHash ^= Zobrist.sunk(kind, before);
+            nowSunkByKind += 1L << shift;
+        }
+        return new GameState(layout, nowFired, hits.set(id, mask), nowLast, shotCount + 1, countInvalidShots,
+                countRepeatedShots, countHits + 1, countSinks + 1, nowHash, nowSunkByKind, id);
+    }
+
+    /**
+     * @return the ship sunk by the shot that led to this state, or null
+     */
+    public IShip getSunkShip() {
+        return sunkShip < 0 ? null : layout.ships[sunkShip];
+    }
+
+    /**
+     * @return the board of the game
+     */
+    public BoardConfig getConfig() {
+        return layout.config;
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return true if a valid shot was fired at the cell
+     */
+    public boolean isFired(int cell) {
+        return (fired.get(cell >>> 6) & 1L << cell) != 0;
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return true if a shot at the cell hit a ship
+     */
+    public boolean isHit(int cell) {
+        return isFired(cell) && layout.cells.get(cell) != 0;
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return the ship lying on the cell, or null for water
+     */
+    public IShip shipAt(int cell) {
+        int ship = layout.cells.get(cell) - 1;
+        return ship < 0 ? null : layout.ships[ship / Long.SIZE];
+    }
+
+    /**
+     * @return the cells of the valid shots in firing order
+     */
+    public int[] getShotCells() {
+        int[] cells = new int[shotCount];
+        int i = shotCount;
+        for (Shot shot = last; shot != null; shot = shot.previous)
+            cells[--i] = shot.cell;
+        return cells;
+    }
+
+    /**
+     * @return the positions of the valid shots in firing order
+     */
+    public List<IPosition> getShots() {
+        CellCodec codec = layout.config.getCodec();
+        List<IPosition> list = new ArrayList<>(shotCount);
+        for (int cell : getShotCells())
+            list.add(codec.decode(cell));
+        return list;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    public int getRepeatedShots() {
+        return countRepeatedShots;
+    }
+
+    public int getInvalidShots() {
+        return countInvalidShots;
+    }
+
+    public int getHits() {
+        return countHits;
+    }
+
+    public int getSunkShips() {
+        return countSinks;
+    }
+
+    public int getRemainingShips() {
+        return layout.ships.length - countSinks;
+    }
+
+    /**
+     * @return true once every ship is sunk
+     */
+    public boolean isOver() {
+        return countSinks == layout.ships.length;
+    }
+
+    /**
+     * @return the {@link Zobrist} hash of the state, equal to that of a
+     * {@link Game} given the same shots
+     */
+    public long getHash() {
+        return hash;
+    }
+}
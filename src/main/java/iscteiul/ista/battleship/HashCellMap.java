@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * A {@link CellMap} for large boards: an open addressing hash table holding
+ * only the cells put in it.
+ */
+final class HashCellMap implements CellMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    HashCellMap() {
+        keys = new int[16];
+        values = new int[16];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * @return the first slot to probe for the cell in a table of mask + 1 slots
+     */
+    private static int slot(int cell, int mask) {
+        int h = cell * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    @Override
+    public int get(int cell) {
+        int mask = keys.length - 1;
+        for (int i = slot(cell, mask); keys[i] != EMPTY; i = (i + 1) & mask)
+            if (keys[i] == cell)
+                return values[i];
+        return 0;
+    }
+
+    @Override
+    public void put(int cell, int value) {
+        int mask = keys.length - 1;
+        int i = slot(cell, mask);
+        for (; keys[i] != EMPTY; i = (i + 1) & mask)
+            if (keys[i] == cell) {
+                values[i] = value;
+                return;
+            }
+        keys[i] = cell;
+        values[i] = value;
+        if (++size * 2 > keys.length)
+            grow();
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++)
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j], mask);
+                while (keys[i] != EMPTY)
+                    i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+    }
+
+    /**
+     * @return the number of cells in the map
+     */
+    int size() {
+        return size;
+    }
+}
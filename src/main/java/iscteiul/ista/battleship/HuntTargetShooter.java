@@ -0,0 +1,79 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Hunts at random until a shot hits, then targets the cells next to the hits
+ * until the ship sinks. The cells around a sunk ship are never fired at, since
+ * no other ship may lie there.
+ */
+public class HuntTargetShooter implements Shooter {
+    private CellCodec codec;
+    private int[] order = new int[0];
+    private int next;
+    private boolean[] known = new boolean[0];
+    private int[] targets = new int[0];
+    private int targetCount;
+
+    @Override
+    public void start(BoardConfig config, Random random) {
+        codec = config.getCodec();
+        int cells = config.getCells();
+        if (order.length != cells) {
+            order = new int[cells];
+            known = new boolean[cells];
+            targets = new int[4 * cells];
+        }
+        for (int i = 0; i < cells; i++)
+            order[i] = i;
+        for (int i = cells - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int cell = order[i];
+            order[i] = order[j];
+            order[j] = cell;
+        }
+        Arrays.fill(known, false);
+        next = 0;
+        targetCount = 0;
+    }
+
+    @Override
+    public int nextShot() {
+        while (targetCount > 0) {
+            int cell = targets[--targetCount];
+            if (!known[cell])
+                return cell;
+        }
+        while (known[order[next]])
+            next++;
+        return order[next];
+    }
+
+    @Override
+    public void shotResult(int cell, boolean hit, IShip sunk) {
+        known[cell] = true;
+        if (sunk != null) {
+            for (int i = 0; i < Ship.cellCount(sunk); i++)
+                for (int r = Ship.cellRow(sunk, i) - 1; r <= Ship.cellRow(sunk, i) + 1; r++)
+                    for (int c = Ship.cellColumn(sunk, i) - 1; c <= Ship.cellColumn(sunk, i) + 1; c++)
+                        if (codec.isInside(r, c))
+                            known[codec.encode(r, c)] = true;
+        } else if (hit) {
+            int row = codec.row(cell);
+            int column = codec.column(cell);
+            target(row - 1, column);
+            target(row + 1, column);
+            target(row, column - 1);
+            target(row, column + 1);
+        }
+    }
+
+    private void target(int row, int column) {
+        if (codec.isInside(row, column) && !known[codec.encode(row, column)])
+            targets[targetCount++] = codec.encode(row, column);
+    }
+}
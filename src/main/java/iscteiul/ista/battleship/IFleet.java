@@ -17,7 +17,36 @@ public interface IFleet {
 
     List<IShip> getFloatingShips();
 
+    /**
+     * @return the number of ships still floating, as {@code getFloatingShips().size()}
+     */
+    default int countFloatingShips() {
+        return getFloatingShips().size();
+    }
+
     IShip shipAt(IPosition pos);
 
+    /**
+     * @param cell a cell number, as given by {@link #getCodec()}
+     * @return the ship lying on the cell, or null for water
+     */
+    default IShip shipAt(int cell) {
+        return shipAt(getCodec().decode(cell));
+    }
+
+    /**
+     * @return the board and rules this fleet is laid out under
+     */
+    default BoardConfig getConfig() {
+        return BoardConfig.STANDARD;
+    }
+
+    /**
+     * @return the codec numbering the cells of the board of this fleet
+     */
+    default CellCodec getCodec() {
+        return getConfig().getCodec();
+    }
+
     void printStatus();
 }
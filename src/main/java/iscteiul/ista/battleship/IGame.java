@@ -8,6 +8,13 @@ import java.util.List;
 public interface IGame {
     IShip fire(IPosition pos);
 
+    /**
+     * @param cell a cell number, as given by the {@link IFleet#getCodec()} of
+     *             the game's own fleet
+     * @return the ship sunk by the shot, or null
+     */
+    IShip fire(int cell);
+
     List<IPosition> getShots();
 
     int getRepeatedShots();
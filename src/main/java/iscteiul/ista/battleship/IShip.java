@@ -28,9 +28,17 @@ public interface IShip {
 
     boolean occupies(IPosition pos);
 
+    default boolean occupies(int row, int column) {
+        return occupies(Coordinate.of(row, column));
+    }
+
     boolean tooCloseTo(IShip other);
 
     boolean tooCloseTo(IPosition pos);
 
     void shoot(IPosition pos);
+
+    default void shoot(int row, int column) {
+        shoot(Coordinate.of(row, column));
+    }
 }
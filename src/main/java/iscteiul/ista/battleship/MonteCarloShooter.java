@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Fires at the cell most likely to hold a ship, as estimated by a
+ * {@link PosteriorSampler} from random fleets agreeing with every shot so far.
+ * Each shot draws a fixed number of fleets within a time budget; when the
+ * budget runs out first the estimate rests on fewer fleets, and when no fleet
+ * was found at all the shooter fires at a random cell it knows nothing about.
+ *
+ * A {@link ShotInference} runs alongside: a cell surely holding a ship is
+ * fired at without sampling, and the cells surely holding none are handed to
+ * the sampler as water, so its fleets never place a ship there. Boards of
+ * more than {@link BoardConfig#DENSE_CELLS} cells, where inference does not
+ * run, rest on the sampler alone.
+ */
+public class MonteCarloShooter implements Shooter {
+    private final FleetComposition composition;
+    private final int samples;
+    private final long budgetNanos;
+
+    private PosteriorSampler sampler;
+    private ShotInference inference;
+    private CellCodec codec;
+    private Random random;
+    private int[] order = new int[0];
+    private boolean[] known = new boolean[0];
+
+    /**
+     * @param composition the ships of the fleets to hunt
+     * @param samples     the fleets to draw for each shot
+     * @param budgetNanos the time each shot may take
+     */
+    public MonteCarloShooter(FleetComposition composition, int samples, long budgetNanos) {
+        this.composition = composition;
+        this.samples = samples;
+        this.budgetNanos = budgetNanos;
+    }
+
+    @Override
+    public void start(BoardConfig config, Random random) {
+        if (sampler == null || !codec.equals(config.getCodec())) {
+            sampler = new PosteriorSampler(config, composition);
+            inference = config.getCells() <= BoardConfig.DENSE_CELLS ? new ShotInference(config, composition) : null;
+            codec = config.getCodec();
+            order = new int[config.getCells()];
+            known = new boolean[config.getCells()];
+        }
+        sampler.reset();
+        if (inference != null)
+            inference.reset();
+        this.random = random;
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int cell = order[i];
+            order[i] = order[j];
+            order[j] = cell;
+        }
+        Arrays.fill(known, false);
+    }
+
+    @Override
+    public int nextShot() {
+        int forced = inference == null ? -1 : inference.nextForced(0);
+        if (forced >= 0)
+            return forced;
+        double[] estimate = sampler.estimate(random.nextLong(), samples, budgetNanos);
+        int best = -1;
+        for (int cell : order)
+            if (!known[cell] && (best < 0 || estimate[cell] > estimate[best]))
+                best = cell;
+        return best;
+    }
+
+    @Override
+    public void shotResult(int cell, boolean hit, IShip sunk) {
+        if (!codec.isInside(cell))
+            return;
+        known[cell] = true;
+        sampler.observe(cell, hit, sunk);
+        if (inference == null)
+            return;
+        inference.observe(cell, hit, sunk);
+        for (int c = inference.nextImpossible(0); c >= 0; c = inference.nextImpossible(c + 1))
+            if (!known[c]) {
+                known[c] = true;
+                sampler.observe(c, false, null);
+            }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * An immutable array of longs, all zero at first, kept as a trie of
+ * {@value #WIDTH}-way nodes. Setting a word copies only the nodes on its
+ * path and shares every other one with the array it came from, so an array
+ * of n words is changed by copying about log32(n) small nodes, and nodes
+ * never set are never allocated.
+ */
+final class PersistentWords {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final int size;
+    /**
+     * The levels of inner nodes above the leaves
+     */
+    private final int levels;
+    /**
+     * An Object[] inner node, a long[] leaf, or null while every word under
+     * it is zero
+     */
+    private final Object root;
+
+    private PersistentWords(int size, int levels, Object root) {
+        this.size = size;
+        this.levels = levels;
+        this.root = root;
+    }
+
+    /**
+     * @param size the number of words
+     * @return an array of that many words, all zero
+     */
+    static PersistentWords zeros(int size) {
+        if (size < 0)
+            throw new IllegalArgumentException("ERROR! invalid size " + size);
+        int levels = 0;
+        while (levels * BITS + BITS < Integer.SIZE - 1 && size > 1 << (levels * BITS + BITS))
+            levels++;
+        return new PersistentWords(size, levels, null);
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(int index) {
+        checkIndex(index);
+        Object node = root;
+        for (int level = levels; level > 0 && node != null; level--)
+            node = ((Object[]) node)[index >>> (level * BITS) & MASK];
+        return node == null ? 0 : ((long[]) node)[index & MASK];
+    }
+
+    /**
+     * @return an array equal to this one but for the word at the index, which
+     * shares every node off the path to that word with this one
+     */
+    PersistentWords set(int index, long value) {
+        checkIndex(index);
+        if (get(index) == value)
+            return this;
+        return new PersistentWords(size, levels, set(root, levels, index, value));
+    }
+
+    private Object set(Object node, int level, int index, long value) {
+        if (level == 0) {
+            long[] leaf = node == null ? new long[levels == 0 ? size : WIDTH] : ((long[]) node).clone();
+            leaf[index & MASK] = value;
+            return leaf;
+        }
+        Object[] inner = node == null ? new Object[WIDTH] : ((Object[]) node).clone();
+        int slot = index >>> (level * BITS) & MASK;
+        inner[slot] = set(inner[slot], level - 1, index, value);
+        return inner;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("ERROR! index " + index + " outside " + size + " words");
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * Counts, for every cell, the placements of {@link PlacementMasks} covering
+ * it that are still possible. A placement is possible if it covers no cell of
+ * the forbidden mask, which holds the sunk ships and their halo under the
+ * adjacency rule of {@link Fleet}, and no cell of the misses. While the hits
+ * mask is not empty, only the placements covering some hit are counted.
+ *
+ * The kernel from {@link #create()} uses the incubating vector API when the
+ * vector kernel was built, by the {@code vector} Maven profile, and the
+ * {@code jdk.incubator.vector} module is present, as it is when running with
+ * {@code --add-modules jdk.incubator.vector}. Otherwise it is the scalar one.
+ * Both give the same counts.
+ */
+public abstract class PlacementKernel {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "iscteiul.ista.battleship.VectorPlacementKernel";
+
+    /**
+     * @return the vector kernel if it was built and the vector API is
+     * available, else the scalar one
+     */
+    public static PlacementKernel create() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty())
+            return scalar();
+        try {
+            // looked up by name, as builds without the vector profile leave it out
+            PlacementKernel kernel = (PlacementKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor()
+                    .newInstance();
+            // vectors wider than the padding of each kind would read the placements after it
+            return PlacementMasks.ALIGN % kernel.getLanes() == 0 ? kernel : scalar();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return scalar();
+        }
+    }
+
+    /**
+     * @return the kernel working one placement at a time
+     */
+    public static PlacementKernel scalar() {
+        return new ScalarPlacementKernel();
+    }
+
+    /**
+     * Adds to each cell the possible placements covering it, each counted by
+     * the weight of its kind
+     *
+     * @param placements the placements to test
+     * @param forbidden  the cells no ship can cover, one bit per cell
+     * @param misses     the cells shot at that were water
+     * @param hits       the cells hit, of ships not sunk yet
+     * @param weights    per kind ordinal, the weight of its placements, such
+     *                   as the ships of the kind afloat
+     * @param counts     per cell, where the weighted placements are added
+     */
+    public void count(PlacementMasks placements, long[] forbidden, long[] misses, long[] hits, int[] weights,
+                      long[] counts) {
+        int words = placements.getWords();
+        if (forbidden.length < words || misses.length < words || hits.length < words)
+            throw new IllegalArgumentException("ERROR! the masks need " + words + " words");
+        if (counts.length < placements.getConfig().getCells())
+            throw new IllegalArgumentException("ERROR! the counts need " + placements.getConfig().getCells()
+                    + " cells");
+        long[] blocked = new long[words];
+        boolean anyHit = false;
+        for (int w = 0; w < words; w++) {
+            blocked[w] = forbidden[w] | misses[w];
+            anyHit |= hits[w] != 0;
+        }
+        for (ShipKind kind : ShipKind.values())
+            if (weights[kind.ordinal()] != 0 && placements.getCount(kind) > 0)
+                count(placements, placements.getStart(kind), placements.getEnd(kind), blocked, anyHit ? hits : null,
+                        weights[kind.ordinal()], counts);
+    }
+
+    /**
+     * @return the placements tested at once
+     */
+    abstract int getLanes();
+
+    /**
+     * Counts the placements from one multiple of {@link PlacementMasks#ALIGN}
+     * to another
+     *
+     * @param hits the hits a placement must touch, or null
+     */
+    abstract void count(PlacementMasks placements, int from, int to, long[] blocked, long[] hits, int weight,
+                        long[] counts);
+
+    /**
+     * Adds the weight to the counts of the cells of a word
+     */
+    static void addCells(long word, int w, long weight, long[] counts) {
+        for (; word != 0; word &= word - 1)
+            counts[(w << 6) + Long.numberOfTrailingZeros(word)] += weight;
+    }
+}
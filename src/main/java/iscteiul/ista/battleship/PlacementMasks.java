@@ -0,0 +1,129 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Every placement of the ships of a composition on a board, as bit masks of
+ * the cells they cover, laid out for a {@link PlacementKernel}. Word w of
+ * placement p is {@code getMasks()[w * getStride() + p]}, so the same word of
+ * consecutive placements is contiguous. The placements of each kind start at
+ * a multiple of {@value #ALIGN}, after empty masks padding the kind before.
+ */
+public final class PlacementMasks {
+    /**
+     * The largest board whose placements are listed
+     */
+    public static final int MAX_CELLS = 1 << 10;
+    /**
+     * The alignment of the placements of each kind, enough for the widest
+     * vectors of longs
+     */
+    static final int ALIGN = 8;
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+    private static final int KINDS = ShipKind.values().length;
+
+    private final BoardConfig config;
+    private final int words;
+    private final int stride;
+    private final long[] masks;
+    private final int[] kindStart = new int[KINDS + 1];
+    private final int[] kindCount = new int[KINDS];
+
+    /**
+     * @param config      the board
+     * @param composition the ships whose placements to list; kinds it leaves
+     *                    out get none
+     */
+    public PlacementMasks(BoardConfig config, FleetComposition composition) {
+        if (config.getCells() > MAX_CELLS)
+            throw new IllegalArgumentException("ERROR! boards of more than " + MAX_CELLS + " cells are not supported");
+        this.config = config;
+        CellCodec codec = config.getCodec();
+        words = (config.getCells() + 63) >>> 6;
+
+        List<long[]> placements = new ArrayList<>();
+        for (ShipKind k : ShipKind.values()) {
+            kindStart[k.ordinal()] = placements.size();
+            if (composition.getCount(k) == 0)
+                continue;
+            List<ShipShape> shapes = new ArrayList<>();
+            for (Compass bearing : BEARINGS) {
+                ShipShape shape = ShipShape.of(k, bearing);
+                boolean seen = false;
+                for (ShipShape other : shapes)
+                    seen |= FleetGenerator.sameFootprint(shape, other);
+                if (seen)
+                    continue;
+                shapes.add(shape);
+                for (int row = -shape.getMinRow(); row < config.getRows() - shape.getMaxRow(); row++)
+                    for (int column = -shape.getMinColumn(); column < config.getColumns() - shape.getMaxColumn();
+                         column++) {
+                        long[] mask = new long[words];
+                        for (int i = 0; i < shape.getSize(); i++) {
+                            int cell = codec.encode(row + shape.getRowOffset(i), column + shape.getColumnOffset(i));
+                            mask[cell >>> 6] |= 1L << cell;
+                        }
+                        placements.add(mask);
+                    }
+            }
+            kindCount[k.ordinal()] = placements.size() - kindStart[k.ordinal()];
+            while (placements.size() % ALIGN != 0)
+                placements.add(new long[words]);
+        }
+        kindStart[KINDS] = placements.size();
+
+        stride = placements.size();
+        masks = new long[words * stride];
+        for (int p = 0; p < stride; p++)
+            for (int w = 0; w < words; w++)
+                masks[w * stride + p] = placements.get(p)[w];
+    }
+
+    public BoardConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the longs a mask of the board takes
+     */
+    public int getWords() {
+        return words;
+    }
+
+    /**
+     * @return the placements listed, padding included
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    long[] getMasks() {
+        return masks;
+    }
+
+    /**
+     * @return the first placement of the kind
+     */
+    int getStart(ShipKind kind) {
+        return kindStart[kind.ordinal()];
+    }
+
+    /**
+     * @return the placement after the padded placements of the kind
+     */
+    int getEnd(ShipKind kind) {
+        return kindStart[kind.ordinal() + 1];
+    }
+
+    /**
+     * @return the placements of the kind, padding left out
+     */
+    public int getCount(ShipKind kind) {
+        return kindCount[kind.ordinal()];
+    }
+}
@@ -3,11 +3,14 @@
  */
 package iscteiul.ista.battleship;
 
-import java.util.Objects;
-
+/**
+ * A position that also records whether it is occupied and whether it has
+ * been hit. Its identity, used by equals and hashCode, is only its row and
+ * column; see {@link Coordinate} for a position without state.
+ */
 public class Position implements IPosition {
-    private int row;
-    private int column;
+    private final int row;
+    private final int column;
     private boolean isOccupied;
     private boolean isHit;
 
@@ -44,7 +47,7 @@ public class Position implements IPosition {
 
     @Override
     public int hashCode() {
-        return Objects.hash(column, isHit, isOccupied, row);
+        return Coordinate.hash(row, column);
     }
 
     /*
@@ -94,6 +97,13 @@ public class Position implements IPosition {
         isHit = true;
     }
 
+    /**
+     * Takes back a shot at this position, for {@link Game#undo()}
+     */
+    void unshoot() {
+        isHit = false;
+    }
+
     /*
      * (non-Javadoc)
      *
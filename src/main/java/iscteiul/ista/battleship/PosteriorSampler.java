@@ -0,0 +1,496 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimates, for each cell, the probability that a ship still afloat lies
+ * there, given what the shots so far revealed: water, hits not sunk yet, and
+ * sunk ships with their halos. The estimate counts how often each cell is
+ * covered in random fleets of the ships afloat that agree with every shot,
+ * every such fleet being equally likely.
+ *
+ * The fleets come from Metropolis-Hastings chains. A chain starts from a
+ * fleet found by trying, in a random order, the ships that can cover each
+ * hit. A step then moves one ship, or two when a ship is put over a hit, and
+ * is kept with the odds that make every legal fleet covering the hits as
+ * likely as any other. Nothing is listed up front, so a step costs the same
+ * on any board. Several chains run on a fork/join pool until they have drawn
+ * enough fleets or run out of time, whichever comes first; with time to
+ * spare the estimate depends on the seed only.
+ */
+public class PosteriorSampler {
+    /**
+     * Chains run for each estimate
+     */
+    static final int CHAINS = 4;
+
+    /**
+     * Sweeps over the ships before a chain starts counting
+     */
+    static final int BURN_IN = 20;
+
+    /**
+     * Steps between two looks at the clock
+     */
+    static final int STEPS_PER_CHECK = 64;
+
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    private final BoardConfig config;
+    private final CellCodec codec;
+    private final FleetComposition composition;
+    /**
+     * Per kind, its distinct footprints
+     */
+    private final ShipShape[][] shapes;
+
+    private final boolean[] blocked;
+    private final boolean[] hit;
+    private final int[] afloat = new int[ShipKind.values().length];
+    private int openHits;
+    private int samples;
+
+    /**
+     * @param config      the board of the game
+     * @param composition the ships of the fleet under attack
+     */
+    public PosteriorSampler(BoardConfig config, FleetComposition composition) {
+        this.config = config;
+        this.codec = config.getCodec();
+        this.composition = composition;
+        shapes = new ShipShape[ShipKind.values().length][];
+        for (ShipKind kind : ShipKind.values()) {
+            List<ShipShape> distinct = new ArrayList<>();
+            for (Compass bearing : BEARINGS) {
+                ShipShape shape = ShipShape.of(kind, bearing);
+                boolean seen = false;
+                for (ShipShape other : distinct)
+                    seen |= FleetGenerator.sameFootprint(shape, other);
+                if (!seen)
+                    distinct.add(shape);
+            }
+            shapes[kind.ordinal()] = distinct.toArray(new ShipShape[0]);
+        }
+        blocked = new boolean[config.getCells()];
+        hit = new boolean[config.getCells()];
+        reset();
+    }
+
+    /**
+     * Forgets every shot
+     */
+    public void reset() {
+        Arrays.fill(blocked, false);
+        Arrays.fill(hit, false);
+        for (ShipKind kind : ShipKind.values())
+            afloat[kind.ordinal()] = composition.getCount(kind);
+        openHits = 0;
+        samples = 0;
+    }
+
+    /**
+     * Takes in what a shot revealed, as told to a {@link Shooter}
+     *
+     * @param cell  the cell fired at
+     * @param isHit true if the shot hit a ship
+     * @param sunk  the ship the shot sank, or null
+     */
+    public void observe(int cell, boolean isHit, IShip sunk) {
+        if (!codec.isInside(cell))
+            return;
+        if (sunk != null) {
+            afloat[ShipKind.fromCategory(sunk.getCategory()).ordinal()]--;
+            for (int i = 0; i < Ship.cellCount(sunk); i++)
+                for (int r = Ship.cellRow(sunk, i) - 1; r <= Ship.cellRow(sunk, i) + 1; r++)
+                    for (int c = Ship.cellColumn(sunk, i) - 1; c <= Ship.cellColumn(sunk, i) + 1; c++)
+                        if (codec.isInside(r, c)) {
+                            int near = codec.encode(r, c);
+                            if (hit[near]) {
+                                hit[near] = false;
+                                openHits--;
+                            }
+                            blocked[near] = true;
+                        }
+        } else if (isHit) {
+            if (!hit[cell] && !blocked[cell]) {
+                hit[cell] = true;
+                openHits++;
+            }
+        } else {
+            blocked[cell] = true;
+        }
+    }
+
+    /**
+     * @return the fleets drawn by the last estimate
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Estimates on the common fork/join pool
+     *
+     * @see #estimate(long, int, long, ForkJoinPool)
+     */
+    public double[] estimate(long seed, int maxSamples, long budgetNanos) {
+        return estimate(seed, maxSamples, budgetNanos, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param seed        the seed of the chains
+     * @param maxSamples  the fleets to draw
+     * @param budgetNanos the time to stop at if they are not drawn by then
+     * @param pool        the pool to run the chains on
+     * @return per cell, the fraction of the fleets drawn with a ship afloat
+     * there, or all zeros if no legal fleet was found in time
+     */
+    public double[] estimate(long seed, int maxSamples, long budgetNanos, ForkJoinPool pool) {
+        long deadline = System.nanoTime() + budgetNanos;
+        long[] counts = pool.invoke(new Chains(seed, maxSamples, deadline, 0, CHAINS));
+        samples = (int) counts[counts.length - 1];
+        double[] estimate = new double[config.getCells()];
+        if (samples > 0)
+            for (int cell = 0; cell < estimate.length; cell++)
+                estimate[cell] = (double) counts[cell] / samples;
+        return estimate;
+    }
+
+    /**
+     * A fleet of the ships afloat, moved one ship at a time
+     */
+    private final class Chain {
+        private final Random random;
+        private final ShipKind[] kinds;
+        private final int[] shape;
+        private final int[] row;
+        private final int[] column;
+        private final boolean[] placed;
+        private final int[] hitCells;
+        /**
+         * Per cell, the ships lying on it, and the ships lying on it or next
+         * to it
+         */
+        private final int[] occupied = new int[config.getCells()];
+        private final int[] near = new int[config.getCells()];
+        private int uncovered;
+
+        Chain(long seed) {
+            random = new Random(seed);
+            List<ShipKind> list = new ArrayList<>();
+            for (ShipKind kind : ShipKind.values())
+                for (int i = 0; i < afloat[kind.ordinal()]; i++)
+                    list.add(kind);
+            kinds = list.toArray(new ShipKind[0]);
+            shape = new int[kinds.length];
+            row = new int[kinds.length];
+            column = new int[kinds.length];
+            placed = new boolean[kinds.length];
+            int count = 0;
+            int[] cells = new int[openHits];
+            for (int cell = 0; cell < hit.length; cell++)
+                if (hit[cell])
+                    cells[count++] = cell;
+            hitCells = cells;
+            uncovered = openHits;
+        }
+
+        /**
+         * Looks for a legal fleet covering every hit, placing ships on the
+         * hits first
+         *
+         * @return false if none was found before the deadline
+         */
+        boolean start(long deadline) {
+            while (System.nanoTime() <= deadline) {
+                if (cover(deadline))
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * Tries the ships that can cover the first hit left uncovered, in a
+         * random order, and goes on with the next hit; once every hit is
+         * covered the other ships are laid out at random
+         *
+         * @return true if every ship is placed, false with the ships placed
+         * by this call taken away otherwise
+         */
+        private boolean cover(long deadline) {
+            int target = -1;
+            for (int k = 0; k < hitCells.length && target < 0; k++)
+                if (occupied[hitCells[k]] == 0)
+                    target = hitCells[k];
+            if (target < 0)
+                return placeRest();
+            if (System.nanoTime() > deadline)
+                return false;
+
+            List<int[]> candidates = new ArrayList<>();
+            for (int i = 0; i < kinds.length; i++) {
+                if (placed[i] || i > 0 && kinds[i - 1] == kinds[i] && !placed[i - 1])
+                    continue;
+                ShipShape[] footprints = shapes[kinds[i].ordinal()];
+                for (int s = 0; s < footprints.length; s++)
+                    for (int part = 0; part < footprints[s].getSize(); part++) {
+                        int r = codec.row(target) - footprints[s].getRowOffset(part);
+                        int c = codec.column(target) - footprints[s].getColumnOffset(part);
+                        if (fits(kinds[i], s, r, c))
+                            candidates.add(new int[]{i, s, r, c});
+                    }
+            }
+            Collections.shuffle(candidates, random);
+            for (int[] candidate : candidates) {
+                tryPlace(candidate[0], candidate[1], candidate[2], candidate[3]);
+                if (cover(deadline))
+                    return true;
+                move(candidate[0], -1);
+            }
+            return false;
+        }
+
+        /**
+         * Lays out the ships not placed yet at random
+         *
+         * @return true if they all found room, false with none of them placed
+         * otherwise
+         */
+        private boolean placeRest() {
+            int[] laid = new int[kinds.length];
+            int count = 0;
+            for (int i = 0; i < kinds.length; i++) {
+                if (placed[i])
+                    continue;
+                boolean done = false;
+                for (int attempt = 0; attempt < FleetGenerator.MAX_ATTEMPTS && !done; attempt++)
+                    done = tryPlace(i, random.nextInt(shapes[kinds[i].ordinal()].length),
+                            random.nextInt(config.getRows()), random.nextInt(config.getColumns()));
+                if (!done) {
+                    while (count > 0)
+                        move(laid[--count], -1);
+                    return false;
+                }
+                laid[count++] = i;
+            }
+            return true;
+        }
+
+        /**
+         * Places an unplaced ship if it fits
+         */
+        private boolean tryPlace(int i, int s, int r, int c) {
+            if (!fits(kinds[i], s, r, c))
+                return false;
+            shape[i] = s;
+            row[i] = r;
+            column[i] = c;
+            move(i, 1);
+            return true;
+        }
+
+        /**
+         * One Metropolis-Hastings step. A ship is put back anywhere on the
+         * board, or one cell off with any footprint; both moves are as likely
+         * as their reverse. When there are hits, a ship may also be put back
+         * over a random hit, alone or while another ship is put back
+         * anywhere, which lets the ships covering the hits change places;
+         * those moves are kept in proportion to the hits covered before and
+         * after, the odds of making the reverse move.
+         */
+        void step() {
+            int i = random.nextInt(kinds.length);
+            int kind = hitCells.length == 0 ? random.nextInt(2)
+                    : random.nextInt(kinds.length == 1 ? 3 : 4);
+            int j = -1;
+            if (kind == 3) {
+                j = random.nextInt(kinds.length - 1);
+                if (j >= i)
+                    j++;
+            }
+
+            int oldShape = shape[i];
+            int oldRow = row[i];
+            int oldColumn = column[i];
+            int otherShape = j < 0 ? 0 : shape[j];
+            int otherRow = j < 0 ? 0 : row[j];
+            int otherColumn = j < 0 ? 0 : column[j];
+            double odds = 1;
+            if (kind == 2)
+                odds = hitsUnder(i);
+            else if (kind == 3)
+                odds = (double) hitsUnder(i) * kinds[j].getSize() / kinds[i].getSize();
+
+            move(i, -1);
+            if (j >= 0)
+                move(j, -1);
+            boolean moved = kind == 0 ? putAnywhere(i) : kind == 1 ? putNextTo(i) : kind == 2 ? putOnHit(i)
+                    : putAnywhere(i);
+            boolean movedOther = j < 0 || moved && putOnHit(j);
+            if (moved && movedOther && uncovered == 0) {
+                if (kind == 2)
+                    odds /= hitsUnder(i);
+                else if (kind == 3)
+                    odds /= hitsUnder(j);
+                if (odds >= 1 || random.nextDouble() < odds)
+                    return;
+            }
+
+            if (moved)
+                move(i, -1);
+            if (j >= 0 && movedOther && moved)
+                move(j, -1);
+            shape[i] = oldShape;
+            row[i] = oldRow;
+            column[i] = oldColumn;
+            move(i, 1);
+            if (j >= 0) {
+                shape[j] = otherShape;
+                row[j] = otherRow;
+                column[j] = otherColumn;
+                move(j, 1);
+            }
+        }
+
+        private boolean putAnywhere(int i) {
+            return tryPlace(i, random.nextInt(shapes[kinds[i].ordinal()].length), random.nextInt(config.getRows()),
+                    random.nextInt(config.getColumns()));
+        }
+
+        private boolean putNextTo(int i) {
+            return tryPlace(i, random.nextInt(shapes[kinds[i].ordinal()].length), row[i] + random.nextInt(3) - 1,
+                    column[i] + random.nextInt(3) - 1);
+        }
+
+        private boolean putOnHit(int i) {
+            int target = hitCells[random.nextInt(hitCells.length)];
+            int s = random.nextInt(shapes[kinds[i].ordinal()].length);
+            ShipShape footprint = shapes[kinds[i].ordinal()][s];
+            int part = random.nextInt(footprint.getSize());
+            return tryPlace(i, s, codec.row(target) - footprint.getRowOffset(part),
+                    codec.column(target) - footprint.getColumnOffset(part));
+        }
+
+        /**
+         * @return the hits under a placed ship
+         */
+        private int hitsUnder(int i) {
+            ShipShape footprint = shapes[kinds[i].ordinal()][shape[i]];
+            int hits = 0;
+            for (int k = 0; k < footprint.getSize(); k++)
+                if (hit[codec.encode(row[i] + footprint.getRowOffset(k), column[i] + footprint.getColumnOffset(k))])
+                    hits++;
+            return hits;
+        }
+
+        private boolean fits(ShipKind kind, int s, int r, int c) {
+            ShipShape footprint = shapes[kind.ordinal()][s];
+            for (int k = 0; k < footprint.getSize(); k++) {
+                int cellRow = r + footprint.getRowOffset(k);
+                int cellColumn = c + footprint.getColumnOffset(k);
+                if (!codec.isInside(cellRow, cellColumn))
+                    return false;
+                int cell = codec.encode(cellRow, cellColumn);
+                if (blocked[cell] || near[cell] > 0)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Puts a ship on the board, with delta 1, or takes it away, with -1
+         */
+        private void move(int i, int delta) {
+            placed[i] = delta > 0;
+            ShipShape footprint = shapes[kinds[i].ordinal()][shape[i]];
+            for (int k = 0; k < footprint.getSize(); k++) {
+                int cellRow = row[i] + footprint.getRowOffset(k);
+                int cellColumn = column[i] + footprint.getColumnOffset(k);
+                int cell = codec.encode(cellRow, cellColumn);
+                occupied[cell] += delta;
+                if (hit[cell] && occupied[cell] == (delta > 0 ? 1 : 0))
+                    uncovered -= delta;
+                for (int nr = cellRow - 1; nr <= cellRow + 1; nr++)
+                    for (int nc = cellColumn - 1; nc <= cellColumn + 1; nc++)
+                        if (codec.isInside(nr, nc))
+                            near[codec.encode(nr, nc)] += delta;
+            }
+        }
+
+        /**
+         * Adds the cells of the ships to the counts
+         */
+        void count(long[] counts) {
+            for (int i = 0; i < kinds.length; i++) {
+                ShipShape footprint = shapes[kinds[i].ordinal()][shape[i]];
+                for (int k = 0; k < footprint.getSize(); k++)
+                    counts[codec.encode(row[i] + footprint.getRowOffset(k), column[i] + footprint.getColumnOffset(k))]++;
+            }
+        }
+    }
+
+    /**
+     * Runs a range of chains; the last count is the number of fleets drawn
+     */
+    private final class Chains extends RecursiveTask<long[]> {
+        private final long seed;
+        private final int maxSamples;
+        private final long deadline;
+        private final int from;
+        private final int to;
+
+        Chains(long seed, int maxSamples, long deadline, int from, int to) {
+            this.seed = seed;
+            this.maxSamples = maxSamples;
+            this.deadline = deadline;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from == 1)
+                return run(from);
+            int middle = (from + to) >>> 1;
+            Chains left = new Chains(seed, maxSamples, deadline, from, middle);
+            left.fork();
+            long[] counts = new Chains(seed, maxSamples, deadline, middle, to).compute();
+            long[] other = left.join();
+            for (int i = 0; i < counts.length; i++)
+                counts[i] += other[i];
+            return counts;
+        }
+
+        private long[] run(int id) {
+            long[] counts = new long[config.getCells() + 1];
+            int quota = maxSamples / CHAINS + (id < maxSamples % CHAINS ? 1 : 0);
+            Chain chain = new Chain(Simulator.gameSeed(seed, id));
+            if (quota == 0 || !chain.start(deadline))
+                return counts;
+            if (chain.kinds.length == 0) {
+                counts[counts.length - 1] = quota;
+                return counts;
+            }
+            int sweep = chain.kinds.length;
+            for (long steps = 1 - (long) BURN_IN * sweep; counts[counts.length - 1] < quota; steps++) {
+                chain.step();
+                if (steps > 0 && steps % sweep == 0) {
+                    chain.count(counts);
+                    counts[counts.length - 1]++;
+                }
+                if (steps % STEPS_PER_CHECK == 0 && System.nanoTime() > deadline)
+                    break;
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+
+/**
+ * Fires at every cell of the board once, in a random order
+ */
+public class RandomShooter implements Shooter {
+    private int[] order = new int[0];
+    private int next;
+
+    @Override
+    public void start(BoardConfig config, Random random) {
+        if (order.length != config.getCells())
+            order = new int[config.getCells()];
+        // the shuffle starts from scratch so that a game never depends on the previous one
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int cell = order[i];
+            order[i] = order[j];
+            order[j] = cell;
+        }
+        next = 0;
+    }
+
+    @Override
+    public int nextShot() {
+        return order[next++];
+    }
+
+    @Override
+    public void shotResult(int cell, boolean hit, IShip sunk) {
+        // a random shooter learns nothing
+    }
+}
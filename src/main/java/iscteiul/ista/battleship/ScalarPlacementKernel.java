@@ -0,0 +1,42 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * The {@link PlacementKernel} testing one placement at a time and adding it
+ * to the counts of its cells
+ */
+final class ScalarPlacementKernel extends PlacementKernel {
+    @Override
+    int getLanes() {
+        return 1;
+    }
+
+    @Override
+    void count(PlacementMasks placements, int from, int to, long[] blocked, long[] hits, int weight,
+               long[] counts) {
+        long[] masks = placements.getMasks();
+        int stride = placements.getStride();
+        int words = placements.getWords();
+        for (int p = from; p < to; p++) {
+            long bad = 0;
+            long touch = hits == null ? -1 : 0;
+            for (int w = 0; w < words; w++) {
+                long mask = masks[w * stride + p];
+                bad |= mask & blocked[w];
+                if (hits != null)
+                    touch |= mask & hits[w];
+            }
+            if (bad != 0 || touch == 0)
+                continue;
+            for (int w = 0; w < words; w++)
+                addCells(masks[w * stride + p], w, weight, counts);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
@@ -21,7 +21,7 @@ public abstract class Ship implements IShip {
      * @param pos
      * @return
      */
-    static Ship buildShip(String shipKind, Compass bearing, Position pos) {
+    static Ship buildShip(String shipKind, Compass bearing, IPosition pos) {
         Ship s;
         switch (shipKind) {
             case BARCA:
@@ -46,25 +46,82 @@ public abstract class Ship implements IShip {
     }
 
 
+    /**
+     * @param s a ship
+     * @return the number of cells of the ship
+     */
+    static int cellCount(IShip s) {
+        return s instanceof Ship ? ((Ship) s).cellCount() : s.getPositions().size();
+    }
+
+    /**
+     * @param s a ship
+     * @param i the index of a cell of the ship
+     * @return the row of that cell, without building position objects for
+     * ships backed by a shape
+     */
+    static int cellRow(IShip s, int i) {
+        return s instanceof Ship ? ((Ship) s).getCellRow(i) : s.getPositions().get(i).getRow();
+    }
+
+    /**
+     * @param s a ship
+     * @param i the index of a cell of the ship
+     * @return the column of that cell, without building position objects for
+     * ships backed by a shape
+     */
+    static int cellColumn(IShip s, int i) {
+        return s instanceof Ship ? ((Ship) s).getCellColumn(i) : s.getPositions().get(i).getColumn();
+    }
+
+
     private String category;
     private Compass bearing;
     private IPosition pos;
+    private ShipShape shape;
     protected List<IPosition> positions;
 
+    /**
+     * For ships backed by a shape: bit i is set once cell i has been hit, and
+     * the number of cells not hit yet
+     */
+    private int hits;
+    private int remaining;
+    private Fleet fleet;
+
 
     /**
+     * Builds a ship whose positions are added by the subclass
+     *
      * @param category
      * @param bearing
      * @param pos
      */
     public Ship(String category, Compass bearing, IPosition pos) {
+        this(category, bearing, pos, null);
+    }
+
+    /**
+     * Builds a ship laid out by a shared shape; its position objects are only
+     * created if someone asks for them
+     *
+     * @param category
+     * @param bearing
+     * @param pos      the anchor of the shape
+     * @param shape    the shape of the ship, or null if the subclass adds the
+     *                 positions itself, as to a list that starts empty
+     */
+    protected Ship(String category, Compass bearing, IPosition pos, ShipShape shape) {
         assert bearing != null;
         assert pos != null;
 
         this.category = category;
         this.bearing = bearing;
         this.pos = pos;
-        positions = new ArrayList<>();
+        this.shape = shape;
+        this.remaining = shape != null ? shape.getSize() : 0;
+        if (shape == null)
+            positions = new ArrayList<>();
     }
 
     /*
@@ -81,9 +138,112 @@ public abstract class Ship implements IShip {
      * @return the positions
      */
     public List<IPosition> getPositions() {
+        if (positions == null) {
+            positions = new ArrayList<>(shape.getSize());
+            for (int i = 0; i < shape.getSize(); i++)
+                positions.add(new Cell(i));
+        }
         return positions;
     }
 
+    /**
+     * @return the shape of the ship, or null if its positions were added by hand
+     */
+    ShipShape getShape() {
+        return shape;
+    }
+
+    int cellCount() {
+        return shape != null ? shape.getSize() : positions.size();
+    }
+
+    int getCellRow(int i) {
+        return shape != null ? pos.getRow() + shape.getRowOffset(i) : positions.get(i).getRow();
+    }
+
+    int getCellColumn(int i) {
+        return shape != null ? pos.getColumn() + shape.getColumnOffset(i) : positions.get(i).getColumn();
+    }
+
+    /**
+     * Makes the ship report its sinking to the given fleet, which keeps count
+     * of its floating ships. A ship reports to the first fleet it joins only.
+     *
+     * @return false if the ship already reports to another fleet
+     */
+    boolean joinFleet(Fleet fleet) {
+        if (this.fleet != null && this.fleet != fleet)
+            return false;
+        this.fleet = fleet;
+        return true;
+    }
+
+    /**
+     * Marks cell i of a shaped ship as hit
+     *
+     * @param i the index of the cell in the shape
+     */
+    private void hit(int i) {
+        if ((hits & (1 << i)) != 0)
+            return;
+        hits |= 1 << i;
+        remaining--;
+        if (remaining == 0 && fleet != null)
+            fleet.shipSunk();
+    }
+
+    /**
+     * Takes back the hit on cell i of a shaped ship
+     *
+     * @param i the index of the cell in the shape
+     */
+    private void unhit(int i) {
+        if ((hits & (1 << i)) == 0)
+            return;
+        hits &= ~(1 << i);
+        remaining++;
+        if (remaining == 1 && fleet != null)
+            fleet.shipRefloated();
+    }
+
+    /**
+     * A position of a shaped ship, created on demand, whose hit state is the
+     * ship's own
+     */
+    private final class Cell extends Position {
+        private final int index;
+
+        private Cell(int index) {
+            super(getCellRow(index), getCellColumn(index));
+            this.index = index;
+        }
+
+        @Override
+        public void occupy() {
+            // a ship cell is always occupied
+        }
+
+        @Override
+        public void shoot() {
+            hit(index);
+        }
+
+        @Override
+        void unshoot() {
+            unhit(index);
+        }
+
+        @Override
+        public boolean isOccupied() {
+            return true;
+        }
+
+        @Override
+        public boolean isHit() {
+            return (hits & (1 << index)) != 0;
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -111,6 +271,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public boolean stillFloating() {
+        if (shape != null)
+            return remaining > 0;
         for (int i = 0; i < getSize(); i++)
             if (!getPositions().get(i).isHit())
                 return true;
@@ -124,6 +286,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getTopMostPos() {
+        if (shape != null)
+            return pos.getRow() + shape.getMinRow();
         int top = getPositions().get(0).getRow();
         for (int i = 1; i < getSize(); i++)
             if (getPositions().get(i).getRow() <= top)
@@ -138,6 +302,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getBottomMostPos() {
+        if (shape != null)
+            return pos.getRow() + shape.getMaxRow();
         int bottom = getPositions().get(0).getRow();
         for (int i = 1; i < getSize(); i++)
             if (getPositions().get(i).getRow() > bottom)
@@ -152,6 +318,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getLeftMostPos() {
+        if (shape != null)
+            return pos.getColumn() + shape.getMinColumn();
         int left = getPositions().get(0).getColumn();
         for (int i = 1; i < getSize(); i++)
             if (getPositions().get(i).getColumn() <= left)
@@ -166,6 +334,8 @@ public abstract class Ship implements IShip {
      */
     @Override
     public int getRightMostPos() {
+        if (shape != null)
+            return pos.getColumn() + shape.getMaxColumn();
         int right = getPositions().get(0).getColumn();
         for (int i = 1; i < getSize(); i++)
             if (getPositions().get(i).getColumn() > right)
@@ -182,8 +352,20 @@ public abstract class Ship implements IShip {
     public boolean occupies(IPosition pos) {
         assert pos != null;
 
+        return occupies(pos.getRow(), pos.getColumn());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IShip#occupies(int, int)
+     */
+    @Override
+    public boolean occupies(int row, int column) {
+        if (shape != null)
+            return shape.indexOf(row - pos.getRow(), column - pos.getColumn()) >= 0;
         for (int i = 0; i < getSize(); i++)
-            if (getPositions().get(i).equals(pos))
+            if (getPositions().get(i).getRow() == row && getPositions().get(i).getColumn() == column)
                 return true;
         return false;
     }
@@ -197,6 +379,14 @@ public abstract class Ship implements IShip {
     public boolean tooCloseTo(IShip other) {
         assert other != null;
 
+        if (shape != null && other instanceof Ship && ((Ship) other).shape != null) {
+            Ship ship = (Ship) other;
+            for (int i = 0; i < ship.cellCount(); i++)
+                if (tooCloseTo(ship.getCellRow(i), ship.getCellColumn(i)))
+                    return true;
+            return false;
+        }
+
         Iterator<IPosition> otherPos = other.getPositions().iterator();
         while (otherPos.hasNext())
             if (tooCloseTo(otherPos.next()))
@@ -212,12 +402,24 @@ public abstract class Ship implements IShip {
      */
     @Override
     public boolean tooCloseTo(IPosition pos) {
+        if (shape != null)
+            return tooCloseTo(pos.getRow(), pos.getColumn());
         for (int i = 0; i < this.getSize(); i++)
             if (getPositions().get(i).isAdjacentTo(pos))
                 return true;
         return false;
     }
 
+    private boolean tooCloseTo(int row, int column) {
+        if (row < getTopMostPos() - 1 || row > getBottomMostPos() + 1 || column < getLeftMostPos() - 1
+                || column > getRightMostPos() + 1)
+            return false;
+        for (int i = 0; i < cellCount(); i++)
+            if (Math.abs(getCellRow(i) - row) <= 1 && Math.abs(getCellColumn(i) - column) <= 1)
+                return true;
+        return false;
+    }
+
 
     /*
      * (non-Javadoc)
@@ -228,12 +430,51 @@ public abstract class Ship implements IShip {
     public void shoot(IPosition pos) {
         assert pos != null;
 
+        shoot(pos.getRow(), pos.getColumn());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see battleship.IShip#shoot(int, int)
+     */
+    @Override
+    public void shoot(int row, int column) {
+        if (shape != null) {
+            int i = shape.indexOf(row - pos.getRow(), column - pos.getColumn());
+            if (i >= 0)
+                hit(i);
+            return;
+        }
         for (IPosition position : getPositions()) {
-            if (position.equals(pos))
+            if (position.getRow() == row && position.getColumn() == column)
                 position.shoot();
         }
     }
 
+    /**
+     * Takes back a shot at a cell of the given ship, for {@link Game#undo()}
+     *
+     * @param s      a ship hit at the cell
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     */
+    static void unshoot(IShip s, int row, int column) {
+        if (s instanceof Ship && ((Ship) s).shape != null) {
+            Ship ship = (Ship) s;
+            int i = ship.shape.indexOf(row - ship.pos.getRow(), column - ship.pos.getColumn());
+            if (i >= 0)
+                ship.unhit(i);
+            return;
+        }
+        for (IPosition position : s.getPositions())
+            if (position.getRow() == row && position.getColumn() == column) {
+                if (!(position instanceof Position))
+                    throw new UnsupportedOperationException("ERROR! cannot take back a shot at " + position);
+                ((Position) position).unshoot();
+            }
+    }
+
 
     @Override
     public String toString() {
@@ -0,0 +1,54 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * The kinds of ships a fleet is made of, with the category name shown to the
+ * players, the keyword used to build them and the number of cells they take.
+ */
+public enum ShipKind {
+    BARGE("Barca", "barca", 1), CARAVEL("Caravela", "caravela", 2), CARRACK("Nau", "nau", 3),
+    FRIGATE("Fragata", "fragata", 4), GALLEON("Galeao", "galeao", 5);
+
+    private static final ShipKind[] KINDS = values();
+
+    private final String category;
+    private final String keyword;
+    private final int size;
+
+    ShipKind(String category, String keyword, int size) {
+        this.category = category;
+        this.keyword = keyword;
+        this.size = size;
+    }
+
+    /**
+     * @return the category name, as returned by {@link IShip#getCategory()}
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * @return the keyword understood by {@link Ship#buildShip}
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param category a ship category, as returned by {@link IShip#getCategory()}
+     * @return the matching kind, or null if there is none
+     */
+    static ShipKind fromCategory(String category) {
+        for (ShipKind kind : KINDS)
+            if (kind.category.equals(category))
+                return kind;
+        return null;
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * The immutable footprint of a ship kind with a given bearing: the offsets of
+ * its cells from the anchor position, their bounding box and a bit mask of
+ * the cells inside that box. Shapes are built once and shared by every ship,
+ * so a ship only needs its anchor and a reference to its shape.
+ */
+public final class ShipShape {
+    private static final ShipShape[][] SHAPES = new ShipShape[ShipKind.values().length][Compass.values().length];
+
+    static {
+        for (Compass bearing : Compass.values())
+            register(ShipKind.BARGE, bearing, new int[][]{{0, 0}});
+
+        for (ShipKind kind : new ShipKind[]{ShipKind.CARAVEL, ShipKind.CARRACK, ShipKind.FRIGATE}) {
+            int[][] vertical = new int[kind.getSize()][];
+            int[][] horizontal = new int[kind.getSize()][];
+            for (int i = 0; i < kind.getSize(); i++) {
+                vertical[i] = new int[]{i, 0};
+                horizontal[i] = new int[]{0, i};
+            }
+            register(kind, Compass.NORTH, vertical);
+            register(kind, Compass.SOUTH, vertical);
+            register(kind, Compass.EAST, horizontal);
+            register(kind, Compass.WEST, horizontal);
+        }
+
+        register(ShipKind.GALLEON, Compass.NORTH, new int[][]{{0, 0}, {0, 1}, {0, 2}, {1, 1}, {2, 1}});
+        register(ShipKind.GALLEON, Compass.SOUTH, new int[][]{{0, 0}, {1, 0}, {2, -1}, {2, 0}, {2, 1}});
+        register(ShipKind.GALLEON, Compass.EAST, new int[][]{{0, 0}, {1, -2}, {1, -1}, {1, 0}, {2, 0}});
+        register(ShipKind.GALLEON, Compass.WEST, new int[][]{{0, 0}, {1, 0}, {1, 1}, {1, 2}, {2, 0}});
+    }
+
+    private static void register(ShipKind kind, Compass bearing, int[][] offsets) {
+        SHAPES[kind.ordinal()][bearing.ordinal()] = new ShipShape(kind, bearing, offsets);
+    }
+
+    /**
+     * @param kind    the kind of ship
+     * @param bearing the bearing of the ship
+     * @return the shared shape, or null if the kind cannot have that bearing
+     */
+    public static ShipShape of(ShipKind kind, Compass bearing) {
+        if (kind == null || bearing == null)
+            return null;
+        return SHAPES[kind.ordinal()][bearing.ordinal()];
+    }
+
+    // -----------------------------------------------------
+
+    private final ShipKind kind;
+    private final Compass bearing;
+    private final int[] rows;
+    private final int[] columns;
+    private final int minRow;
+    private final int maxRow;
+    private final int minColumn;
+    private final int maxColumn;
+    private final long mask;
+    private final byte[] cellByBit;
+
+    private ShipShape(ShipKind kind, Compass bearing, int[][] offsets) {
+        assert offsets.length == kind.getSize();
+
+        this.kind = kind;
+        this.bearing = bearing;
+        rows = new int[offsets.length];
+        columns = new int[offsets.length];
+        int top = Integer.MAX_VALUE, bottom = Integer.MIN_VALUE, left = Integer.MAX_VALUE, right = Integer.MIN_VALUE;
+        for (int i = 0; i < offsets.length; i++) {
+            rows[i] = offsets[i][0];
+            columns[i] = offsets[i][1];
+            top = Math.min(top, rows[i]);
+            bottom = Math.max(bottom, rows[i]);
+            left = Math.min(left, columns[i]);
+            right = Math.max(right, columns[i]);
+        }
+        minRow = top;
+        maxRow = bottom;
+        minColumn = left;
+        maxColumn = right;
+
+        assert getHeight() * getWidth() <= 64;
+        long bits = 0;
+        cellByBit = new byte[getHeight() * getWidth()];
+        for (int i = 0; i < offsets.length; i++) {
+            int bit = (rows[i] - minRow) * getWidth() + (columns[i] - minColumn);
+            bits |= 1L << bit;
+            cellByBit[bit] = (byte) i;
+        }
+        mask = bits;
+    }
+
+    public ShipKind getKind() {
+        return kind;
+    }
+
+    public Compass getBearing() {
+        return bearing;
+    }
+
+    public int getSize() {
+        return rows.length;
+    }
+
+    /**
+     * @param i the index of a cell of the ship
+     * @return the row offset of that cell from the anchor
+     */
+    public int getRowOffset(int i) {
+        return rows[i];
+    }
+
+    /**
+     * @param i the index of a cell of the ship
+     * @return the column offset of that cell from the anchor
+     */
+    public int getColumnOffset(int i) {
+        return columns[i];
+    }
+
+    public int getMinRow() {
+        return minRow;
+    }
+
+    public int getMaxRow() {
+        return maxRow;
+    }
+
+    public int getMinColumn() {
+        return minColumn;
+    }
+
+    public int getMaxColumn() {
+        return maxColumn;
+    }
+
+    public int getHeight() {
+        return maxRow - minRow + 1;
+    }
+
+    public int getWidth() {
+        return maxColumn - minColumn + 1;
+    }
+
+    /**
+     * @return the cells of the shape inside its bounding box, one bit per cell
+     * at {@code (rowOffset - minRow) * width + (columnOffset - minColumn)}
+     */
+    public long getMask() {
+        return mask;
+    }
+
+    /**
+     * @param rowOffset    a row offset from the anchor
+     * @param columnOffset a column offset from the anchor
+     * @return the index of the cell of the shape at those offsets, or -1 if the
+     * shape does not cover it
+     */
+    public int indexOf(int rowOffset, int columnOffset) {
+        int r = rowOffset - minRow;
+        int c = columnOffset - minColumn;
+        if (r < 0 || r >= getHeight() || c < 0 || c >= getWidth())
+            return -1;
+        int bit = r * getWidth() + c;
+        return (mask & (1L << bit)) != 0 ? cellByBit[bit] : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + kind.getCategory() + " " + bearing + "]";
+    }
+}
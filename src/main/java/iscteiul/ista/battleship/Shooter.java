@@ -0,0 +1,35 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+
+/**
+ * A strategy choosing where to fire in a game it cannot see, given only what
+ * its own shots revealed. A shooter plays one game at a time and is told when
+ * a new one starts.
+ */
+public interface Shooter {
+    /**
+     * Forgets the previous game and starts a new one
+     *
+     * @param config the board and rules of the game
+     * @param random the source of randomness for this game
+     */
+    void start(BoardConfig config, Random random);
+
+    /**
+     * @return the cell to fire at next, as numbered by the codec of the board
+     */
+    int nextShot();
+
+    /**
+     * Tells the shooter what its last shot did
+     *
+     * @param cell the cell fired at
+     * @param hit  true if the shot hit a ship
+     * @param sunk the ship the shot sank, or null
+     */
+    void shotResult(int cell, boolean hit, IShip sunk);
+}
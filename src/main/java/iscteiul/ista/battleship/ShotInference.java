@@ -0,0 +1,542 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Works out which cells not fired at yet surely hold a ship, and which surely
+ * hold none, from what the shots revealed and the ships still afloat.
+ *
+ * A placement of a ship afloat is possible when none of its cells is known
+ * water or part of a sunk ship, and no hit or forced cell lies next to it
+ * without being part of it, since ships do not touch. A cell no possible
+ * placement covers is water. The ship over a hit is one of the possible
+ * placements covering the hit, so the cells they all share hold a ship, and
+ * the cells all their halos share are water. Hits too far apart for any ship
+ * afloat to span both belong to different ships; when that already accounts
+ * for every ship afloat, no ship lies away from the hits. Each finding may rule out more
+ * placements, so the rules run again until nothing changes. Nothing here
+ * assumes ships are straight: a galleon's T has cells diagonal to each other,
+ * so the cells diagonal to a hit only turn to water once no galleon is left
+ * that could reach them.
+ *
+ * The possible anchors of each footprint are found for every cell at once,
+ * by intersecting shifted copies of the masks of the board.
+ */
+public class ShotInference {
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    private final BoardConfig config;
+    private final CellCodec codec;
+    private final FleetComposition composition;
+    private final int words;
+    private final long[] board;
+    private final Footprint[][] footprints;
+    /**
+     * Per column shift from -{@code reach} to {@code reach}, the cells whose
+     * column stays on the board once shifted
+     */
+    private final long[][] columnsInside;
+    private final int reach;
+
+    private final long[] shot;
+    private final long[] water;
+    private final long[] sunk;
+    private final long[] hits;
+    private final long[] forced;
+    private final int[] afloat = new int[ShipKind.values().length];
+
+    private final long[] allowed;
+    private final long[] occupied;
+    private final long[] possible;
+    private final long[] scratch;
+    private final int[] cellVotes;
+    private final int[] haloVotes;
+    /**
+     * The cells whose votes {@link #settle(int)} has to read and clear
+     */
+    private final int[] touched;
+    /**
+     * Per cell, the group {@link #clusters()} put it in, or -1
+     */
+    private final int[] clusterOf;
+    private final int[] pending;
+
+    /**
+     * @param config      the board of the game
+     * @param composition the ships of the fleet under attack
+     */
+    public ShotInference(BoardConfig config, FleetComposition composition) {
+        if (config.getCells() > BoardConfig.DENSE_CELLS)
+            throw new IllegalArgumentException("ERROR! cannot infer on a board of " + config.getCells() + " cells");
+        this.config = config;
+        this.codec = config.getCodec();
+        this.composition = composition;
+        this.words = (config.getCells() + 63) >>> 6;
+        board = new long[words];
+        for (int cell = 0; cell < config.getCells(); cell++)
+            board[cell >>> 6] |= 1L << cell;
+
+        int widest = 0;
+        footprints = new Footprint[ShipKind.values().length][];
+        for (ShipKind kind : ShipKind.values()) {
+            List<Footprint> distinct = new ArrayList<>();
+            List<ShipShape> shapes = new ArrayList<>();
+            for (Compass bearing : BEARINGS) {
+                ShipShape shape = ShipShape.of(kind, bearing);
+                boolean seen = false;
+                for (ShipShape other : shapes)
+                    seen |= FleetGenerator.sameFootprint(shape, other);
+                if (!seen) {
+                    shapes.add(shape);
+                    distinct.add(new Footprint(shape));
+                    widest = Math.max(widest, Math.max(-shape.getMinColumn(), shape.getMaxColumn()) + 1);
+                }
+            }
+            footprints[kind.ordinal()] = distinct.toArray(new Footprint[0]);
+        }
+        reach = widest;
+        columnsInside = new long[2 * reach + 1][words];
+        for (int shift = -reach; shift <= reach; shift++)
+            for (int cell = 0; cell < config.getCells(); cell++) {
+                int column = codec.column(cell) + shift;
+                if (column >= 0 && column < config.getColumns())
+                    columnsInside[shift + reach][cell >>> 6] |= 1L << cell;
+            }
+
+        shot = new long[words];
+        water = new long[words];
+        sunk = new long[words];
+        hits = new long[words];
+        forced = new long[words];
+        allowed = new long[words];
+        occupied = new long[words];
+        possible = new long[words];
+        scratch = new long[words];
+        cellVotes = new int[config.getCells()];
+        haloVotes = new int[config.getCells()];
+        touched = new int[config.getCells()];
+        clusterOf = new int[config.getCells()];
+        Arrays.fill(clusterOf, -1);
+        pending = new int[config.getCells()];
+        reset();
+    }
+
+    /**
+     * Forgets every shot
+     */
+    public void reset() {
+        Arrays.fill(shot, 0);
+        Arrays.fill(water, 0);
+        Arrays.fill(sunk, 0);
+        Arrays.fill(hits, 0);
+        Arrays.fill(forced, 0);
+        for (ShipKind kind : ShipKind.values())
+            afloat[kind.ordinal()] = composition.getCount(kind);
+        propagate();
+    }
+
+    /**
+     * Takes in what a shot revealed, as told to a {@link Shooter}, and draws
+     * every conclusion it leads to
+     *
+     * @param cell  the cell fired at
+     * @param isHit true if the shot hit a ship
+     * @param ship  the ship the shot sank, or null
+     */
+    public void observe(int cell, boolean isHit, IShip ship) {
+        if (!codec.isInside(cell))
+            return;
+        set(shot, cell);
+        if (ship != null) {
+            afloat[ShipKind.fromCategory(ship.getCategory()).ordinal()]--;
+            for (int i = 0; i < Ship.cellCount(ship); i++) {
+                int part = codec.encode(Ship.cellRow(ship, i), Ship.cellColumn(ship, i));
+                set(sunk, part);
+                clear(hits, part);
+            }
+            for (int i = 0; i < Ship.cellCount(ship); i++)
+                for (int r = Ship.cellRow(ship, i) - 1; r <= Ship.cellRow(ship, i) + 1; r++)
+                    for (int c = Ship.cellColumn(ship, i) - 1; c <= Ship.cellColumn(ship, i) + 1; c++)
+                        if (codec.isInside(r, c) && !get(sunk, codec.encode(r, c)))
+                            set(water, codec.encode(r, c));
+        } else if (isHit) {
+            set(hits, cell);
+        } else {
+            set(water, cell);
+        }
+        clear(forced, cell);
+        propagate();
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return true if the cell was not fired at and surely holds a ship
+     */
+    public boolean isForced(int cell) {
+        return get(forced, cell);
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return true if the cell was not fired at and surely holds no ship
+     */
+    public boolean isImpossible(int cell) {
+        return get(water, cell) && !get(shot, cell);
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return true if the cell was fired at
+     */
+    boolean isShot(int cell) {
+        return get(shot, cell);
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return true if the cell was hit and its ship is still afloat
+     */
+    boolean isOpenHit(int cell) {
+        return get(hits, cell);
+    }
+
+    /**
+     * @param cell a cell of the board
+     * @return true if the cell is part of a sunk ship
+     */
+    boolean isSunk(int cell) {
+        return get(sunk, cell);
+    }
+
+    /**
+     * @param kind a kind of ship
+     * @return the ships of that kind still afloat
+     */
+    int getAfloat(ShipKind kind) {
+        return afloat[kind.ordinal()];
+    }
+
+    /**
+     * @return the board of the game
+     */
+    BoardConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the cells not fired at that surely hold a ship
+     */
+    public BitSet getForced() {
+        return BitSet.valueOf(forced);
+    }
+
+    /**
+     * @param from the first cell to look at
+     * @return the first cell from the given one that is not fired at and
+     * surely holds a ship, or -1
+     */
+    public int nextForced(int from) {
+        return nextSetBit(forced, null, from);
+    }
+
+    /**
+     * @param from the first cell to look at
+     * @return the first cell from the given one that is not fired at and
+     * surely holds no ship, or -1
+     */
+    public int nextImpossible(int from) {
+        return nextSetBit(water, shot, from);
+    }
+
+    /**
+     * @return the cells not fired at that surely hold no ship
+     */
+    public BitSet getImpossible() {
+        long[] impossible = new long[words];
+        for (int w = 0; w < words; w++)
+            impossible[w] = water[w] & ~shot[w];
+        return BitSet.valueOf(impossible);
+    }
+
+    /**
+     * Applies the rules until they find nothing new
+     */
+    private void propagate() {
+        boolean changed = true;
+        while (changed) {
+            for (int w = 0; w < words; w++) {
+                allowed[w] = board[w] & ~water[w] & ~sunk[w];
+                occupied[w] = hits[w] | forced[w];
+                possible[w] = 0;
+            }
+            boolean noSpare = clusters() >= ships();
+            for (ShipKind kind : ShipKind.values())
+                if (afloat[kind.ordinal()] > 0)
+                    for (Footprint footprint : footprints[kind.ordinal()]) {
+                        footprint.findAnchors(noSpare);
+                        footprint.cover(possible);
+                    }
+
+            changed = false;
+            for (int w = 0; w < words; w++) {
+                long dead = allowed[w] & ~possible[w] & ~occupied[w];
+                if (dead != 0) {
+                    water[w] |= dead;
+                    changed = true;
+                }
+            }
+            for (int w = 0; w < words; w++)
+                for (long bits = occupied[w]; bits != 0; bits &= bits - 1)
+                    changed |= settle((w << 6) + Long.numberOfTrailingZeros(bits));
+        }
+    }
+
+    /**
+     * @return the ships afloat
+     */
+    private int ships() {
+        int ships = 0;
+        for (int count : afloat)
+            ships += count;
+        return ships;
+    }
+
+    /**
+     * Groups the occupied cells, joining two cells whenever some ship afloat
+     * could span both
+     *
+     * @return the groups, none of which can share a ship with another
+     */
+    private int clusters() {
+        int span = 0;
+        for (ShipKind kind : ShipKind.values())
+            if (afloat[kind.ordinal()] > 0)
+                for (Footprint footprint : footprints[kind.ordinal()])
+                    span = Math.max(span, footprint.span);
+        int groups = 0;
+        for (int w = 0; w < words; w++)
+            for (long bits = occupied[w]; bits != 0; bits &= bits - 1) {
+                int first = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (clusterOf[first] >= 0)
+                    continue;
+                clusterOf[first] = groups;
+                int size = 0;
+                pending[size++] = first;
+                while (size > 0) {
+                    int cell = pending[--size];
+                    int row = codec.row(cell);
+                    int column = codec.column(cell);
+                    for (int r = Math.max(0, row - span); r <= Math.min(config.getRows() - 1, row + span); r++)
+                        for (int c = Math.max(0, column - span); c <= Math.min(config.getColumns() - 1, column + span);
+                             c++) {
+                            int other = codec.encode(r, c);
+                            if (get(occupied, other) && clusterOf[other] < 0) {
+                                clusterOf[other] = groups;
+                                pending[size++] = other;
+                            }
+                        }
+                }
+                groups++;
+            }
+        for (int w = 0; w < words; w++)
+            for (long bits = occupied[w]; bits != 0; bits &= bits - 1)
+                clusterOf[(w << 6) + Long.numberOfTrailingZeros(bits)] = -1;
+        return groups;
+    }
+
+    /**
+     * Marks the cells shared by every possible placement over an occupied
+     * cell as forced, and the cells shared by all their halos as water
+     *
+     * @return true if a cell changed
+     */
+    private boolean settle(int cell) {
+        int candidates = 0;
+        int count = 0;
+        for (ShipKind kind : ShipKind.values()) {
+            if (afloat[kind.ordinal()] == 0)
+                continue;
+            for (Footprint footprint : footprints[kind.ordinal()])
+                for (int k = 0; k < footprint.rowOffsets.length; k++) {
+                    int row = codec.row(cell) - footprint.rowOffsets[k];
+                    int column = codec.column(cell) - footprint.columnOffsets[k];
+                    if (!codec.isInside(row, column) || !get(footprint.anchors, codec.encode(row, column)))
+                        continue;
+                    candidates++;
+                    count = footprint.vote(row, column, count);
+                }
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < count; i++) {
+            int c = touched[i];
+            if (cellVotes[c] == candidates && !get(shot, c) && !get(forced, c)) {
+                set(forced, c);
+                changed = true;
+            }
+            if (haloVotes[c] == candidates && !get(water, c)) {
+                set(water, c);
+                changed = true;
+            }
+            cellVotes[c] = 0;
+            haloVotes[c] = 0;
+        }
+        return changed;
+    }
+
+    /**
+     * @return the word w of the mask moved by a number of rows and columns,
+     * so that cell a holds cell a + (rows, columns), or 0 off the board
+     */
+    private long shifted(long[] mask, int w, int rows, int columns) {
+        int from = (w << 6) + rows * config.getColumns() + columns;
+        int word = from >> 6;
+        int bit = from & 63;
+        long low = word >= 0 && word < words ? mask[word] : 0;
+        long value = low;
+        if (bit != 0) {
+            long high = word + 1 >= 0 && word + 1 < words ? mask[word + 1] : 0;
+            value = (low >>> bit) | (high << (64 - bit));
+        }
+        return value & columnsInside[columns + reach][w] & board[w];
+    }
+
+    /**
+     * @param but a mask whose cells are skipped, or null
+     * @return the first cell from the given one in the mask and not in the
+     * other, or -1
+     */
+    private int nextSetBit(long[] mask, long[] but, int from) {
+        if (from < 0)
+            from = 0;
+        for (int w = from >>> 6; w < words; w++) {
+            long word = but == null ? mask[w] : mask[w] & ~but[w];
+            if (w == from >>> 6)
+                word &= -1L << from;
+            if (word != 0)
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        return -1;
+    }
+
+    private static boolean get(long[] mask, int cell) {
+        return (mask[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    private static void set(long[] mask, int cell) {
+        mask[cell >>> 6] |= 1L << cell;
+    }
+
+    private static void clear(long[] mask, int cell) {
+        mask[cell >>> 6] &= ~(1L << cell);
+    }
+
+    /**
+     * A footprint of a kind of ship, with the cells around it, and its
+     * anchors still possible
+     */
+    private final class Footprint {
+        private final int[] rowOffsets;
+        private final int[] columnOffsets;
+        private final int[] ringRows;
+        private final int[] ringColumns;
+        private final long[] domain = new long[words];
+        private final long[] anchors = new long[words];
+        /**
+         * The most rows or columns two of its cells lie apart
+         */
+        private final int span;
+
+        Footprint(ShipShape shape) {
+            int size = shape.getSize();
+            span = Math.max(shape.getHeight(), shape.getWidth()) - 1;
+            rowOffsets = new int[size];
+            columnOffsets = new int[size];
+            for (int i = 0; i < size; i++) {
+                rowOffsets[i] = shape.getRowOffset(i);
+                columnOffsets[i] = shape.getColumnOffset(i);
+            }
+            List<int[]> ring = new ArrayList<>();
+            for (int r = shape.getMinRow() - 1; r <= shape.getMaxRow() + 1; r++)
+                for (int c = shape.getMinColumn() - 1; c <= shape.getMaxColumn() + 1; c++) {
+                    boolean part = shape.indexOf(r, c) >= 0;
+                    boolean near = false;
+                    for (int i = 0; i < size; i++)
+                        near |= Math.abs(r - rowOffsets[i]) <= 1 && Math.abs(c - columnOffsets[i]) <= 1;
+                    if (near && !part)
+                        ring.add(new int[]{r, c});
+                }
+            ringRows = new int[ring.size()];
+            ringColumns = new int[ring.size()];
+            for (int i = 0; i < ring.size(); i++) {
+                ringRows[i] = ring.get(i)[0];
+                ringColumns[i] = ring.get(i)[1];
+            }
+            for (int row = -shape.getMinRow(); row < config.getRows() - shape.getMaxRow(); row++)
+                for (int column = -shape.getMinColumn(); column < config.getColumns() - shape.getMaxColumn();
+                     column++)
+                    set(domain, codec.encode(row, column));
+        }
+
+        /**
+         * Keeps the anchors whose cells are all allowed and whose ring holds
+         * no occupied cell
+         *
+         * @param noSpare true if the placement must cover an occupied cell
+         */
+        void findAnchors(boolean noSpare) {
+            for (int w = 0; w < words; w++) {
+                long word = domain[w];
+                long covers = 0;
+                for (int i = 0; i < rowOffsets.length && word != 0; i++) {
+                    word &= shifted(allowed, w, rowOffsets[i], columnOffsets[i]);
+                    if (noSpare)
+                        covers |= shifted(occupied, w, rowOffsets[i], columnOffsets[i]);
+                }
+                if (noSpare)
+                    word &= covers;
+                for (int i = 0; i < ringRows.length && word != 0; i++)
+                    word &= ~shifted(occupied, w, ringRows[i], ringColumns[i]);
+                anchors[w] = word;
+            }
+        }
+
+        /**
+         * Adds the cells covered by the anchors to a mask
+         */
+        void cover(long[] cells) {
+            for (int i = 0; i < rowOffsets.length; i++)
+                for (int w = 0; w < words; w++) {
+                    scratch[w] = shifted(anchors, w, -rowOffsets[i], -columnOffsets[i]);
+                    cells[w] |= scratch[w];
+                }
+        }
+
+        /**
+         * Counts the cells and halo cells of the placement at an anchor
+         *
+         * @param count the cells touched so far
+         * @return the cells touched now
+         */
+        int vote(int row, int column, int count) {
+            for (int i = 0; i < rowOffsets.length; i++) {
+                int c = codec.encode(row + rowOffsets[i], column + columnOffsets[i]);
+                if (cellVotes[c]++ == 0 && haloVotes[c] == 0)
+                    touched[count++] = c;
+            }
+            for (int i = 0; i < ringRows.length; i++)
+                if (codec.isInside(row + ringRows[i], column + ringColumns[i])) {
+                    int c = codec.encode(row + ringRows[i], column + ringColumns[i]);
+                    if (haloVotes[c]++ == 0 && cellVotes[c] == 0)
+                        touched[count++] = c;
+                }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+
+/**
+ * What a batch of simulated games added up to: how many shots each finished
+ * game took, kept as a histogram, and the hits, repeated and invalid shots of
+ * all the games. Statistics of parts of a batch are merged into the whole.
+ *
+ * The histogram has a bucket per number of shots below
+ * {@link #DENSE_SHOTS}; longer games, as on large boards, are kept sorted by
+ * their number of shots, one entry per number seen, so the histogram grows
+ * with the games played rather than with the board.
+ */
+public final class SimulationStats {
+    /**
+     * Numbers of shots below this have a bucket of their own
+     */
+    static final int DENSE_SHOTS = 1 << 10;
+
+    private final long[] shotsToWin = new long[DENSE_SHOTS];
+    private int[] longShots = new int[0];
+    private long[] longCounts = new long[0];
+    private int longSize;
+    private long totalShotsToWin;
+    private long games;
+    private long unfinished;
+    private long shots;
+    private long hits;
+    private long repeatedShots;
+    private long invalidShots;
+
+    /**
+     * Adds a game
+     *
+     * @param shots    the number of times the shooter fired
+     * @param finished true if every ship was sunk
+     * @param game     the game that was played
+     */
+    void record(int shots, boolean finished, IGame game) {
+        games++;
+        this.shots += shots;
+        if (finished) {
+            addWins(shots, 1);
+            totalShotsToWin += shots;
+        } else {
+            unfinished++;
+        }
+        hits += game.getHits();
+        repeatedShots += game.getRepeatedShots();
+        invalidShots += game.getInvalidShots();
+    }
+
+    /**
+     * Counts games won in the given number of shots
+     */
+    private void addWins(int shots, long count) {
+        if (shots < DENSE_SHOTS) {
+            shotsToWin[shots] += count;
+            return;
+        }
+        int at = Arrays.binarySearch(longShots, 0, longSize, shots);
+        if (at < 0) {
+            at = -at - 1;
+            if (longSize == longShots.length) {
+                longShots = Arrays.copyOf(longShots, Math.max(8, 2 * longSize));
+                longCounts = Arrays.copyOf(longCounts, longShots.length);
+            }
+            System.arraycopy(longShots, at, longShots, at + 1, longSize - at);
+            System.arraycopy(longCounts, at, longCounts, at + 1, longSize - at);
+            longShots[at] = shots;
+            longCounts[at] = 0;
+            longSize++;
+        }
+        longCounts[at] += count;
+    }
+
+    /**
+     * Adds the games of other statistics to these
+     */
+    void merge(SimulationStats other) {
+        for (int i = 0; i < shotsToWin.length; i++)
+            shotsToWin[i] += other.shotsToWin[i];
+        for (int i = 0; i < other.longSize; i++)
+            addWins(other.longShots[i], other.longCounts[i]);
+        totalShotsToWin += other.totalShotsToWin;
+        games += other.games;
+        unfinished += other.unfinished;
+        shots += other.shots;
+        hits += other.hits;
+        repeatedShots += other.repeatedShots;
+        invalidShots += other.invalidShots;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return the number of games stopped before every ship was sunk
+     */
+    public long getUnfinishedGames() {
+        return unfinished;
+    }
+
+    /**
+     * @return the number of times the shooter fired, over all games
+     */
+    public long getShots() {
+        return shots;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getRepeatedShots() {
+        return repeatedShots;
+    }
+
+    public long getInvalidShots() {
+        return invalidShots;
+    }
+
+    /**
+     * @param shots a number of shots
+     * @return the number of finished games won in exactly that many shots
+     */
+    public long getGamesWonIn(int shots) {
+        if (shots < 0)
+            return 0;
+        if (shots < DENSE_SHOTS)
+            return shotsToWin[shots];
+        int at = Arrays.binarySearch(longShots, 0, longSize, shots);
+        return at >= 0 ? longCounts[at] : 0;
+    }
+
+    /**
+     * @return the mean number of shots a finished game took, or NaN if none
+     * finished
+     */
+    public double getMeanShotsToWin() {
+        long finished = games - unfinished;
+        if (finished == 0)
+            return Double.NaN;
+        return (double) totalShotsToWin / finished;
+    }
+
+    /**
+     * @param fraction a number between 0 and 1
+     * @return the least number of shots within which that fraction of the
+     * finished games was won, or -1 if none finished
+     */
+    public int getShotsToWinPercentile(double fraction) {
+        long finished = games - unfinished;
+        if (finished == 0)
+            return -1;
+        long needed = Math.min(finished, Math.max(1, (long) Math.ceil(fraction * finished)));
+        long seen = 0;
+        for (int i = 0; i < shotsToWin.length; i++) {
+            seen += shotsToWin[i];
+            if (seen >= needed)
+                return i;
+        }
+        for (int i = 0; i < longSize; i++) {
+            seen += longCounts[i];
+            if (seen >= needed)
+                return longShots[i];
+        }
+        return longShots[longSize - 1];
+    }
+
+    public int getMinShotsToWin() {
+        return getShotsToWinPercentile(0);
+    }
+
+    public int getMaxShotsToWin() {
+        return getShotsToWinPercentile(1);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof SimulationStats))
+            return false;
+        SimulationStats that = (SimulationStats) other;
+        return Arrays.equals(shotsToWin, that.shotsToWin)
+                && Arrays.equals(longShots, 0, longSize, that.longShots, 0, that.longSize)
+                && Arrays.equals(longCounts, 0, longSize, that.longCounts, 0, that.longSize) && games == that.games
+                && unfinished == that.unfinished && shots == that.shots && hits == that.hits
+                && repeatedShots == that.repeatedShots && invalidShots == that.invalidShots;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(shotsToWin) * 31 + Long.hashCode(shots);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games (%d unfinished): shots to win mean %.2f, min %d, median %d, max %d; "
+                        + "%d hits, %d repeated, %d invalid", games, unfinished, getMeanShotsToWin(),
+                getMinShotsToWin(), getShotsToWinPercentile(0.5), getMaxShotsToWin(), hits, repeatedShots,
+                invalidShots);
+    }
+}
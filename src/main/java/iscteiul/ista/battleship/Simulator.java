@@ -0,0 +1,125 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Plays random fleets to the end against a {@link Shooter}, without anyone
+ * watching, and adds up how the games went. Games are split across a
+ * fork/join pool; each game draws its fleet and shots from a random seeded
+ * with the seed of the run and the number of the game, so a run gives the
+ * same statistics however it is split and on any number of cores.
+ */
+public class Simulator {
+    /**
+     * Games played by a task without splitting it further
+     */
+    static final int GAMES_PER_TASK = 256;
+
+    private final FleetGenerator fleets;
+    private final Supplier<? extends Shooter> shooters;
+    private final int maxShots;
+
+    /**
+     * @param fleets   the generator of the fleets to play against
+     * @param shooters makes a shooter for each task; a shooter plays every game
+     *                 of its task, one after the other
+     */
+    public Simulator(FleetGenerator fleets, Supplier<? extends Shooter> shooters) {
+        this.fleets = fleets;
+        this.shooters = shooters;
+        // enough for any shooter that does not fire twice at a cell
+        this.maxShots = 2 * fleets.getConfig().getCells();
+    }
+
+    /**
+     * @return the most shots a game may take before it is stopped unfinished
+     */
+    public int getMaxShots() {
+        return maxShots;
+    }
+
+    /**
+     * Plays games on the common fork/join pool
+     *
+     * @param games the number of games to play
+     * @param seed  the seed of the run
+     * @return the statistics of the games
+     */
+    public SimulationStats run(long games, long seed) {
+        return run(games, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param games the number of games to play
+     * @param seed  the seed of the run
+     * @param pool  the pool to play them on
+     * @return the statistics of the games
+     */
+    public SimulationStats run(long games, long seed, ForkJoinPool pool) {
+        return pool.invoke(new Games(0, games, seed));
+    }
+
+    /**
+     * @param seed the seed of a run
+     * @param game the number of a game of the run
+     * @return the seed of that game
+     */
+    static long gameSeed(long seed, long game) {
+        return SplitMix64.mix(seed, game);
+    }
+
+    /**
+     * Plays one game to the end, or until it takes too many shots
+     */
+    void play(Random random, Shooter shooter, SimulationStats stats) {
+        IGame game = new Game(fleets.generate(random));
+        shooter.start(fleets.getConfig(), random);
+        int shots = 0;
+        while (game.getRemainingShips() > 0 && shots < maxShots) {
+            int cell = shooter.nextShot();
+            int hits = game.getHits();
+            IShip sunk = game.fire(cell);
+            shots++;
+            shooter.shotResult(cell, game.getHits() > hits, sunk);
+        }
+        stats.record(shots, game.getRemainingShips() == 0, game);
+    }
+
+    private final class Games extends RecursiveTask<SimulationStats> {
+        private final long from;
+        private final long to;
+        private final long seed;
+
+        Games(long from, long to, long seed) {
+            this.from = from;
+            this.to = to;
+            this.seed = seed;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                SimulationStats stats = new SimulationStats();
+                Shooter shooter = shooters.get();
+                Random random = new Random();
+                for (long game = from; game < to; game++) {
+                    random.setSeed(gameSeed(seed, game));
+                    play(random, shooter, stats);
+                }
+                return stats;
+            }
+            long middle = (from + to) >>> 1;
+            Games left = new Games(from, middle, seed);
+            left.fork();
+            SimulationStats stats = new Games(middle, to, seed).compute();
+            stats.merge(left.join());
+            return stats;
+        }
+    }
+}
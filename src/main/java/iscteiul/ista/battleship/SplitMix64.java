@@ -0,0 +1,28 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * The SplitMix64 generator, used as a function: the n-th value of the stream
+ * started from a seed, computed directly. It derives the seeds of the games
+ * of a run and the Zobrist keys, which must agree across runs.
+ */
+final class SplitMix64 {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private SplitMix64() {
+    }
+
+    /**
+     * @param seed the seed of the stream
+     * @param n    the position in the stream, from 0
+     * @return value n of the stream
+     */
+    static long mix(long seed, long n) {
+        long z = seed + (n + 1) * GOLDEN_GAMMA;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
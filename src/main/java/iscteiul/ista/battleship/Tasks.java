@@ -44,7 +44,7 @@ public class Tasks {
             Ship s = readShip(in);
             if (s != null)
                 for (int i = 0; i < NUMBER_SHOTS; i++) {
-                    Position p = readPosition(in);
+                    IPosition p = readPosition(in);
                     LOGGER.info("{} {}", p, s.occupies(p));
                 }
         }
@@ -185,7 +185,7 @@ public class Tasks {
      */
     static Ship readShip(Scanner in) {
         String shipKind = in.next();
-        Position pos = readPosition(in);
+        IPosition pos = readPosition(in);
         char c = in.next().charAt(0);
         Compass bearing = Compass.charToCompass(c);
         return Ship.buildShip(shipKind, bearing, pos);
@@ -195,12 +195,13 @@ public class Tasks {
      * This operation allows reading a position in the map
      *
      * @param in The scanner to read from
-     * @return The position that has been read
+     * @return The position that has been read, shared with every other read of
+     * the same cell
      */
-    static Position readPosition(Scanner in) {
+    static IPosition readPosition(Scanner in) {
         int row = in.nextInt();
         int column = in.nextInt();
-        return new Position(row, column);
+        return Coordinate.of(row, column);
     }
 
     /**
@@ -0,0 +1,130 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A {@link CellSet} for large boards, which are almost all empty water. The
+ * board is cut in tiles of {@value #TILE_SIZE}x{@value #TILE_SIZE} cells, one
+ * long per tile row, and a tile is only allocated when one of its cells is
+ * added. Memory therefore grows with the cells added, never with the size of
+ * the board, and iterating only visits the tiles in use.
+ */
+final class TiledCellSet implements CellSet {
+    static final int TILE_SIZE = 64;
+    private static final int TILE_SHIFT = 6;
+
+    private final CellCodec codec;
+    private final int tileColumns;
+
+    /**
+     * The tiles in use, in the order they were first touched, their keys
+     * ({@code tileRow * tileColumns + tileColumn}) and, for each key, its
+     * index in the tiles plus one
+     */
+    private long[][] tiles;
+    private int[] tileKeys;
+    private int tileCount;
+    private final HashCellMap tileIndex;
+
+    private int size;
+
+    TiledCellSet(CellCodec codec) {
+        this.codec = codec;
+        this.tileColumns = (codec.getColumns() + TILE_SIZE - 1) >>> TILE_SHIFT;
+        tiles = new long[4][];
+        tileKeys = new int[4];
+        tileIndex = new HashCellMap();
+    }
+
+    private int tileKey(int row, int column) {
+        return (row >>> TILE_SHIFT) * tileColumns + (column >>> TILE_SHIFT);
+    }
+
+    /**
+     * @return the tile holding the cell, or null if none of its cells is set
+     */
+    private long[] tileAt(int row, int column) {
+        int id = tileIndex.get(tileKey(row, column));
+        return id == 0 ? null : tiles[id - 1];
+    }
+
+    @Override
+    public boolean contains(int cell) {
+        int row = codec.row(cell);
+        int column = codec.column(cell);
+        long[] tile = tileAt(row, column);
+        return tile != null && (tile[row & (TILE_SIZE - 1)] & (1L << column)) != 0;
+    }
+
+    @Override
+    public boolean add(int cell) {
+        int row = codec.row(cell);
+        int column = codec.column(cell);
+        long[] tile = tileAt(row, column);
+        if (tile == null) {
+            if (tileCount == tiles.length) {
+                tiles = Arrays.copyOf(tiles, tileCount * 2);
+                tileKeys = Arrays.copyOf(tileKeys, tileCount * 2);
+            }
+            tile = new long[TILE_SIZE];
+            tiles[tileCount] = tile;
+            tileKeys[tileCount] = tileKey(row, column);
+            tileIndex.put(tileKeys[tileCount], ++tileCount);
+        }
+        long bit = 1L << column;
+        if ((tile[row & (TILE_SIZE - 1)] & bit) != 0)
+            return false;
+        tile[row & (TILE_SIZE - 1)] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Clears the cell, keeping its tile for when it is added again
+     */
+    @Override
+    public boolean remove(int cell) {
+        int row = codec.row(cell);
+        int column = codec.column(cell);
+        long[] tile = tileAt(row, column);
+        long bit = 1L << column;
+        if (tile == null || (tile[row & (TILE_SIZE - 1)] & bit) == 0)
+            return false;
+        tile[row & (TILE_SIZE - 1)] &= ~bit;
+        size--;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of tiles allocated so far
+     */
+    int getTileCount() {
+        return tileCount;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < tileCount; i++) {
+            int top = tileKeys[i] / tileColumns * TILE_SIZE;
+            int left = tileKeys[i] % tileColumns * TILE_SIZE;
+            for (int r = 0; r < TILE_SIZE; r++)
+                for (long word = tiles[i][r]; word != 0; word &= word - 1)
+                    action.accept(codec.encode(top + r, left + Long.numberOfTrailingZeros(word)));
+        }
+    }
+
+    @Override
+    public long rowWord(CellCodec codec, int row, int column) {
+        long[] tile = tileAt(row, column);
+        return tile == null ? 0 : tile[row & (TILE_SIZE - 1)];
+    }
+}
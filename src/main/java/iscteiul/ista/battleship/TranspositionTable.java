@@ -0,0 +1,138 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size table of search results keyed by 64-bit state hashes, such as
+ * {@link Zobrist} hashes, shared by any number of threads without locks.
+ *
+ * Each entry takes three longs: a check word, the value, and a word holding
+ * the depth of the entry and the search that stored it. The check word is the
+ * exclusive or of the key with a mix of the other two, and is written last. A
+ * reader that sees an entry half written by another thread, or the value of
+ * one store with the depth of another, finds the check word does not match
+ * and takes it as missing, so no entry is ever read torn. The mix is not an
+ * exclusive or: with one, two stores racing for an entry could leave words
+ * whose differences cancel out, and check as a third key.
+ *
+ * A key may live in any of the {@value #WAYS} entries of its bucket. A new key
+ * takes the entry of its bucket left by the oldest search, then the one with
+ * the least depth, which is meant to be the work that went into the value.
+ */
+public final class TranspositionTable {
+    /**
+     * The entries per bucket
+     */
+    public static final int WAYS = 4;
+    private static final int WORDS = 3;
+
+    private final AtomicLongArray entries;
+    private final int bucketMask;
+    private final AtomicInteger search = new AtomicInteger(1);
+
+    /**
+     * @param capacity the entries to hold, rounded up to a power of two of at
+     *                 least {@value #WAYS}
+     */
+    public TranspositionTable(int capacity) {
+        if (capacity < 1 || capacity > 1 << 28)
+            throw new IllegalArgumentException("ERROR! invalid capacity " + capacity);
+        int buckets = Math.max(WAYS, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1) / WAYS;
+        entries = new AtomicLongArray(buckets * WAYS * WORDS);
+        bucketMask = buckets - 1;
+    }
+
+    /**
+     * @return the entries the table holds
+     */
+    public int getCapacity() {
+        return entries.length() / WORDS;
+    }
+
+    /**
+     * Starts a new search, so that the entries of the earlier ones are the
+     * first to be replaced
+     */
+    public void newSearch() {
+        search.incrementAndGet();
+    }
+
+    /**
+     * @param key     the hash of a state
+     * @param missing the value to return if the table does not hold the key
+     * @return the value stored for the key, or {@code missing}
+     */
+    public long probe(long key, long missing) {
+        int first = bucket(key);
+        for (int way = 0; way < WAYS; way++) {
+            int entry = first + way * WORDS;
+            long check = entries.get(entry);
+            long value = entries.get(entry + 1);
+            long meta = entries.get(entry + 2);
+            if (meta != 0 && (check ^ seal(value, meta)) == key)
+                return value;
+        }
+        return missing;
+    }
+
+    /**
+     * Stores the value of a state, in place of the entry the state had, or
+     * else of the entry of its bucket least worth keeping
+     *
+     * @param key   the hash of a state
+     * @param value its value
+     * @param depth the work that went into the value, from 0
+     */
+    public void store(long key, long value, int depth) {
+        if (depth < 0)
+            throw new IllegalArgumentException("ERROR! invalid depth " + depth);
+        int now = search.get();
+        long meta = (long) now << 32 | depth;
+        int first = bucket(key);
+        int victim = first;
+        long victimScore = Long.MAX_VALUE;
+        for (int way = 0; way < WAYS; way++) {
+            int entry = first + way * WORDS;
+            long check = entries.get(entry);
+            long oldValue = entries.get(entry + 1);
+            long oldMeta = entries.get(entry + 2);
+            if (oldMeta == 0 || (check ^ seal(oldValue, oldMeta)) == key) {
+                victim = entry;
+                break;
+            }
+            // entries of older searches go first, then the shallowest
+            long score = ((long) ((int) (oldMeta >>> 32) == now ? 1 : 0) << 32) | (oldMeta & 0xFFFF_FFFFL);
+            if (score < victimScore) {
+                victim = entry;
+                victimScore = score;
+            }
+        }
+        entries.set(victim, 0);
+        entries.set(victim + 1, value);
+        entries.set(victim + 2, meta);
+        entries.set(victim, key ^ seal(value, meta));
+    }
+
+    /**
+     * @return the word the key of an entry is checked against
+     */
+    private static long seal(long value, long meta) {
+        return SplitMix64.mix(value, meta);
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++)
+            entries.set(i, 0);
+    }
+
+    private int bucket(long key) {
+        return ((int) (key >>> 32 ^ key) & bucketMask) * WAYS * WORDS;
+    }
+}
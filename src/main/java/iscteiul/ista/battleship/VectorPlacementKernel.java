@@ -0,0 +1,81 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The {@link PlacementKernel} testing a vector of placements at a time. The
+ * counts are kept bit-sliced: each lane of each word of the board has a
+ * column of counter planes, plane i holding bit i of the count of every
+ * cell of the word, and a possible placement is added with a ripple of
+ * ands and exclusive ors, never looking at its cells one by one. The planes
+ * are added to the counts at the end, a set bit of plane i adding 2^i.
+ *
+ * Only built by the {@code vector} Maven profile, and only loaded by
+ * {@link PlacementKernel#create()} when the vector module is present.
+ */
+final class VectorPlacementKernel extends PlacementKernel {
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    /**
+     * {@link PlacementKernel#create()} only hands out this kernel if the
+     * placements of a kind fill whole vectors
+     */
+    @Override
+    int getLanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    void count(PlacementMasks placements, int from, int to, long[] blocked, long[] hits, int weight,
+               long[] counts) {
+        long[] masks = placements.getMasks();
+        int stride = placements.getStride();
+        int words = placements.getWords();
+        int lanes = SPECIES.length();
+        // a lane counts at most (to - from) / lanes placements per cell
+        int planes = Long.SIZE - Long.numberOfLeadingZeros((to - from) / lanes);
+        long[] counters = new long[words * planes * lanes];
+        LongVector zero = LongVector.zero(SPECIES);
+
+        for (int p = from; p < to; p += lanes) {
+            LongVector bad = zero;
+            LongVector touch = hits == null ? zero.not() : zero;
+            for (int w = 0; w < words; w++) {
+                LongVector mask = LongVector.fromArray(SPECIES, masks, w * stride + p);
+                bad = bad.or(mask.and(blocked[w]));
+                if (hits != null)
+                    touch = touch.or(mask.and(hits[w]));
+            }
+            VectorMask<Long> keep = bad.compare(VectorOperators.EQ, 0).and(touch.compare(VectorOperators.NE, 0));
+            if (!keep.anyTrue())
+                continue;
+            LongVector kept = zero.blend(-1L, keep);
+            for (int w = 0; w < words; w++) {
+                LongVector carry = LongVector.fromArray(SPECIES, masks, w * stride + p).and(kept);
+                for (int i = 0, at = w * planes * lanes; i < planes; i++, at += lanes) {
+                    LongVector plane = LongVector.fromArray(SPECIES, counters, at);
+                    plane.lanewise(VectorOperators.XOR, carry).intoArray(counters, at);
+                    carry = plane.and(carry);
+                    if (!carry.compare(VectorOperators.NE, 0).anyTrue())
+                        break;
+                }
+            }
+        }
+
+        for (int w = 0; w < words; w++)
+            for (int i = 0; i < planes; i++)
+                for (int lane = 0; lane < lanes; lane++)
+                    addCells(counters[(w * planes + i) * lanes + lane], w, (long) weight << i, counts);
+    }
+
+    @Override
+    public String toString() {
+        return "vector " + SPECIES;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ *
+ */
+package iscteiul.ista.battleship;
+
+/**
+ * Zobrist keys of what the shots of a game revealed. The hash of a state is
+ * the exclusive or of the keys of its cells fired at, its cells hit, and its
+ * ships sunk, so a shot updates it with one or two exclusive ors whatever the
+ * order the shots came in. States reached along different paths hash alike.
+ *
+ * The keys are drawn from the cell number, or the kind and count of the ship
+ * sunk, by a fixed mixing function rather than kept in tables, so they cost
+ * no memory on boards of any size and agree across runs.
+ */
+public final class Zobrist {
+    private static final long SHOT = 0x5A0B_7715_5C31_0001L;
+    private static final long HIT = 0x5A0B_7715_5C31_0002L;
+    private static final long SUNK_CELL = 0x5A0B_7715_5C31_0003L;
+    private static final long SUNK_KIND = 0x5A0B_7715_5C31_0004L;
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param cell a cell fired at
+     * @return its key
+     */
+    public static long shot(int cell) {
+        return SplitMix64.mix(SHOT, cell);
+    }
+
+    /**
+     * @param cell a cell holding a ship that was hit
+     * @return its key
+     */
+    public static long hit(int cell) {
+        return SplitMix64.mix(HIT, cell);
+    }
+
+    /**
+     * @param cell a cell of a ship that was sunk
+     * @return its key
+     */
+    public static long sunkCell(int cell) {
+        return SplitMix64.mix(SUNK_CELL, cell);
+    }
+
+    /**
+     * @param kind   the kind of a ship that was sunk
+     * @param before the ships of that kind sunk before it
+     * @return its key
+     */
+    public static long sunk(ShipKind kind, int before) {
+        return SplitMix64.mix(SUNK_KIND, ((long) kind.ordinal() << 32) + before);
+    }
+}
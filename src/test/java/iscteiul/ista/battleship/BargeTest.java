@@ -43,4 +43,17 @@ class BargeTest {
         assertEquals(1, barge2.getSize());
         assertEquals(1, barge3.getSize());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testBargeWithoutAShapeStillHasItsPosition() {
+        // no barge shape has an unknown bearing, yet the barge takes its one cell as it always has
+        Position position = new Position(3, 4);
+        Barge barge = new Barge(Compass.UNKNOWN, position);
+        assertEquals(1, barge.getPositions().size());
+        assertEquals(position, barge.getPositions().get(0));
+        assertTrue(barge.occupies(new Position(3, 4)));
+        assertTrue(barge.stillFloating());
+        barge.shoot(new Position(3, 4));
+        assertFalse(barge.stillFloating());
+    }
+}
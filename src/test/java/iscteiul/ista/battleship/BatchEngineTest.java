@@ -0,0 +1,156 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchEngineTest {
+    private static final String[] KINDS = {"barca", "caravela", "nau", "fragata", "galeao"};
+
+    private static Fleet randomFleet(Random random) {
+        Fleet fleet = new Fleet();
+        for (int i = 0; i < 200 && fleet.getShips().size() < IFleet.FLEET_SIZE; i++)
+            fleet.addShip(Ship.buildShip(KINDS[random.nextInt(KINDS.length)], Compass.values()[random.nextInt(4)],
+                    new Position(random.nextInt(10), random.nextInt(10))));
+        return fleet;
+    }
+
+    /**
+     * @return for each game, the 100 cells of the board in a random order
+     */
+    private static int[][] shuffledCells(Random random, int games) {
+        int[][] orders = new int[games][100];
+        for (int[] order : orders) {
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int cell = order[i];
+                order[i] = order[j];
+                order[j] = cell;
+            }
+        }
+        return orders;
+    }
+
+    @Test
+    void countsLikeGame() {
+        int games = 64;
+        Random random = new Random(13);
+        BatchEngine engine = new BatchEngine(BoardConfig.STANDARD, games);
+        Game[] reference = new Game[games];
+        for (int g = 0; g < games; g++) {
+            Fleet fleet = randomFleet(random);
+            engine.setFleet(g, fleet);
+            reference[g] = new Game(copyOf(fleet));
+        }
+
+        int[] targets = new int[games];
+        for (int volley = 0; volley < 200; volley++) {
+            int expectedSunk = 0;
+            for (int g = 0; g < games; g++) {
+                targets[g] = random.nextInt(120) - 10;
+                if (reference[g].fire(targets[g] < 0 || targets[g] >= 100 ? new Position(-1, 0)
+                        : CellCodec.STANDARD.decode(targets[g])) != null)
+                    expectedSunk++;
+            }
+            assertEquals(expectedSunk, engine.fire(targets));
+        }
+        for (int g = 0; g < games; g++) {
+            assertEquals(reference[g].getShots().size(), engine.getShots(g));
+            assertEquals(reference[g].getHits(), engine.getHits(g));
+            assertEquals(reference[g].getSunkShips(), engine.getSunkShips(g));
+            assertEquals(reference[g].getInvalidShots(), engine.getInvalidShots(g));
+            assertEquals(reference[g].getRepeatedShots(), engine.getRepeatedShots(g));
+            assertEquals(reference[g].getRemainingShips(), engine.getRemainingShips(g));
+            for (IPosition shot : reference[g].getShots())
+                assertTrue(engine.isFired(g, CellCodec.STANDARD.encode(shot)));
+        }
+    }
+
+    private static Fleet copyOf(Fleet fleet) {
+        Fleet copy = new Fleet();
+        for (IShip s : fleet.getShips())
+            assertTrue(copy.addShip(Ship.buildShip(ShipKind.fromCategory(s.getCategory()).getKeyword(),
+                    s.getBearing(), s.getPosition())));
+        return copy;
+    }
+
+    @Test
+    void setFleet_restartsTheGame() {
+        BatchEngine engine = new BatchEngine(BoardConfig.STANDARD, 2);
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Caravel(Compass.EAST, new Position(0, 0)));
+        engine.setFleet(0, fleet);
+        engine.setFleet(1, new Fleet());
+        assertEquals(1, engine.getRemainingShips(0));
+        assertEquals(0, engine.getRemainingShips(1));
+
+        assertEquals(0, engine.fire(new int[]{0, 0}));
+        assertEquals(1, engine.fire(new int[]{1, 100}));
+        assertEquals(0, engine.getRemainingShips(0));
+        assertEquals(1, engine.getInvalidShots(1));
+
+        engine.setFleet(0, fleet);
+        assertEquals(1, engine.getRemainingShips(0));
+        assertEquals(0, engine.getShots(0));
+        assertFalse(engine.isFired(0, 0));
+        assertEquals(1, engine.getShots(1));
+
+        assertThrows(IllegalArgumentException.class, () -> engine.fire(new int[]{0}));
+        assertThrows(IllegalArgumentException.class, () -> engine.setFleet(0, new Fleet(BoardConfig.square(20, 10))));
+    }
+
+    /**
+     * Plays whole games, every cell in a random order, and prints how many
+     * games per second one core gets through, against one Game per game.
+     */
+    @Test
+    @Tag("benchmark")
+    void throughput() {
+        int games = 20_000;
+        Random random = new Random(2);
+        Fleet[] fleets = new Fleet[64];
+        for (int i = 0; i < fleets.length; i++)
+            fleets[i] = randomFleet(random);
+        int[][] orders = shuffledCells(random, games);
+
+        BatchEngine engine = new BatchEngine(BoardConfig.STANDARD, games);
+        int[] targets = new int[games];
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int g = 0; g < games; g++)
+                engine.setFleet(g, fleets[g % fleets.length]);
+            long sunk = 0;
+            for (int volley = 0; volley < 100; volley++) {
+                for (int g = 0; g < games; g++)
+                    targets[g] = orders[g][volley];
+                sunk += engine.fire(targets);
+            }
+            double batchSeconds = (System.nanoTime() - start) / 1e9;
+
+            long expected = 0;
+            for (int g = 0; g < games; g++)
+                expected += fleets[g % fleets.length].getShips().size();
+            assertEquals(expected, sunk);
+
+            start = System.nanoTime();
+            long gameSunk = 0;
+            for (int g = 0; g < games; g++) {
+                Game game = new Game(copyOf(fleets[g % fleets.length]));
+                for (int volley = 0; volley < 100; volley++)
+                    if (game.fire(orders[g][volley]) != null)
+                        gameSunk++;
+            }
+            double gameSeconds = (System.nanoTime() - start) / 1e9;
+            assertEquals(expected, gameSunk);
+
+            if (round == 4)
+                System.out.printf("BatchEngine: %,.0f games/s per core; Game objects: %,.0f games/s%n",
+                        games / batchSeconds, games / gameSeconds);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardFleetTest {
+
+    private BitboardFleet fleet;
+
+    @BeforeEach
+    void setUp() {
+        fleet = new BitboardFleet();
+    }
+
+    @Test
+    void addShip_indexesEveryCell() {
+        Frigate f = new Frigate(Compass.EAST, new Position(2, 3));
+        assertTrue(fleet.addShip(f));
+
+        for (IPosition p : f.getPositions())
+            assertSame(f, fleet.shipAt(new Position(p.getRow(), p.getColumn())));
+        assertNull(fleet.shipAt(new Position(3, 3)));
+        assertNull(fleet.shipAt(new Position(-1, 3)));
+        assertEquals(4, fleet.getOccupied().cardinality());
+    }
+
+    @Test
+    void addShip_rejectsOutsideBoard() {
+        assertFalse(fleet.addShip(new Frigate(Compass.EAST, new Position(0, 7))));
+        assertFalse(fleet.addShip(new Galleon(Compass.SOUTH, new Position(0, 0))));
+        assertTrue(fleet.getShips().isEmpty());
+    }
+
+    @Test
+    void addShip_rejectsTouchingShips_likeFleet() {
+        assertTrue(fleet.addShip(new Carrack(Compass.NORTH, new Position(4, 4))));
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(7, 5)))); // diagonal
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(5, 3)))); // side
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(8, 4))));
+        assertEquals(2, fleet.getShips().size());
+    }
+
+    @Test
+    void addShip_respectsFleetSize() {
+        int added = 0;
+        for (int r = 0; r < 10; r += 2)
+            for (int c = 0; c < 10; c += 2)
+                if (fleet.addShip(new Barge(Compass.NORTH, new Position(r, c))))
+                    added++;
+        assertEquals(IFleet.FLEET_SIZE + 1, added);
+    }
+
+    @Test
+    void filters() {
+        Caravel a = new Caravel(Compass.NORTH, new Position(0, 0));
+        Caravel b = new Caravel(Compass.NORTH, new Position(0, 5));
+        Barge c = new Barge(Compass.NORTH, new Position(9, 9));
+        fleet.addShip(a);
+        fleet.addShip(b);
+        fleet.addShip(c);
+
+        assertEquals(2, fleet.getShipsLike("Caravela").size());
+        c.shoot(new Position(9, 9));
+        assertEquals(2, fleet.getFloatingShips().size());
+        assertFalse(fleet.getFloatingShips().contains(c));
+    }
+}
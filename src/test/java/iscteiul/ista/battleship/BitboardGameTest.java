@@ -0,0 +1,77 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardGameTest {
+
+    private Caravel caravel;
+    private BitboardGame game;
+
+    @BeforeEach
+    void setUp() {
+        BitboardFleet fleet = new BitboardFleet();
+        caravel = new Caravel(Compass.EAST, new Position(0, 0));
+        fleet.addShip(caravel);
+        fleet.addShip(new Barge(Compass.NORTH, new Position(5, 5)));
+        game = new BitboardGame(fleet);
+    }
+
+    @Test
+    void fire_countsLikeGame() {
+        assertNull(game.fire(new Position(10, 0)));
+        assertNull(game.fire(new Position(0, -1)));
+        assertEquals(2, game.getInvalidShots());
+
+        assertNull(game.fire(new Position(0, 0)));
+        assertEquals(1, game.getHits());
+        assertNull(game.fire(new Position(0, 0)));
+        assertEquals(1, game.getRepeatedShots());
+
+        assertNull(game.fire(new Position(3, 3)));
+        assertEquals(1, game.getHits());
+        assertEquals(2, game.getRemainingShips());
+
+        assertSame(caravel, game.fire(new Position(0, 1)));
+        assertEquals(2, game.getHits());
+        assertEquals(1, game.getSunkShips());
+        assertEquals(1, game.getRemainingShips());
+        assertFalse(caravel.stillFloating());
+    }
+
+    @Test
+    void getShots_keepsFiringOrder() {
+        game.fire(new Position(4, 4));
+        game.fire(new Position(0, 0));
+        game.fire(new Position(4, 4));
+        game.fire(new Position(-1, 0));
+
+        List<IPosition> shots = game.getShots();
+        assertEquals(List.of(new Position(4, 4), new Position(0, 0)), shots);
+        assertEquals(2, game.getShotBoard().cardinality());
+        assertEquals(1, game.getHitBoard().cardinality());
+    }
+
+    @Test
+    void printing() {
+        game.fire(new Position(9, 9));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            game.printValidShots();
+            game.printFleet();
+        } finally {
+            System.setOut(original);
+        }
+        String printed = out.toString();
+        assertTrue(printed.contains("X"));
+        assertEquals(3, printed.chars().filter(ch -> ch == '#').count());
+    }
+}
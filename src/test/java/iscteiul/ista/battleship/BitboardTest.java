@@ -0,0 +1,98 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitboardTest {
+
+    @Test
+    void setGetAndClear_acrossBothWords() {
+        Bitboard b = new Bitboard();
+        assertTrue(b.isEmpty());
+
+        b.set(0);
+        b.set(63);
+        b.set(64);
+        b.set(99);
+        assertTrue(b.get(0) && b.get(63) && b.get(64) && b.get(99));
+        assertFalse(b.get(1));
+        assertEquals(4, b.cardinality());
+
+        b.clear(63);
+        assertFalse(b.get(63));
+        assertEquals(3, b.cardinality());
+
+        b.clear();
+        assertTrue(b.isEmpty());
+    }
+
+    @Test
+    void index_isRowMajor() {
+        assertEquals(0, Bitboard.index(0, 0));
+        assertEquals(9, Bitboard.index(0, 9));
+        assertEquals(10, Bitboard.index(1, 0));
+        assertEquals(99, Bitboard.index(9, 9));
+        assertTrue(Bitboard.isInside(9, 9));
+        assertFalse(Bitboard.isInside(10, 0));
+        assertFalse(Bitboard.isInside(0, -1));
+    }
+
+    @Test
+    void nextSetBit_iteratesInOrder() {
+        Bitboard b = new Bitboard();
+        b.set(5);
+        b.set(70);
+        assertEquals(5, b.nextSetBit(0));
+        assertEquals(70, b.nextSetBit(6));
+        assertEquals(-1, b.nextSetBit(71));
+    }
+
+    @Test
+    void setOperations() {
+        Bitboard a = new Bitboard();
+        a.set(1);
+        a.set(80);
+        Bitboard b = new Bitboard();
+        b.set(80);
+
+        assertTrue(a.intersects(b));
+        assertTrue(a.containsAll(b));
+        assertFalse(b.containsAll(a));
+
+        Bitboard c = a.copy();
+        c.andNot(b);
+        assertFalse(c.get(80));
+        assertTrue(c.get(1));
+
+        c.or(b);
+        assertEquals(a, c);
+        c.and(b);
+        assertEquals(b, c);
+    }
+
+    @Test
+    void dilate_matchesAdjacencyRule() {
+        int[][] seeds = {{0, 0}, {0, 9}, {9, 0}, {9, 9}, {6, 3}, {6, 4}, {5, 9}, {4, 0}};
+        for (int[] seed : seeds) {
+            Bitboard b = new Bitboard();
+            b.set(Bitboard.index(seed[0], seed[1]));
+            b.dilate();
+
+            Position origin = new Position(seed[0], seed[1]);
+            for (int r = 0; r < 10; r++)
+                for (int c = 0; c < 10; c++)
+                    assertEquals(origin.isAdjacentTo(new Position(r, c)), b.get(Bitboard.index(r, c)),
+                            "seed " + origin + " cell " + r + "," + c);
+        }
+    }
+
+    @Test
+    void toString_drawsTheBoard() {
+        Bitboard b = new Bitboard();
+        b.set(Bitboard.index(0, 1));
+        String[] rows = b.toString().split("\n");
+        assertEquals(10, rows.length);
+        assertEquals(".#........", rows[0]);
+    }
+}
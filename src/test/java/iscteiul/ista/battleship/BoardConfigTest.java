@@ -0,0 +1,95 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoardConfigTest {
+
+    @Test
+    void standard() {
+        BoardConfig standard = BoardConfig.STANDARD;
+        assertEquals(IFleet.BOARD_SIZE, standard.getRows());
+        assertEquals(IFleet.BOARD_SIZE, standard.getColumns());
+        assertEquals(FleetComposition.STANDARD.size(), standard.getFleetSize());
+        assertSame(CellCodec.STANDARD, standard.getCodec());
+        assertTrue(standard.isDense());
+        assertSame(standard, new Fleet().getConfig());
+        assertEquals(BoardConfig.square(10, 11), standard);
+        assertNotEquals(BoardConfig.square(10, 10), standard);
+    }
+
+    @Test
+    void storageFollowsOccupancy() {
+        assertTrue(BoardConfig.square(1000, 10_000).isDense());
+        assertTrue(BoardConfig.square(40, 11).isDense());
+        // a few ships on a wide board, or any fleet on a huge one, are stored sparsely
+        assertFalse(BoardConfig.square(1000, 10).isDense());
+        assertFalse(BoardConfig.square(10_000, 1_000_000).isDense());
+        assertTrue(BoardConfig.square(1000, 10_000).newCellSet() instanceof DenseCellSet);
+        assertTrue(BoardConfig.square(1000, 10_000).newCellMap() instanceof DenseCellMap);
+        assertTrue(BoardConfig.square(1000, 10).newCellSet() instanceof TiledCellSet);
+        assertTrue(BoardConfig.square(1000, 10).newCellMap() instanceof HashCellMap);
+    }
+
+    @Test
+    void invalidConfig() {
+        assertThrows(IllegalArgumentException.class, () -> new BoardConfig(0, 10, 10));
+        assertThrows(IllegalArgumentException.class, () -> new BoardConfig(10, 10, -1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new Game(new Fleet(), BoardConfig.square(20, IFleet.FLEET_SIZE)));
+    }
+
+    @Test
+    void rectangularBoard() {
+        BoardConfig config = new BoardConfig(5, 30, 3);
+        Fleet fleet = new Fleet(config);
+        assertTrue(fleet.addShip(new Frigate(Compass.EAST, new Position(4, 26))));
+        assertFalse(fleet.addShip(new Frigate(Compass.EAST, new Position(4, 27))));
+        assertFalse(fleet.addShip(new Frigate(Compass.NORTH, new Position(2, 0))));
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0))));
+
+        Game game = new Game(fleet);
+        assertNull(game.fire(new Position(5, 0)));
+        assertNull(game.fire(new Position(0, 30)));
+        assertEquals(2, game.getInvalidShots());
+        assertNotNull(game.fire(config.getCodec().encode(0, 0)));
+        assertEquals(1, game.getRemainingShips());
+    }
+
+    @Test
+    void fleetSizeIsConfigurable() {
+        Fleet fleet = new Fleet(BoardConfig.square(20, 2));
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0))));
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 2))));
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 4))));
+    }
+
+    @Test
+    void hugeSparseBoard() {
+        BoardConfig config = BoardConfig.square(10_000, 2000);
+        Fleet fleet = new Fleet(config);
+        int added = 0;
+        for (int row = 0; row < 10_000; row += 97)
+            for (int column = 3; column < 10_000; column += 1_013)
+                if (fleet.addShip(new Galleon(Compass.NORTH, new Position(row, column))))
+                    added++;
+        assertEquals(fleet.getShips().size(), added);
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(1, 3))));
+        assertNotNull(fleet.shipAt(new Position(9_991, 5 * 1_013 + 4)));
+        assertNull(fleet.shipAt(new Position(9_999, 9_999)));
+
+        Game game = new Game(fleet);
+        IShip sunk = null;
+        for (IPosition p : fleet.getShips().get(0).getPositions())
+            sunk = game.fire(new Position(p.getRow(), p.getColumn()));
+        assertSame(fleet.getShips().get(0), sunk);
+        assertNull(game.fire(new Position(10_000, 0)));
+        assertNull(game.fire(new Position(9_999, 9_999)));
+        game.fire(new Position(9_999, 9_999));
+        assertEquals(1, game.getInvalidShots());
+        assertEquals(1, game.getRepeatedShots());
+        assertEquals(6, game.getShots().size());
+        assertEquals(added - 1, game.getRemainingShips());
+    }
+}
@@ -0,0 +1,86 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CellCodecTest {
+
+    @Test
+    void encodeDecode_roundTrip() {
+        CellCodec codec = CellCodec.STANDARD;
+        assertEquals(100, codec.getCells());
+        for (int cell = 0; cell < codec.getCells(); cell++) {
+            Coordinate c = codec.decode(cell);
+            assertSame(Coordinate.of(c.getRow(), c.getColumn()), c);
+            assertEquals(cell, codec.encode(c));
+            assertTrue(codec.isInside(cell));
+        }
+        assertEquals(37, codec.encode(3, 7));
+        assertFalse(codec.isInside(-1));
+        assertFalse(codec.isInside(100));
+    }
+
+    @Test
+    void outsideCells_keepTheirCoordinates() {
+        CellCodec codec = new CellCodec(8, 12);
+        int cell = codec.encode(-1, 3);
+        assertEquals(-1, codec.row(cell));
+        assertEquals(3, codec.column(cell));
+        assertFalse(codec.isInside(cell));
+        assertEquals(Coordinate.cache(8, 12).get(9, 0), codec.decode(codec.encode(9, 0)));
+    }
+
+    @Test
+    void invalidSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CellCodec(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new CellCodec(100_000, 100_000));
+        assertEquals(new CellCodec(10, 10), CellCodec.STANDARD);
+        assertEquals(CellCodec.STANDARD.hashCode(), new CellCodec(10, 10).hashCode());
+    }
+
+    @Test
+    void intApi_matchesPositionApi() {
+        Random random = new Random(8);
+        for (int round = 0; round < 20; round++) {
+            Fleet byPosition = new Fleet();
+            Fleet byCell = new Fleet();
+            for (int i = 0; i < 200 && byPosition.getShips().size() < IFleet.FLEET_SIZE; i++) {
+                String kind = new String[]{"barca", "caravela", "nau", "fragata", "galeao"}[random.nextInt(5)];
+                Compass bearing = Compass.values()[random.nextInt(4)];
+                int row = random.nextInt(10), column = random.nextInt(10);
+                if (byPosition.addShip(Ship.buildShip(kind, bearing, new Position(row, column))))
+                    assertTrue(byCell.addShip(Ship.buildShip(kind, bearing, new Position(row, column))));
+            }
+            for (int cell = 0; cell < 100; cell++)
+                assertEquals(byPosition.shipAt(CellCodec.STANDARD.decode(cell)) == null, byCell.shipAt(cell) == null);
+
+            Game a = new Game(byPosition);
+            Game b = new Game(byCell);
+            for (int shot = 0; shot < 150; shot++) {
+                int cell = random.nextInt(110) - 5;
+                IShip sunkA = a.fire(new Position(CellCodec.STANDARD.row(cell), CellCodec.STANDARD.column(cell)));
+                IShip sunkB = b.fire(cell);
+                assertEquals(sunkA == null, sunkB == null);
+            }
+            assertEquals(a.getHits(), b.getHits());
+            assertEquals(a.getSunkShips(), b.getSunkShips());
+            assertEquals(a.getRepeatedShots(), b.getRepeatedShots());
+            assertEquals(a.getInvalidShots(), b.getInvalidShots());
+            assertEquals(a.getRemainingShips(), b.getRemainingShips());
+            assertEquals(a.getShots(), b.getShots());
+        }
+    }
+
+    @Test
+    void shipOccupiesAndShoot_byRowAndColumn() {
+        IShip frigate = new Frigate(Compass.EAST, new Position(2, 3));
+        assertTrue(frigate.occupies(2, 6));
+        assertFalse(frigate.occupies(3, 6));
+        frigate.shoot(2, 4);
+        assertTrue(frigate.getPositions().get(1).isHit());
+        assertFalse(frigate.getPositions().get(0).isHit());
+    }
+}
@@ -0,0 +1,82 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoordinateTest {
+
+    @Test
+    void of_isInternedOnTheBoard() {
+        assertSame(Coordinate.of(3, 5), Coordinate.of(3, 5));
+        assertEquals(3, Coordinate.of(3, 5).getRow());
+        assertEquals(5, Coordinate.of(3, 5).getColumn());
+
+        // outside the board a fresh, equal coordinate is returned
+        assertEquals(Coordinate.of(-1, 4), Coordinate.of(-1, 4));
+        assertEquals(Coordinate.of(10, 4), Coordinate.of(10, 4));
+    }
+
+    @Test
+    void cache_isSharedPerBoardSize() {
+        Coordinate.Cache small = Coordinate.cache(20, 30);
+        assertSame(small, Coordinate.cache(20, 30));
+        assertSame(small.get(19, 29), small.get(19, 29));
+        assertNotSame(Coordinate.cache(20, 30).get(0, 0), Coordinate.cache(30, 20).get(0, 0));
+
+        Coordinate.Cache huge = Coordinate.cache(10_000, 10_000);
+        assertEquals(huge.get(9_999, 1), huge.get(9_999, 1));
+    }
+
+    @Test
+    void equalsAndHashCode_matchPosition() {
+        Position p = new Position(2, 7);
+        Coordinate c = Coordinate.of(2, 7);
+        assertEquals(c, p);
+        assertEquals(p, c);
+        assertEquals(p.hashCode(), c.hashCode());
+        assertNotEquals(c, Coordinate.of(7, 2));
+        assertNotEquals(c, "2,7");
+
+        Set<IPosition> set = new HashSet<>();
+        set.add(c);
+        p.shoot();
+        assertTrue(set.contains(p), "hit state must not change the hash key");
+    }
+
+    @Test
+    void isAdjacentTo() {
+        Coordinate c = Coordinate.of(4, 4);
+        assertTrue(c.isAdjacentTo(Coordinate.of(5, 5)));
+        assertTrue(c.isAdjacentTo(c));
+        assertFalse(c.isAdjacentTo(Coordinate.of(6, 4)));
+    }
+
+    @Test
+    void hasNoState() {
+        Coordinate c = Coordinate.of(1, 1);
+        assertFalse(c.isOccupied());
+        assertFalse(c.isHit());
+        assertThrows(UnsupportedOperationException.class, c::occupy);
+        assertThrows(UnsupportedOperationException.class, c::shoot);
+        assertEquals("Linha = 1 Coluna = 1", c.toString());
+    }
+
+    @Test
+    void firingCoordinates_keepsStateOnTheBoard() {
+        Fleet fleet = new Fleet();
+        Caravel caravel = new Caravel(Compass.EAST, Coordinate.of(0, 0));
+        fleet.addShip(caravel);
+        Game game = new Game(fleet);
+
+        game.fire(Coordinate.of(0, 0));
+        assertNull(game.fire(Coordinate.of(0, 0)));
+        assertSame(caravel, game.fire(Coordinate.of(0, 1)));
+        assertEquals(1, game.getRepeatedShots());
+        assertSame(Coordinate.of(0, 1), game.getShots().get(1));
+        assertFalse(Coordinate.of(0, 1).isHit());
+    }
+}
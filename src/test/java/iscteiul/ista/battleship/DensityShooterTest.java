@@ -0,0 +1,168 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DensityShooterTest {
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    /**
+     * Counts from scratch the placements of a kind covering a cell that
+     * avoid every ruled out cell and touch no open hit they do not cover
+     */
+    private static int recount(BoardConfig config, ShipKind kind, int cell, boolean[] ruledOut,
+                               boolean[] openHit) {
+        CellCodec codec = config.getCodec();
+        List<ShipShape> shapes = new ArrayList<>();
+        int count = 0;
+        for (Compass bearing : BEARINGS) {
+            ShipShape shape = ShipShape.of(kind, bearing);
+            boolean seen = false;
+            for (ShipShape other : shapes)
+                seen |= FleetGenerator.sameFootprint(shape, other);
+            if (seen)
+                continue;
+            shapes.add(shape);
+            for (int row = 0; row < config.getRows(); row++)
+                for (int column = 0; column < config.getColumns(); column++) {
+                    boolean covers = false;
+                    boolean fits = true;
+                    for (int i = 0; i < shape.getSize(); i++) {
+                        int r = row + shape.getRowOffset(i);
+                        int c = column + shape.getColumnOffset(i);
+                        fits &= codec.isInside(r, c) && !ruledOut[codec.encode(r, c)];
+                        covers |= codec.isInside(r, c) && codec.encode(r, c) == cell;
+                    }
+                    if (fits && covers && !touches(codec, shape, row, column, openHit))
+                        count++;
+                }
+        }
+        return count;
+    }
+
+    /**
+     * @return whether an open hit lies in the halo of a placement
+     */
+    private static boolean touches(CellCodec codec, ShipShape shape, int row, int column, boolean[] openHit) {
+        for (int i = 0; i < shape.getSize(); i++)
+            for (int r = row + shape.getRowOffset(i) - 1; r <= row + shape.getRowOffset(i) + 1; r++)
+                for (int c = column + shape.getColumnOffset(i) - 1; c <= column + shape.getColumnOffset(i) + 1; c++) {
+                    if (!codec.isInside(r, c) || !openHit[codec.encode(r, c)])
+                        continue;
+                    boolean covered = false;
+                    for (int j = 0; j < shape.getSize(); j++)
+                        covered |= r == row + shape.getRowOffset(j) && c == column + shape.getColumnOffset(j);
+                    if (!covered)
+                        return true;
+                }
+        return false;
+    }
+
+    @Test
+    void coverageIsKeptUpToDate() {
+        BoardConfig config = BoardConfig.STANDARD;
+        FleetGenerator fleets = new FleetGenerator(config, FleetComposition.STANDARD);
+        DensityShooter shooter = new DensityShooter();
+        Random random = new Random(17);
+        for (int round = 0; round < 5; round++) {
+            IGame game = new Game(fleets.generate(random));
+            shooter.start(config, random);
+            boolean[] ruledOut = new boolean[config.getCells()];
+            boolean[] openHit = new boolean[config.getCells()];
+            while (game.getRemainingShips() > 0) {
+                int cell = shooter.nextShot();
+                int hits = game.getHits();
+                IShip sunk = game.fire(cell);
+                boolean hit = game.getHits() > hits;
+                shooter.shotResult(cell, hit, sunk);
+
+                if (!hit)
+                    ruledOut[cell] = true;
+                else
+                    openHit[cell] = sunk == null;
+                if (sunk != null)
+                    for (int i = 0; i < Ship.cellCount(sunk); i++)
+                        for (int r = Ship.cellRow(sunk, i) - 1; r <= Ship.cellRow(sunk, i) + 1; r++)
+                            for (int c = Ship.cellColumn(sunk, i) - 1; c <= Ship.cellColumn(sunk, i) + 1; c++)
+                                if (config.isInside(r, c))
+                                {
+                                    ruledOut[config.getCodec().encode(r, c)] = true;
+                                    openHit[config.getCodec().encode(r, c)] = false;
+                                }
+                for (ShipKind kind : ShipKind.values())
+                    for (int c = 0; c < config.getCells(); c++)
+                        assertEquals(recount(config, kind, c, ruledOut, openHit), shooter.coverage(kind, c),
+                                kind + " at " + c + " after " + game.getShots().size() + " shots");
+            }
+        }
+    }
+
+    @Test
+    void ruleOutPlacementsTouchingAHit() {
+        BoardConfig config = BoardConfig.square(5, 1);
+        CellCodec codec = config.getCodec();
+        DensityShooter shooter = new DensityShooter(new FleetComposition(0, 1, 0, 0, 0));
+        shooter.start(config, new Random(1));
+        shooter.shotResult(codec.encode(2, 2), true, null);
+        assertEquals(4, shooter.coverage(ShipKind.CARAVEL, codec.encode(2, 2)));
+        assertEquals(1, shooter.coverage(ShipKind.CARAVEL, codec.encode(1, 2)));
+        assertEquals(0, shooter.coverage(ShipKind.CARAVEL, codec.encode(1, 1)));
+        assertEquals(0, shooter.coverage(ShipKind.CARAVEL, codec.encode(3, 3)));
+        // the caravel down from (0, 2) would touch the hit, the ones across stay
+        assertEquals(2, shooter.coverage(ShipKind.CARAVEL, codec.encode(0, 2)));
+        assertEquals(2, shooter.coverage(ShipKind.CARAVEL, codec.encode(0, 0)));
+    }
+
+    @Test
+    void beatsHuntAndTarget() {
+        FleetGenerator fleets = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        SimulationStats hunter = new Simulator(fleets, HuntTargetShooter::new).run(2_000, 7);
+        SimulationStats density = new Simulator(fleets, DensityShooter::new).run(2_000, 7);
+        assertEquals(0, density.getUnfinishedGames());
+        assertEquals(0, density.getRepeatedShots());
+        assertEquals(0, density.getInvalidShots());
+        assertTrue(density.getMeanShotsToWin() < hunter.getMeanShotsToWin() - 5, density + " vs " + hunter);
+    }
+
+    @Test
+    void largerBoardsAndOtherFleets() {
+        FleetComposition composition = new FleetComposition(6, 4, 3, 2, 2);
+        BoardConfig config = BoardConfig.square(16, 20);
+        SimulationStats stats = new Simulator(new FleetGenerator(config, composition),
+                () -> new DensityShooter(composition)).run(200, 3);
+        assertEquals(0, stats.getUnfinishedGames());
+        assertEquals(0, stats.getRepeatedShots());
+        assertTrue(stats.getMaxShotsToWin() < config.getCells());
+    }
+
+    /**
+     * Prints the time a full game takes per shot on the standard board,
+     * choosing the shot and taking in its result
+     */
+    @Test
+    @Tag("benchmark")
+    void timePerShot() {
+        FleetGenerator fleets = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        Simulator simulator = new Simulator(fleets, DensityShooter::new);
+        java.util.concurrent.ForkJoinPool single = new java.util.concurrent.ForkJoinPool(1);
+        try {
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                SimulationStats stats = simulator.run(20_000, round, single);
+                long elapsed = System.nanoTime() - start;
+                if (round == 1)
+                    System.out.printf("DensityShooter: %.2f us per shot, %.1f shots per game, %,.0f games/s%n",
+                            elapsed / 1e3 / stats.getShots(), stats.getMeanShotsToWin(),
+                            stats.getGames() / (elapsed / 1e9));
+            }
+        } finally {
+            single.shutdown();
+        }
+    }
+}
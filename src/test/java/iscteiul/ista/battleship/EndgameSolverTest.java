@@ -0,0 +1,185 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndgameSolverTest {
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    /**
+     * Lists the ships, as cell masks, of every fleet of a caravel and a barge
+     * on a small board agreeing with the shots
+     */
+    private static List<long[]> fleets(BoardConfig config, long water, long hits) {
+        CellCodec codec = config.getCodec();
+        List<long[]> fleets = new ArrayList<>();
+        List<Long> seen = new ArrayList<>();
+        for (Compass bearing : BEARINGS)
+            for (int caravel = 0; caravel < config.getCells(); caravel++)
+                for (int barge = 0; barge < config.getCells(); barge++) {
+                    Fleet fleet = new Fleet(config);
+                    IShip first = Ship.buildShip("caravela", bearing, codec.decode(caravel));
+                    IShip second = Ship.buildShip("barca", Compass.NORTH, codec.decode(barge));
+                    if (!fleet.addShip(first) || !fleet.addShip(second))
+                        continue;
+                    long[] ships = {mask(codec, first), mask(codec, second)};
+                    long occupied = ships[0] | ships[1];
+                    if ((occupied & water) != 0 || (occupied & hits) != hits || seen.contains(occupied))
+                        continue;
+                    seen.add(occupied);
+                    fleets.add(ships);
+                }
+        return fleets;
+    }
+
+    private static long mask(CellCodec codec, IShip ship) {
+        long mask = 0;
+        for (int i = 0; i < Ship.cellCount(ship); i++)
+            mask |= 1L << codec.encode(Ship.cellRow(ship, i), Ship.cellColumn(ship, i));
+        return mask;
+    }
+
+    /**
+     * The expected shots of the best play, by plain recursion over every cell,
+     * remembering the fleets left after each set of shots
+     */
+    private static double bruteForce(List<long[]> fleets, long shot, Map<List<Long>, Double> known) {
+        if (fleets.size() == 1)
+            return Long.bitCount((fleets.get(0)[0] | fleets.get(0)[1]) & ~shot);
+        List<Long> key = new ArrayList<>(List.of(shot));
+        for (long[] ships : fleets)
+            key.add(ships[0] | ships[1]);
+        Double value = known.get(key);
+        if (value != null)
+            return value;
+        double best = Double.POSITIVE_INFINITY;
+        for (int cell = 0; cell < 64; cell++)
+            if ((shot >>> cell & 1) == 0)
+                best = Math.min(best, bruteForce(fleets, shot, cell, known));
+        known.put(key, best);
+        return best;
+    }
+
+    private static double bruteForce(List<long[]> fleets, long shot, int cell, Map<List<Long>, Double> known) {
+        long bit = 1L << cell;
+        long nowShot = shot | bit;
+        Map<Long, List<long[]>> parts = new LinkedHashMap<>();
+        boolean useful = false;
+        for (long[] ships : fleets) {
+            long outcome = 0;
+            for (long ship : ships)
+                if ((ship & bit) != 0) {
+                    useful = true;
+                    outcome = (ship & ~nowShot) == 0 ? ship : -1;
+                }
+            parts.computeIfAbsent(outcome, o -> new ArrayList<>()).add(ships);
+        }
+        if (!useful)
+            return Double.POSITIVE_INFINITY;
+        double total = 0;
+        for (List<long[]> part : parts.values())
+            total += part.size() * bruteForce(part, nowShot, known);
+        return 1 + total / fleets.size();
+    }
+
+    @Test
+    void matchesPlainRecursion() {
+        BoardConfig config = new BoardConfig(3, 4, 2);
+        CellCodec codec = config.getCodec();
+        FleetComposition composition = new FleetComposition(1, 1, 0, 0, 0);
+        int[][] misses = {{}, {5}, {0, 10}, {1, 6}};
+        int[] hit = {-1, -1, 7, 3};
+        for (int round = 0; round < misses.length; round++) {
+            ShotInference inference = new ShotInference(config, composition);
+            long water = 0;
+            long hits = 0;
+            for (int cell : misses[round]) {
+                inference.observe(cell, false, null);
+                water |= 1L << cell;
+            }
+            if (hit[round] >= 0) {
+                inference.observe(hit[round], true, null);
+                hits |= 1L << hit[round];
+            }
+            List<long[]> fleets = fleets(config, water, hits);
+
+            EndgameSolver solver = new EndgameSolver(1_000, Long.MAX_VALUE, new ForkJoinPool(2),
+                    new TranspositionTable(1 << 16));
+            int shot = solver.bestShot(inference);
+            assertEquals(fleets.size(), solver.getConfigurations(), "round " + round);
+            Map<List<Long>, Double> known = new HashMap<>();
+            double best = bruteForce(fleets, water | hits, known);
+            assertEquals(best, solver.getExpectedShots(), 1e-9, "round " + round);
+            assertEquals(best, bruteForce(fleets, water | hits, shot, known), 1e-9,
+                    "round " + round + " at " + codec.decode(shot));
+        }
+    }
+
+    @Test
+    void finishesAKnownShip() {
+        // the last ship afloat is a caravel hit in the corner, and water leaves it no room
+        ShotInference inference = new ShotInference(BoardConfig.STANDARD, new FleetComposition(0, 1, 0, 0, 0));
+        inference.observe(CellCodec.STANDARD.encode(0, 1), false, null);
+        inference.observe(CellCodec.STANDARD.encode(1, 0), false, null);
+        inference.observe(0, true, null);
+        EndgameSolver solver = new EndgameSolver(10);
+        assertEquals(-1, solver.bestShot(inference));
+        assertEquals(0, solver.getConfigurations());
+        inference.reset();
+
+        // with water on one side only, it can only lie down the first column
+        inference.observe(CellCodec.STANDARD.encode(0, 1), false, null);
+        inference.observe(0, true, null);
+        assertEquals(CellCodec.STANDARD.encode(1, 0), solver.bestShot(inference));
+        assertEquals(1, solver.getConfigurations());
+        assertEquals(1, solver.getExpectedShots());
+    }
+
+    @Test
+    void declinesLargeStates() {
+        EndgameSolver solver = new EndgameSolver(100);
+        ShotInference inference = new ShotInference(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        assertEquals(-1, solver.bestShot(inference));
+        assertTrue(Double.isNaN(solver.getExpectedShots()));
+        assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(0));
+        assertThrows(IllegalArgumentException.class, () -> new EndgameSolver(10, 0, ForkJoinPool.commonPool(),
+                new TranspositionTable(16)));
+    }
+
+    @Test
+    void takesOverFromTheHeuristic() {
+        FleetComposition composition = new FleetComposition(2, 1, 1, 0, 0);
+        FleetGenerator fleets = new FleetGenerator(BoardConfig.square(6, 4), composition, true);
+        EndgameShooter[] last = new EndgameShooter[1];
+        SimulationStats endgame = new Simulator(fleets, () -> last[0] = new EndgameShooter(composition,
+                new DensityShooter(composition))).run(20, 20);
+        assertEquals(0, endgame.getUnfinishedGames());
+        assertEquals(0, endgame.getRepeatedShots());
+        assertTrue(last[0].isSolving());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void playsNoWorseThanTheHeuristic() {
+        FleetComposition composition = new FleetComposition(2, 1, 1, 0, 0);
+        FleetGenerator fleets = new FleetGenerator(BoardConfig.square(6, 4), composition, true);
+        SimulationStats density = new Simulator(fleets, () -> new DensityShooter(composition)).run(500, 20);
+        long start = System.nanoTime();
+        SimulationStats endgame = new Simulator(fleets, () -> new EndgameShooter(composition,
+                new DensityShooter(composition))).run(500, 20);
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, endgame.getUnfinishedGames());
+        assertTrue(endgame.getMeanShotsToWin() < density.getMeanShotsToWin() + 0.5, endgame + " vs " + density);
+        System.out.printf("EndgameShooter: %.2f shots per game against %.2f, %.0f us per shot%n",
+                endgame.getMeanShotsToWin(), density.getMeanShotsToWin(), elapsed / 1e3 / endgame.getShots());
+    }
+}
@@ -0,0 +1,117 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetCounterTest {
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    /**
+     * Counts the fleets by trying every placement of every ship and keeping
+     * the distinct sets of cells that {@link Fleet#addShip(IShip)} accepts
+     */
+    private static int bruteForce(BoardConfig config, FleetComposition composition) {
+        Set<String> fleets = new HashSet<>();
+        enumerate(config, composition.getShips(), 0, new ArrayList<>(), fleets);
+        return fleets.size();
+    }
+
+    private static void enumerate(BoardConfig config, ShipKind[] kinds, int k, List<IShip> placed,
+                                  Set<String> fleets) {
+        if (k == kinds.length) {
+            Fleet fleet = new Fleet(config);
+            TreeSet<String> ships = new TreeSet<>();
+            for (IShip ship : placed) {
+                if (!fleet.addShip(ship))
+                    return;
+                TreeSet<Integer> cells = new TreeSet<>();
+                for (int i = 0; i < Ship.cellCount(ship); i++)
+                    cells.add(config.getCodec().encode(Ship.cellRow(ship, i), Ship.cellColumn(ship, i)));
+                ships.add(ship.getCategory() + cells);
+            }
+            fleets.add(ships.toString());
+            return;
+        }
+        for (Compass bearing : BEARINGS)
+            for (int row = 0; row < config.getRows(); row++)
+                for (int column = 0; column < config.getColumns(); column++) {
+                    placed.add(Ship.buildShip(kinds[k].getKeyword(), bearing, new Position(row, column)));
+                    enumerate(config, kinds, k + 1, placed, fleets);
+                    placed.remove(placed.size() - 1);
+                }
+    }
+
+    @Test
+    void matchesBruteForce() {
+        Object[][] cases = {
+                {new BoardConfig(4, 5, 10), new FleetComposition(2, 1, 0, 0, 0)},
+                {new BoardConfig(5, 4, 10), new FleetComposition(1, 0, 1, 0, 1)},
+                {new BoardConfig(3, 7, 10), new FleetComposition(0, 1, 0, 1, 0)},
+                {new BoardConfig(6, 6, 10), new FleetComposition(0, 0, 0, 0, 2)},
+                {new BoardConfig(6, 5, 10), new FleetComposition(3, 0, 0, 0, 0)},
+        };
+        for (Object[] c : cases) {
+            BoardConfig config = (BoardConfig) c[0];
+            FleetComposition composition = (FleetComposition) c[1];
+            assertEquals(bruteForce(config, composition), new FleetCounter(config, composition).count(),
+                    composition + " on " + config);
+        }
+    }
+
+    @Test
+    void standardBoard() {
+        FleetCounter counter = new FleetCounter(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        // also found by a memoized search over (cell, blocked cells ahead, ships left)
+        assertEquals(6_176_754_266_272_264L, counter.count());
+    }
+
+    @Test
+    void turningTheBoardKeepsTheCount() {
+        FleetComposition composition = new FleetComposition(2, 1, 1, 1, 1);
+        assertEquals(new FleetCounter(new BoardConfig(7, 9, 10), composition).count(),
+                new FleetCounter(new BoardConfig(9, 7, 10), composition).count());
+    }
+
+    @Test
+    void countDoesNotDependOnThePool() {
+        FleetCounter counter = new FleetCounter(BoardConfig.square(8, 10), FleetComposition.STANDARD);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertEquals(48_694_416L, counter.count(single));
+        } finally {
+            single.shutdown();
+        }
+        assertEquals(48_694_416L, counter.count());
+    }
+
+    @Test
+    void edgeCases() {
+        assertEquals(1, new FleetCounter(BoardConfig.STANDARD, new FleetComposition(0, 0, 0, 0, 0)).count());
+        assertEquals(0, new FleetCounter(BoardConfig.square(7, 10), FleetComposition.STANDARD).count());
+        assertEquals(0, new FleetCounter(BoardConfig.square(2, 10), new FleetComposition(0, 0, 0, 1, 0)).count());
+        assertEquals(4 * 48, new FleetCounter(new BoardConfig(50, 3, 10), new FleetComposition(0, 0, 0, 0, 1))
+                .count());
+    }
+
+    @Test
+    void overflowIsReported() {
+        FleetCounter counter = new FleetCounter(new BoardConfig(40, 12, 100), new FleetComposition(10, 0, 0, 0, 0));
+        assertThrows(ArithmeticException.class, counter::count);
+    }
+
+    @Test
+    void wideBoardsAreRejected() {
+        assertTrue(FleetCounter.canCount(new BoardConfig(1000, 12, 10)));
+        assertFalse(FleetCounter.canCount(BoardConfig.square(13, 10)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FleetCounter(BoardConfig.square(13, 10), FleetComposition.STANDARD));
+    }
+}
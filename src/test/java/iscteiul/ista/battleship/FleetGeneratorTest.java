@@ -0,0 +1,180 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FleetGeneratorTest {
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    /**
+     * @return the cells of every ship, in an order that does not depend on the
+     * order the ships were added in
+     */
+    private static String footprint(IFleet fleet) {
+        TreeSet<String> ships = new TreeSet<>();
+        for (IShip ship : fleet.getShips()) {
+            TreeSet<Integer> cells = new TreeSet<>();
+            for (int i = 0; i < Ship.cellCount(ship); i++)
+                cells.add(fleet.getCodec().encode(Ship.cellRow(ship, i), Ship.cellColumn(ship, i)));
+            ships.add(cells.toString());
+        }
+        return ships.toString();
+    }
+
+    /**
+     * Lists every legal fleet by trying every placement of every ship
+     */
+    private static void enumerate(BoardConfig config, ShipKind[] kinds, int k, List<IShip> placed,
+                                  java.util.Set<String> fleets) {
+        if (k == kinds.length) {
+            Fleet fleet = new Fleet(config);
+            for (IShip ship : placed)
+                if (!fleet.addShip(ship))
+                    return;
+            fleets.add(footprint(fleet));
+            return;
+        }
+        for (Compass bearing : BEARINGS)
+            for (int row = 0; row < config.getRows(); row++)
+                for (int column = 0; column < config.getColumns(); column++) {
+                    placed.add(Ship.buildShip(kinds[k].getKeyword(), bearing, new Position(row, column)));
+                    enumerate(config, kinds, k + 1, placed, fleets);
+                    placed.remove(placed.size() - 1);
+                }
+    }
+
+    @Test
+    void countPlacements_ignoresMirroredFootprints() {
+        FleetGenerator generator = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        assertEquals(100, generator.countPlacements(ShipKind.BARGE));
+        assertEquals(2 * 9 * 10, generator.countPlacements(ShipKind.CARAVEL));
+        assertEquals(2 * 8 * 10, generator.countPlacements(ShipKind.CARRACK));
+        assertEquals(2 * 7 * 10, generator.countPlacements(ShipKind.FRIGATE));
+        assertEquals(4 * 8 * 8, generator.countPlacements(ShipKind.GALLEON));
+    }
+
+    @Test
+    void generatesCompleteLegalFleets() {
+        for (BoardConfig config : new BoardConfig[]{BoardConfig.STANDARD, BoardConfig.square(300, 40)}) {
+            for (boolean uniform : new boolean[]{false, true}) {
+                FleetComposition composition = config == BoardConfig.STANDARD && uniform
+                        ? new FleetComposition(2, 1, 1, 0, 1) : FleetComposition.STANDARD;
+                FleetGenerator generator = new FleetGenerator(config, composition, uniform);
+                Random random = new Random(15);
+                for (int i = 0; i < 100; i++) {
+                    Fleet fleet = generator.generate(random);
+                    assertEquals(composition.size(), fleet.getShips().size());
+                    for (ShipKind kind : ShipKind.values())
+                        assertEquals(composition.getCount(kind), fleet.getShipsLike(kind.getCategory()).size());
+                    // the fleet passes Fleet.addShip again, ship by ship
+                    Fleet copy = new Fleet(config);
+                    for (IShip ship : fleet.getShips())
+                        assertTrue(copy.addShip(ship));
+                }
+            }
+        }
+    }
+
+    @Test
+    void anchorsComeFromTheCoordinatesOfTheBoard() {
+        BoardConfig config = BoardConfig.square(15, 11);
+        CellCodec codec = config.getCodec();
+        IFleet fleet = new FleetGenerator(config, FleetComposition.STANDARD).generate(new Random(4));
+        for (IShip ship : fleet.getShips())
+            assertSame(codec.decode(codec.encode(ship.getPosition())), ship.getPosition());
+    }
+
+    @Test
+    void uniformModeDrawsEveryFleetEquallyOften() {
+        BoardConfig config = BoardConfig.square(4, 10);
+        FleetComposition composition = new FleetComposition(2, 1, 0, 0, 0);
+        java.util.Set<String> legal = new TreeSet<>();
+        enumerate(config, composition.getShips(), 0, new ArrayList<>(), legal);
+        assertFalse(legal.isEmpty());
+
+        int samples = 200 * legal.size();
+        Map<String, Integer> drawn = new HashMap<>();
+        Map<String, Integer> drawnFast = new HashMap<>();
+        FleetGenerator uniform = new FleetGenerator(config, composition, true);
+        FleetGenerator fast = new FleetGenerator(config, composition);
+        Random random = new Random(16);
+        for (int i = 0; i < samples; i++) {
+            drawn.merge(footprint(uniform.generate(random)), 1, Integer::sum);
+            drawnFast.merge(footprint(fast.generate(random)), 1, Integer::sum);
+        }
+        assertEquals(legal, new TreeSet<>(drawn.keySet()));
+
+        double chiSquare = 0;
+        for (int count : drawn.values())
+            chiSquare += (count - 200.0) * (count - 200.0) / 200.0;
+        double chiSquareFast = 0;
+        for (String fleet : legal) {
+            int count = drawnFast.getOrDefault(fleet, 0);
+            chiSquareFast += (count - 200.0) * (count - 200.0) / 200.0;
+        }
+        // for n degrees of freedom the statistic has mean n and deviation sqrt(2n)
+        int n = legal.size() - 1;
+        assertTrue(chiSquare < n + 5 * Math.sqrt(2 * n), "chi square " + chiSquare + " for " + n);
+        assertTrue(chiSquareFast > chiSquare, "the fast mode is biased towards crowded fleets");
+    }
+
+    /**
+     * Prints fleets per second for the two modes and for retrying random
+     * placements until Fleet.addShip accepts them
+     */
+    @Test
+    @Tag("benchmark")
+    void throughput() {
+        FleetGenerator fast = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        Random random = new Random(17);
+        int fleets = 100_000;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < fleets; i++)
+                fast.generate(random);
+            double fastRate = fleets / ((System.nanoTime() - start) / 1e9);
+
+            start = System.nanoTime();
+            long attempts = 0;
+            for (int i = 0; i < fleets; i++) {
+                Fleet fleet = new Fleet();
+                for (ShipKind kind : FleetComposition.STANDARD.getShips()) {
+                    int tries = 0;
+                    while (!fleet.addShip(Ship.buildShip(kind.getKeyword(), BEARINGS[random.nextInt(4)],
+                            Coordinate.of(random.nextInt(10), random.nextInt(10))))) {
+                        attempts++;
+                        // a dead end: start the fleet again
+                        if (++tries == 1000) {
+                            fleet = new Fleet();
+                            break;
+                        }
+                    }
+                    attempts++;
+                }
+                if (fleet.getShips().size() < FleetComposition.STANDARD.size())
+                    i--;
+            }
+            double retryRate = fleets / ((System.nanoTime() - start) / 1e9);
+
+            if (round == 1)
+                System.out.printf("FleetGenerator: %,.0f fleets/s from the free mask; %,.0f fleets/s retrying "
+                        + "Fleet.addShip (%.1f attempts per ship)%n", fastRate, retryRate,
+                        (double) attempts / fleets / FleetComposition.STANDARD.size());
+        }
+
+        FleetGenerator uniform = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD, true);
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++)
+            uniform.generate(random);
+        System.out.printf("FleetGenerator: %.1f fleets/s exactly uniform%n", 5 / ((System.nanoTime() - start) / 1e9));
+    }
+}
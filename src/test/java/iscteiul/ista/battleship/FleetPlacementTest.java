@@ -0,0 +1,96 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Places fleets of up to 10^4 ships on a 10,000x10,000 board. Placements and
+ * point queries go through the per-cell index of the fleet, so the index must
+ * hold every ship, and their cost should stay flat instead of growing with
+ * the number of ships already placed.
+ */
+class FleetPlacementTest {
+    private static final int SIZE = 10_000;
+    private static final int SHIPS = 10_000;
+    private static final String[] KINDS = {"barca", "caravela", "nau", "fragata", "galeao"};
+    /**
+     * How much dearer an attempt may get from one decade of ships to the
+     * next; a scan of the ships placed would make it ten times dearer
+     */
+    private static final double MAX_DECADE_RATIO = 4;
+
+    /**
+     * Adds random ships until the fleet holds the given number
+     *
+     * @return the ships tried
+     */
+    private static int place(Fleet fleet, Random random, int target) {
+        int attempts = 0;
+        while (fleet.getShips().size() < target) {
+            IShip ship = Ship.buildShip(KINDS[random.nextInt(KINDS.length)], Compass.values()[random.nextInt(4)],
+                    new Position(random.nextInt(SIZE), random.nextInt(SIZE)));
+            fleet.addShip(ship);
+            attempts++;
+        }
+        return attempts;
+    }
+
+    @Test
+    void indexHoldsEveryShip() {
+        Fleet fleet = new Fleet(BoardConfig.square(SIZE, SHIPS));
+        assertTrue(place(fleet, new Random(0), SHIPS) >= SHIPS);
+        assertEquals(SHIPS, fleet.getShips().size());
+
+        // every cell of every ship maps back to it, and its halo holds no other ship
+        for (IShip ship : fleet.getShips())
+            for (int i = 0; i < Ship.cellCount(ship); i++) {
+                int row = Ship.cellRow(ship, i);
+                int column = Ship.cellColumn(ship, i);
+                assertSame(ship, fleet.shipAt(fleet.getCodec().encode(row, column)));
+                for (int r = row - 1; r <= row + 1; r++)
+                    for (int c = column - 1; c <= column + 1; c++) {
+                        IShip other = fleet.getCodec().isInside(r, c) ? fleet.shipAt(fleet.getCodec().encode(r, c))
+                                : null;
+                        assertTrue(other == null || other == ship);
+                    }
+            }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void placementCostStaysFlat() {
+        // per decade, the cheapest cost of an attempt over the rounds
+        double[] cost = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        for (int round = 0; round < 3; round++) {
+            Fleet fleet = new Fleet(BoardConfig.square(SIZE, SHIPS));
+            Random random = new Random(round);
+            long blockStart = System.nanoTime();
+            for (int target = 100, decade = 0; target <= SHIPS; target *= 10, decade++) {
+                int attempts = place(fleet, random, target);
+                long now = System.nanoTime();
+                cost[decade] = Math.min(cost[decade], (double) (now - blockStart) / attempts);
+                if (round == 2)
+                    System.out.printf("Fleet.addShip up to %,d ships: %.1f ns/attempt%n", target, cost[decade]);
+                blockStart = now;
+            }
+
+            int queries = 1_000_000;
+            int found = 0;
+            long start = System.nanoTime();
+            for (int q = 0; q < queries; q++)
+                if (fleet.shipAt(random.nextInt(SIZE * SIZE)) != null)
+                    found++;
+            if (round == 2)
+                System.out.printf("Fleet.shipAt with %,d ships: %.1f ns/query (%d hits)%n", SHIPS,
+                        (double) (System.nanoTime() - start) / queries, found);
+        }
+        // the first decade also pays for warming up, so only the later ones are compared
+        assertTrue(cost[2] < MAX_DECADE_RATIO * cost[1],
+                String.format("%.1f ns/attempt up to %,d ships against %.1f up to %,d", cost[2], SHIPS, cost[1],
+                        SHIPS / 10));
+    }
+}
@@ -264,4 +264,108 @@ class FleetTest {
         assertFalse(fleet.addShip(new FakeShip("Barca", true, 0,0,0,0)));
     }
 
+    @Test
+    void shipAt_findsEveryCellOfRealShips() {
+        Galleon g = new Galleon(Compass.NORTH, new Position(0, 0));
+        Frigate f = new Frigate(Compass.EAST, new Position(9, 6));
+        assertTrue(fleet.addShip(g));
+        assertTrue(fleet.addShip(f));
+
+        for (int r = 0; r < IFleet.BOARD_SIZE; r++)
+            for (int c = 0; c < IFleet.BOARD_SIZE; c++) {
+                Position p = new Position(r, c);
+                IShip expected = g.occupies(p) ? g : f.occupies(p) ? f : null;
+                assertSame(expected, fleet.shipAt(p), p.toString());
+            }
+    }
+
+    @Test
+    void shipAt_keepsFirstShipOnSharedCell_andScansOutsideBoard() {
+        FakeShip a = new FakeShip("Barca", true, 0,0,0,0); a.occupy(4,4);
+        FakeShip b = new FakeShip("Barca", true, 0,0,0,0); b.occupy(4,4); b.occupy(-1,4);
+        assertTrue(fleet.addShip(a));
+        assertTrue(fleet.addShip(b));
+
+        assertSame(a, fleet.shipAt(pos(4,4)));
+        assertSame(b, fleet.shipAt(pos(-1,4)));
+        assertNull(fleet.shipAt(pos(IFleet.BOARD_SIZE, 0)));
+    }
+
+    @Test
+    void addShip_forbiddenHaloMatchesTooCloseTo() {
+        Random random = new Random(42);
+        String[] kinds = {"barca", "caravela", "nau", "fragata", "galeao"};
+        Compass[] bearings = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+        for (int round = 0; round < 200; round++) {
+            Fleet f = new Fleet();
+            List<IShip> placed = new ArrayList<>();
+            for (int attempt = 0; attempt < 40; attempt++) {
+                Ship s = Ship.buildShip(kinds[random.nextInt(kinds.length)], bearings[random.nextInt(4)],
+                        new Position(random.nextInt(10), random.nextInt(10)));
+                boolean inside = s.getLeftMostPos() >= 0 && s.getRightMostPos() < IFleet.BOARD_SIZE
+                        && s.getTopMostPos() >= 0 && s.getBottomMostPos() < IFleet.BOARD_SIZE;
+                boolean clash = placed.stream().anyMatch(o -> o.tooCloseTo(s));
+                boolean expected = placed.size() <= IFleet.FLEET_SIZE && inside && !clash;
+
+                assertEquals(expected, f.addShip(s), s.toString());
+                if (expected)
+                    placed.add(s);
+            }
+        }
+    }
+
+    @Test
+    void addShip_checksCustomShipsAlongsideMask() {
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0))));
+
+        FakeShip near = new FakeShip("Barca", true, 1,1,1,1); near.occupy(1,1);
+        assertFalse(fleet.addShip(near), "halo of the real barge");
+
+        FakeShip far = new FakeShip("Barca", true, 5,5,5,5); far.occupy(5,5);
+        assertTrue(fleet.addShip(far));
+
+        Barge real = new Barge(Compass.NORTH, new Position(7, 7));
+        far.markTooCloseTo(real);
+        assertFalse(fleet.addShip(real), "custom ships keep their own rule");
+    }
+
+    @Test
+    void countFloatingShips_followsSinkingShips() {
+        Caravel c = new Caravel(Compass.EAST, new Position(0, 0));
+        Barge b = new Barge(Compass.NORTH, new Position(5, 5));
+        FakeShip sunkFake = new FakeShip("Barca", false, 9,9,9,9);
+        fleet.addShip(c);
+        fleet.addShip(b);
+        fleet.addShip(sunkFake);
+        assertEquals(2, fleet.countFloatingShips());
+
+        b.shoot(new Position(5, 5));
+        assertEquals(1, fleet.countFloatingShips());
+        b.shoot(new Position(5, 5));
+        assertEquals(1, fleet.countFloatingShips());
+
+        c.getPositions().forEach(IPosition::shoot);
+        assertEquals(0, fleet.countFloatingShips());
+        assertEquals(fleet.getFloatingShips().size(), fleet.countFloatingShips());
+    }
+
+    @Test
+    void countFloatingShips_keepsEveryFleetOfAShip() {
+        Caravel c = new Caravel(Compass.EAST, new Position(0, 0));
+        Fleet other = new Fleet();
+        fleet.addShip(c);
+        other.addShip(c);
+        other.addShip(new Barge(Compass.NORTH, new Position(5, 5)));
+        assertEquals(1, fleet.countFloatingShips());
+        assertEquals(2, other.countFloatingShips());
+
+        c.getPositions().forEach(IPosition::shoot);
+        assertEquals(0, fleet.countFloatingShips());
+        assertEquals(1, other.countFloatingShips());
+        Ship.unshoot(c, 0, 0);
+        assertEquals(1, fleet.countFloatingShips());
+        assertEquals(2, other.countFloatingShips());
+    }
+
 }
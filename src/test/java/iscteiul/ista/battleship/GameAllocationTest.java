@@ -0,0 +1,117 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures the heap allocated by Game.fire and fails if the hot path starts
+ * allocating again
+ */
+class GameAllocationTest {
+    private static final int GAMES = 2_000;
+    private static final int ROUNDS = 5;
+
+    private static Fleet buildFleet() {
+        Fleet fleet = new Fleet();
+        fleet.addShip(new Galleon(Compass.NORTH, new Position(0, 0)));
+        fleet.addShip(new Frigate(Compass.EAST, new Position(0, 5)));
+        fleet.addShip(new Carrack(Compass.NORTH, new Position(4, 0)));
+        fleet.addShip(new Carrack(Compass.EAST, new Position(9, 0)));
+        fleet.addShip(new Caravel(Compass.NORTH, new Position(4, 4)));
+        fleet.addShip(new Caravel(Compass.EAST, new Position(2, 7)));
+        fleet.addShip(new Caravel(Compass.NORTH, new Position(7, 7)));
+        fleet.addShip(new Barge(Compass.NORTH, new Position(4, 9)));
+        fleet.addShip(new Barge(Compass.NORTH, new Position(6, 2)));
+        fleet.addShip(new Barge(Compass.NORTH, new Position(9, 5)));
+        fleet.addShip(new Barge(Compass.NORTH, new Position(9, 9)));
+        return fleet;
+    }
+
+    private static IPosition[] targets() {
+        // every cell twice (the second pass is all repeated shots) plus invalid ones
+        IPosition[] targets = new IPosition[2 * IFleet.BOARD_SIZE * IFleet.BOARD_SIZE + 2];
+        int i = 0;
+        for (int pass = 0; pass < 2; pass++)
+            for (int r = 0; r < IFleet.BOARD_SIZE; r++)
+                for (int c = 0; c < IFleet.BOARD_SIZE; c++)
+                    targets[i++] = new Position(r, c);
+        targets[i++] = new Position(-1, 3);
+        targets[i] = new Position(3, IFleet.BOARD_SIZE + 5);
+        return targets;
+    }
+
+    private static long fireAll(Game[] games, IPosition[] targets) {
+        long sunk = 0;
+        for (Game game : games)
+            for (IPosition target : targets)
+                if (game.fire(target) != null)
+                    sunk++;
+        return sunk;
+    }
+
+    @Test
+    void fire_allocatesNothing() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        IPosition[] targets = targets();
+        long thread = Thread.currentThread().getId();
+        long leastBytes = Long.MAX_VALUE;
+        long fires = (long) GAMES * targets.length;
+
+        for (int round = 0; round < ROUNDS; round++) {
+            Game[] games = new Game[GAMES];
+            for (int g = 0; g < GAMES; g++)
+                games[g] = new Game(buildFleet());
+
+            long before = threads.getThreadAllocatedBytes(thread);
+            long sunk = fireAll(games, targets);
+            long bytes = threads.getThreadAllocatedBytes(thread) - before;
+
+            assertEquals(11L * GAMES, sunk);
+            leastBytes = Math.min(leastBytes, bytes);
+        }
+        assertTrue(leastBytes < fires, "Game.fire allocated " + leastBytes + " bytes over " + fires + " calls");
+    }
+
+    @Test
+    void undo_allocatesNothing() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        IPosition[] targets = targets();
+        long thread = Thread.currentThread().getId();
+        Game game = new Game(buildFleet());
+        game.setUndoable(true);
+        // the first pass grows the trail, the later ones reuse it
+        long leastBytes = Long.MAX_VALUE;
+        long moves = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int g = 0; g < GAMES; g++) {
+                for (IPosition target : targets)
+                    game.fire(target);
+                while (game.canUndo())
+                    game.undo();
+            }
+            long bytes = threads.getThreadAllocatedBytes(thread) - before;
+            moves = 2L * GAMES * targets.length;
+
+            assertEquals(0, game.getHash());
+            assertEquals(11, game.getRemainingShips());
+            leastBytes = Math.min(leastBytes, bytes);
+        }
+        assertTrue(leastBytes < moves, "Game.undo allocated " + leastBytes + " bytes over " + moves + " moves");
+    }
+}
@@ -0,0 +1,181 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GameArenaTest {
+    private static final String[] KINDS = {"barca", "caravela", "nau", "fragata", "galeao"};
+
+    private static List<IShip> randomShips(Random random, int attempts) {
+        List<IShip> ships = new ArrayList<>();
+        for (int i = 0; i < attempts; i++)
+            ships.add(Ship.buildShip(KINDS[random.nextInt(KINDS.length)], Compass.values()[random.nextInt(4)],
+                    new Position(random.nextInt(10), random.nextInt(10))));
+        return ships;
+    }
+
+    @Test
+    void playsLikeGame() {
+        GameArena arena = new GameArena(BoardConfig.STANDARD, 8);
+        Random random = new Random(12);
+        for (int round = 0; round < 200; round++) {
+            int slot = arena.allocate();
+            ArenaGame arenaGame = arena.game(slot);
+            Fleet fleet = new Fleet();
+            // the arena copies the ships it accepts, so both fleets can take the same one
+            for (IShip ship : randomShips(random, 60))
+                assertEquals(fleet.addShip(ship), arenaGame.getFleet().addShip(ship));
+            Game game = new Game(fleet);
+            assertEquals(fleet.getShips().size(), arenaGame.getFleet().getShips().size());
+
+            for (int shot = 0; shot < 130; shot++) {
+                int row = random.nextInt(12) - 1;
+                int column = random.nextInt(12) - 1;
+                IShip sunk = game.fire(new Position(row, column));
+                IShip arenaSunk = arenaGame.fire(new Position(row, column));
+                assertEquals(sunk == null, arenaSunk == null);
+                if (sunk != null) {
+                    assertEquals(sunk.getCategory(), arenaSunk.getCategory());
+                    assertEquals(sunk.getPosition(), arenaSunk.getPosition());
+                    assertFalse(arenaSunk.stillFloating());
+                }
+            }
+            assertEquals(game.getShots(), arenaGame.getShots());
+            assertEquals(game.getHits(), arenaGame.getHits());
+            assertEquals(game.getSunkShips(), arenaGame.getSunkShips());
+            assertEquals(game.getInvalidShots(), arenaGame.getInvalidShots());
+            assertEquals(game.getRepeatedShots(), arenaGame.getRepeatedShots());
+            assertEquals(game.getRemainingShips(), arenaGame.getRemainingShips());
+            assertEquals(fleet.getFloatingShips().size(), arenaGame.getFleet().getFloatingShips().size());
+            for (int cell = 0; cell < 100; cell++)
+                assertEquals(fleet.shipAt(cell) == null, arenaGame.getFleet().shipAt(cell) == null);
+            arena.release(slot);
+        }
+    }
+
+    @Test
+    void shipViews() {
+        GameArena arena = new GameArena(BoardConfig.STANDARD, 1);
+        ArenaFleet fleet = arena.fleet(arena.allocate());
+        assertTrue(fleet.addShip(new Galleon(Compass.SOUTH, new Position(2, 5))));
+        IShip ship = fleet.getShips().get(0);
+        IShip reference = new Galleon(Compass.SOUTH, new Position(2, 5));
+
+        assertEquals(ship, fleet.shipAt(new Position(4, 4)));
+        assertEquals("Galeao", ship.getCategory());
+        assertEquals(5, ship.getSize());
+        assertEquals(reference.getPositions(), ship.getPositions());
+        assertEquals(reference.getTopMostPos(), ship.getTopMostPos());
+        assertEquals(reference.getBottomMostPos(), ship.getBottomMostPos());
+        assertEquals(reference.getLeftMostPos(), ship.getLeftMostPos());
+        assertEquals(reference.getRightMostPos(), ship.getRightMostPos());
+        assertTrue(ship.occupies(new Position(4, 6)));
+        assertFalse(ship.occupies(new Position(3, 6)));
+        assertTrue(ship.tooCloseTo(new Position(5, 7)));
+        assertTrue(ship.tooCloseTo(new Barge(Compass.NORTH, new Position(1, 4))));
+        assertFalse(ship.tooCloseTo(new Barge(Compass.NORTH, new Position(0, 5))));
+        assertEquals(reference.toString(), ship.toString());
+
+        for (IPosition p : reference.getPositions()) {
+            assertTrue(ship.stillFloating());
+            ship.shoot(p);
+        }
+        assertFalse(ship.stillFloating());
+        assertEquals(0, fleet.countFloatingShips());
+    }
+
+    @Test
+    void addShip_rejectsUnknownShipsAndFullFleet() {
+        GameArena arena = new GameArena(BoardConfig.square(10, 2), 1);
+        ArenaFleet fleet = arena.fleet(arena.allocate());
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(10, 0))));
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 0))));
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(1, 1))));
+        assertTrue(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 2))));
+        assertFalse(fleet.addShip(new Barge(Compass.NORTH, new Position(0, 4))));
+    }
+
+    @Test
+    void slotsAreReused() {
+        GameArena arena = new GameArena(BoardConfig.STANDARD, 2);
+        int a = arena.allocate();
+        int b = arena.allocate();
+        assertNotEquals(a, b);
+        assertEquals(2, arena.getLiveGames());
+        assertThrows(IllegalStateException.class, arena::allocate);
+
+        ArenaGame game = arena.game(a);
+        game.getFleet().addShip(new Barge(Compass.NORTH, new Position(3, 3)));
+        assertNotNull(game.fire(new Position(3, 3)));
+        arena.release(a);
+        assertThrows(IllegalArgumentException.class, () -> arena.release(a));
+        assertThrows(IllegalArgumentException.class, () -> arena.game(a));
+
+        int c = arena.allocate();
+        assertEquals(a, c);
+        ArenaGame fresh = arena.game(c);
+        assertEquals(0, fresh.getShots().size());
+        assertEquals(0, fresh.getFleet().getShips().size());
+        assertNull(fresh.getFleet().shipAt(new Position(3, 3)));
+    }
+
+    @Test
+    void invalidArenas() {
+        assertThrows(IllegalArgumentException.class, () -> new GameArena(BoardConfig.square(300, 10), 1));
+        assertThrows(IllegalArgumentException.class, () -> new GameArena(BoardConfig.square(10, 300), 1));
+        assertThrows(IllegalArgumentException.class, () -> new GameArena(BoardConfig.STANDARD, 0));
+    }
+
+    /**
+     * Plays live games and checks the heap allocated per shot. Only shots
+     * that sink a ship create a view; the least over a few rounds is taken,
+     * so that the first, run before the compiler, does not count.
+     */
+    @Test
+    void liveGamesAllocateOnlySunkShips() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        int games = 2_000;
+        List<IShip> ships = List.of(new Galleon(Compass.NORTH, new Position(0, 0)),
+                new Frigate(Compass.EAST, new Position(0, 5)), new Carrack(Compass.NORTH, new Position(4, 0)),
+                new Carrack(Compass.EAST, new Position(9, 0)), new Caravel(Compass.NORTH, new Position(4, 4)),
+                new Caravel(Compass.EAST, new Position(2, 7)), new Caravel(Compass.NORTH, new Position(7, 7)),
+                new Barge(Compass.NORTH, new Position(4, 9)), new Barge(Compass.NORTH, new Position(6, 2)),
+                new Barge(Compass.NORTH, new Position(9, 5)), new Barge(Compass.NORTH, new Position(9, 9)));
+        long thread = Thread.currentThread().getId();
+        long fires = 100L * games;
+        long leastBytes = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            GameArena arena = new GameArena(BoardConfig.STANDARD, games);
+            ArenaGame[] views = new ArenaGame[games];
+            for (int g = 0; g < games; g++) {
+                views[g] = arena.game(arena.allocate());
+                for (IShip ship : ships)
+                    assertTrue(views[g].getFleet().addShip(ship));
+            }
+
+            long before = threads.getThreadAllocatedBytes(thread);
+            long sunk = 0;
+            for (int cell = 0; cell < 100; cell++)
+                for (ArenaGame view : views)
+                    if (view.fire(cell) != null)
+                        sunk++;
+            long bytes = threads.getThreadAllocatedBytes(thread) - before;
+            assertEquals(11L * games, sunk);
+            leastBytes = Math.min(leastBytes, bytes);
+        }
+        // views of the sunk ships, a few words each, are the only allocations
+        assertTrue(leastBytes < 32 * 11L * games + fires / 100, "ArenaGame.fire allocated " + leastBytes
+                + " bytes over " + fires + " calls");
+    }
+}
@@ -0,0 +1,173 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRecordTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Plays a game of random shots until the fleet is sunk
+     */
+    private static Game play(IFleet fleet, Random random) {
+        Game game = new Game(fleet);
+        BoardConfig config = fleet.getConfig();
+        while (game.getRemainingShips() > 0)
+            game.fire(random.nextInt(config.getCells()));
+        return game;
+    }
+
+    private static void roundTrip(Path file, BoardConfig config, FleetComposition composition, int window)
+            throws IOException {
+        FleetGenerator generator = new FleetGenerator(config, composition);
+        Random random = new Random(config.getCells());
+        List<IFleet> fleets = new ArrayList<>();
+        List<Game> games = new ArrayList<>();
+        try (GameRecordWriter writer = new GameRecordWriter(file, config)) {
+            for (int i = 0; i < 100; i++) {
+                IFleet fleet = generator.generate(random);
+                fleets.add(fleet);
+                games.add(play(fleet, random));
+                writer.write(fleet, games.get(i).getShots());
+            }
+            assertEquals(100, writer.getGames());
+        }
+
+        try (GameRecordReader reader = new GameRecordReader(file, window)) {
+            assertEquals(config, reader.getConfig());
+            for (int i = 0; i < games.size(); i++) {
+                assertTrue(reader.next());
+                List<IShip> ships = fleets.get(i).getShips();
+                assertEquals(ships.size(), reader.getShipCount());
+                for (int s = 0; s < ships.size(); s++) {
+                    assertEquals(ships.get(s).getCategory(), reader.getKind(s).getCategory());
+                    assertEquals(ships.get(s).getBearing(), reader.getBearing(s));
+                    assertEquals(config.getCodec().encode(ships.get(s).getPosition()), reader.getAnchor(s));
+                }
+                assertEquals(games.get(i).getShots().size(), reader.getShotCount());
+                Game replay = reader.replay();
+                assertEquals(games.get(i).getShots(), replay.getShots());
+                assertEquals(games.get(i).getHash(), replay.getHash());
+                assertEquals(0, replay.getRemainingShips());
+            }
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void roundTripsWithByteShots() throws IOException {
+        roundTrip(dir.resolve("standard.bin"), BoardConfig.STANDARD, FleetComposition.STANDARD,
+                GameRecordReader.WINDOW);
+    }
+
+    @Test
+    void roundTripsWithVarintShotsAcrossWindows() throws IOException {
+        // a window smaller than a game makes every game map its own
+        roundTrip(dir.resolve("large.bin"), BoardConfig.square(20, 11), FleetComposition.STANDARD, 64);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path text = dir.resolve("script.txt");
+        Files.writeString(text, "nova barca n 0 0 desisto");
+        assertThrows(IllegalArgumentException.class, () -> new GameRecordReader(text));
+
+        Path file = dir.resolve("cut.bin");
+        Random random = new Random(1);
+        IFleet fleet = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD).generate(random);
+        try (GameRecordWriter writer = new GameRecordWriter(file, BoardConfig.STANDARD)) {
+            writer.write(fleet, play(fleet, random).getShots());
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.write(new Fleet(BoardConfig.square(5, 1)), new int[0], 0));
+            assertThrows(IllegalArgumentException.class, () -> writer.write(fleet, new int[]{100}, 1));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            assertThrows(IllegalStateException.class, reader::next);
+        }
+    }
+
+    @Test
+    void rejectsCorruptRecords() throws IOException {
+        Path empty = dir.resolve("empty.bin");
+        new GameRecordWriter(empty, BoardConfig.STANDARD).close();
+        byte[] header = Files.readAllBytes(empty);
+        // a length cut short, a length too long, an unknown kind, and ships past the end
+        byte[][] records = {{(byte) 0x80}, {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 1},
+                {3, 1, (byte) 0xF0, 0}, {3, 1, 0x00, (byte) 0x80}, {2, 5, 0x00}};
+        // two ships on the same anchor read fine but make no fleet
+        byte[] overlap = {6, 2, 0x00, 0, 0x00, 0, 0};
+
+        for (byte[] record : records) {
+            Path file = dir.resolve("corrupt.bin");
+            byte[] bytes = Arrays.copyOf(header, header.length + record.length);
+            System.arraycopy(record, 0, bytes, header.length, record.length);
+            Files.write(file, bytes);
+            try (GameRecordReader reader = new GameRecordReader(file)) {
+                assertThrows(IllegalStateException.class, reader::next, Arrays.toString(record));
+            }
+        }
+        Path file = dir.resolve("overlap.bin");
+        byte[] bytes = Arrays.copyOf(header, header.length + overlap.length);
+        System.arraycopy(overlap, 0, bytes, header.length, overlap.length);
+        Files.write(file, bytes);
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            assertTrue(reader.next());
+            assertThrows(IllegalStateException.class, reader::getFleet);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark() throws IOException {
+        Path file = dir.resolve("archive.bin");
+        Random random = new Random(3);
+        FleetGenerator generator = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        IFleet[] fleets = new IFleet[16];
+        for (int i = 0; i < fleets.length; i++)
+            fleets[i] = generator.generate(random);
+        int[] cells = new int[Bitboard.CELLS];
+        for (int i = 0; i < cells.length; i++)
+            cells[i] = i;
+        int games = 200_000;
+        long start = System.nanoTime();
+        try (GameRecordWriter writer = new GameRecordWriter(file, BoardConfig.STANDARD)) {
+            for (int g = 0; g < games; g++) {
+                int swap = random.nextInt(cells.length);
+                int cell = cells[0];
+                cells[0] = cells[swap];
+                cells[swap] = cell;
+                writer.write(fleets[g % fleets.length], cells, 60 + g % 40);
+            }
+        }
+        long written = System.nanoTime() - start;
+
+        long[] shots = new long[1];
+        int read = 0;
+        start = System.nanoTime();
+        try (GameRecordReader reader = new GameRecordReader(file)) {
+            while (reader.next()) {
+                read++;
+                reader.forEachShot(c -> shots[0] += c);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(games, read);
+        System.out.printf("GameRecord: %.1f bytes per game, %.0f ns per game written, %.0f ns per game read%n",
+                (double) Files.size(file) / games, (double) written / games, (double) elapsed / games);
+        assertTrue(Files.size(file) < 120L * games);
+    }
+}
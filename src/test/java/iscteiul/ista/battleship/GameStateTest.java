@@ -0,0 +1,151 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameStateTest {
+    private static final FleetGenerator STANDARD = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD,
+            true);
+
+    @Test
+    void playsLikeGame() {
+        Random random = new Random(7);
+        for (int round = 0; round < 10; round++) {
+            IFleet fleet = STANDARD.generate(random);
+            GameState state = GameState.of(fleet);
+            Game game = new Game(fleet);
+            while (!state.isOver()) {
+                // a few shots fall off the board, and many are repeated
+                IPosition target = new Position(random.nextInt(12) - 1, random.nextInt(12) - 1);
+                GameState next = state.fire(target);
+                IShip sunk = game.fire(target);
+                assertSame(sunk, next.getSunkShip());
+                state = next;
+                assertEquals(game.getHash(), state.getHash());
+                assertEquals(game.getRemainingShips(), state.getRemainingShips());
+            }
+            assertEquals(game.getShots(), state.getShots());
+            assertEquals(game.getHits(), state.getHits());
+            assertEquals(game.getSunkShips(), state.getSunkShips());
+            assertEquals(game.getInvalidShots(), state.getInvalidShots());
+            assertEquals(game.getRepeatedShots(), state.getRepeatedShots());
+        }
+    }
+
+    @Test
+    void branchesLeaveTheParentAlone() {
+        Fleet fleet = new Fleet();
+        Caravel caravel = new Caravel(Compass.EAST, new Position(0, 0));
+        fleet.addShip(caravel);
+        fleet.addShip(new Barge(Compass.NORTH, new Position(5, 5)));
+        GameState start = GameState.of(fleet).fire(0);
+
+        GameState sink = start.fire(1);
+        GameState miss = start.fire(33);
+        assertSame(caravel, sink.getSunkShip());
+        assertNull(miss.getSunkShip());
+        assertEquals(1, sink.getRemainingShips());
+        assertEquals(2, miss.getRemainingShips());
+        assertFalse(start.isFired(1));
+        assertFalse(start.isFired(33));
+        assertTrue(start.isHit(0));
+        assertFalse(miss.isHit(33));
+        assertTrue(miss.isFired(33));
+        assertArrayEquals(new int[]{0, 1}, sink.getShotCells());
+        assertArrayEquals(new int[]{0, 33}, miss.getShotCells());
+        assertArrayEquals(new int[]{0}, start.getShotCells());
+
+        // the ships themselves are never shot at
+        assertTrue(caravel.stillFloating());
+        assertSame(caravel, start.shipAt(1));
+        assertNull(start.shipAt(2));
+        assertEquals(1, start.fire(new Position(-1, 0)).getInvalidShots());
+        assertEquals(1, start.fire(0).getRepeatedShots());
+        assertEquals(0, start.getInvalidShots() + start.getRepeatedShots());
+    }
+
+    @Test
+    void sharesWordsOnLargeBoards() {
+        BoardConfig config = new BoardConfig(2_000, 2_000, 1);
+        Fleet fleet = new Fleet(config);
+        fleet.addShip(new Carrack(Compass.SOUTH, new Position(1_500, 1_999)));
+        GameState start = GameState.of(fleet);
+        GameState state = start;
+        for (int row = 1_500; row < 1_503; row++)
+            state = state.fire(new Position(row, 1_999));
+        assertTrue(state.isOver());
+        assertEquals(3, state.getShotCount());
+        assertFalse(start.isFired(config.getCodec().encode(1_500, 1_999)));
+
+        PersistentWords words = PersistentWords.zeros(100_000);
+        PersistentWords changed = words.set(99_999, 5).set(0, -1);
+        assertEquals(5, changed.get(99_999));
+        assertEquals(-1, changed.get(0));
+        assertEquals(0, changed.get(50_000));
+        assertEquals(0, words.get(99_999));
+        assertSame(changed, changed.set(0, -1));
+        assertThrows(IndexOutOfBoundsException.class, () -> words.get(100_000));
+    }
+
+    @Test
+    void rolloutsForkFromASharedState() {
+        IFleet fleet = STANDARD.generate(new Random(3));
+        GameState start = GameState.of(fleet);
+        for (int cell = 0; cell < 30; cell++)
+            start = start.fire(cell);
+        GameState root = start;
+        int rollouts = 2_000;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        long shots;
+        try {
+            shots = pool.invoke(new Rollouts(root, 0, rollouts));
+        } finally {
+            pool.shutdown();
+        }
+        // the same rollouts played one after another fire the same shots
+        assertEquals(new Rollouts(root, 0, rollouts).play(), shots);
+        assertEquals(30, root.getShotCount());
+        assertFalse(root.isFired(30));
+    }
+
+    private static final class Rollouts extends RecursiveTask<Long> {
+        private final GameState root;
+        private final int from;
+        private final int to;
+
+        private Rollouts(GameState root, int from, int to) {
+            this.root = root;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > 64) {
+                int middle = (from + to) >>> 1;
+                Rollouts left = new Rollouts(root, from, middle);
+                left.fork();
+                return new Rollouts(root, middle, to).compute() + left.join();
+            }
+            return play();
+        }
+
+        private long play() {
+            long shots = 0;
+            for (int i = from; i < to; i++) {
+                Random random = new Random(i);
+                GameState state = root;
+                while (!state.isOver())
+                    state = state.fire(random.nextInt(Bitboard.CELLS));
+                assertEquals(11, state.getSunkShips());
+                shots += state.getShotCount() - root.getShotCount();
+            }
+            return shots;
+        }
+    }
+}
@@ -97,6 +97,147 @@ class GameTest {
             assertEquals(1, testGame.getSunkShips());
         }
 
+        @Test
+        void getHash() {
+            Fleet otherFleet = new Fleet();
+            otherFleet.addShip(new Caravel(Compass.EAST, new Position(0, 0)));
+            Game other = new Game(otherFleet);
+            assertEquals(0, testGame.getHash());
+
+            // the same shots in another order, with repeated and invalid ones, hash alike
+            testGame.fire(new Position(0, 0));
+            testGame.fire(new Position(3, 3));
+            testGame.fire(new Position(0, 1));
+            other.fire(new Position(0, 1));
+            other.fire(invalidPos);
+            other.fire(new Position(3, 3));
+            other.fire(new Position(3, 3));
+            other.fire(new Position(0, 0));
+            assertEquals(testGame.getHash(), other.getHash());
+
+            long expected = Zobrist.shot(0) ^ Zobrist.hit(0) ^ Zobrist.shot(33) ^ Zobrist.shot(1) ^ Zobrist.hit(1)
+                    ^ Zobrist.sunk(ShipKind.CARAVEL, 0);
+            assertEquals(expected, testGame.getHash());
+            assertNotEquals(Zobrist.shot(0) ^ Zobrist.shot(33) ^ Zobrist.shot(1), testGame.getHash());
+        }
+
+        @Test
+        void undoAndRedo() {
+            assertThrows(IllegalStateException.class, () -> testGame.undo());
+            testGame.setUndoable(true);
+            assertTrue(testGame.isUndoable());
+            assertFalse(testGame.canUndo());
+
+            testGame.fire(new Position(0, 0));
+            testGame.fire(new Position(3, 3));
+            testGame.fire(new Position(3, 3));
+            testGame.fire(invalidPos);
+            long beforeSink = testGame.getHash();
+            assertSame(testShip, testGame.fire(new Position(0, 1)));
+            assertEquals(0, testGame.getRemainingShips());
+
+            // taking back the sinking shot refloats the ship
+            testGame.undo();
+            assertEquals(beforeSink, testGame.getHash());
+            assertEquals(1, testGame.getRemainingShips());
+            assertEquals(0, testGame.getSunkShips());
+            assertTrue(testShip.stillFloating());
+            assertFalse(testShip.getPositions().get(1).isHit());
+            assertTrue(testShip.getPositions().get(0).isHit());
+
+            // back to the start, then forward again
+            while (testGame.canUndo())
+                testGame.undo();
+            assertEquals(0, testGame.getHash());
+            assertEquals(0, testGame.getHits());
+            assertEquals(0, testGame.getInvalidShots());
+            assertEquals(0, testGame.getRepeatedShots());
+            assertTrue(testGame.getShots().isEmpty());
+            assertFalse(testShip.getPositions().get(0).isHit());
+            for (int i = 0; i < 4; i++)
+                assertNull(testGame.redo());
+            assertEquals(1, testGame.getInvalidShots());
+            assertEquals(1, testGame.getRepeatedShots());
+            assertSame(testShip, testGame.redo());
+            assertFalse(testGame.canRedo());
+            assertEquals(1, testGame.getSunkShips());
+
+            // a new shot drops the shots left to redo
+            testGame.undo();
+            testGame.undo();
+            testGame.fire(new Position(5, 5));
+            assertFalse(testGame.canRedo());
+            assertThrows(IllegalStateException.class, () -> testGame.redo());
+            assertEquals(List.of(new Position(0, 0), new Position(3, 3), new Position(5, 5)), testGame.getShots());
+
+            testGame.setUndoable(false);
+            assertFalse(testGame.canUndo());
+        }
+
+        @Test
+        void undoOnPositionShips() {
+            Fleet fleet = new Fleet();
+            Ship ship = new Ship("Caravela", Compass.SOUTH, new Position(2, 2)) {
+                {
+                    positions.add(new Position(2, 2));
+                    positions.add(new Position(3, 2));
+                }
+                @Override
+                public Integer getSize() { return 2; }
+            };
+            fleet.addShip(ship);
+            Game game = new Game(fleet);
+            game.setUndoable(true);
+            game.fire(new Position(2, 2));
+            assertNotNull(game.fire(new Position(3, 2)));
+            game.undo();
+            assertEquals(1, game.getRemainingShips());
+            assertFalse(ship.getPositions().get(1).isHit());
+            assertTrue(ship.getPositions().get(0).isHit());
+        }
+
+        @Test
+        void undoLeavesTheGameAloneWhenTheShipCannotTakeItBack() {
+            // a ship keeping its own hits, over coordinates that cannot be shot or restored
+            Ship ship = new Ship("Caravela", Compass.SOUTH, new Position(2, 2)) {
+                private final boolean[] hit = new boolean[2];
+
+                {
+                    positions.add(Coordinate.of(2, 2));
+                    positions.add(Coordinate.of(3, 2));
+                }
+
+                @Override
+                public Integer getSize() { return 2; }
+
+                @Override
+                public void shoot(int row, int column) {
+                    hit[row - 2] = true;
+                }
+
+                @Override
+                public boolean stillFloating() {
+                    return !hit[0] || !hit[1];
+                }
+            };
+            Fleet fleet = new Fleet();
+            fleet.addShip(ship);
+            Game game = new Game(fleet);
+            game.setUndoable(true);
+            game.fire(new Position(2, 2));
+            long hash = game.getHash();
+
+            assertThrows(UnsupportedOperationException.class, game::undo);
+            assertTrue(game.canUndo());
+            assertEquals(hash, game.getHash());
+            assertEquals(1, game.getHits());
+            assertEquals(List.of(new Position(2, 2)), game.getShots());
+            assertNull(game.fire(new Position(2, 2)));
+            assertEquals(1, game.getRepeatedShots());
+            game.undo();
+            assertEquals(0, game.getRepeatedShots());
+        }
+
         @Test
         void getRemainingShips() {
             // initially one floating ship
@@ -207,6 +348,18 @@ class GameTest {
             assertEquals(4, testGame.getInvalidShots());
             assertEquals(0, testGame.getShots().size());
         }
+
+        @Test
+        void shots_on_board_edge_are_invalid() {
+            testGame.fire(new Position(IFleet.BOARD_SIZE, 0));
+            testGame.fire(new Position(0, IFleet.BOARD_SIZE));
+            assertEquals(2, testGame.getInvalidShots());
+            assertEquals(0, testGame.getShots().size());
+
+            testGame.fire(new Position(IFleet.BOARD_SIZE - 1, IFleet.BOARD_SIZE - 1));
+            assertEquals(2, testGame.getInvalidShots());
+            assertEquals(1, testGame.getShots().size());
+        }
     }
 
     @Nested
@@ -0,0 +1,146 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlacementKernelTest {
+    private static final PlacementKernel SCALAR = PlacementKernel.scalar();
+    private static final PlacementKernel KERNEL = PlacementKernel.create();
+
+    private static void set(long[] mask, int cell) {
+        mask[cell >>> 6] |= 1L << cell;
+    }
+
+    /**
+     * Adds the cells of a sunk ship and their halo to the mask
+     */
+    private static void forbid(long[] mask, CellCodec codec, IShip sunk) {
+        for (int i = 0; i < Ship.cellCount(sunk); i++)
+            for (int r = Ship.cellRow(sunk, i) - 1; r <= Ship.cellRow(sunk, i) + 1; r++)
+                for (int c = Ship.cellColumn(sunk, i) - 1; c <= Ship.cellColumn(sunk, i) + 1; c++)
+                    if (codec.isInside(r, c))
+                        set(mask, codec.encode(r, c));
+    }
+
+    @Test
+    void usesTheVectorApiWhenPresent() {
+        boolean present = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        // without the module the scalar kernel stands in, built or not
+        if (!present)
+            assertEquals("scalar", KERNEL.toString());
+        assertEquals(present, KERNEL.toString().startsWith("vector"), KERNEL.toString());
+    }
+
+    @Test
+    void matchesTheDensityShooter() {
+        BoardConfig config = BoardConfig.STANDARD;
+        CellCodec codec = config.getCodec();
+        PlacementMasks placements = new PlacementMasks(config, FleetComposition.STANDARD);
+        Random random = new Random(5);
+        for (int round = 0; round < 5; round++) {
+            DensityShooter shooter = new DensityShooter();
+            shooter.start(config, random);
+            Game game = new Game(new FleetGenerator(config, FleetComposition.STANDARD).generate(random));
+            long[] forbidden = new long[placements.getWords()];
+            long[] misses = new long[placements.getWords()];
+            long[] noHits = new long[placements.getWords()];
+            int open = 0;
+            for (int shot = 0; shot < 40 && game.getRemainingShips() > 0; shot++) {
+                int cell = shooter.nextShot();
+                int hits = game.getHits();
+                IShip sunk = game.fire(cell);
+                shooter.shotResult(cell, game.getHits() > hits, sunk);
+                if (sunk != null)
+                    forbid(forbidden, codec, sunk);
+                else if (game.getHits() == hits)
+                    set(misses, cell);
+                else
+                    open++;
+                if (sunk != null)
+                    open -= Ship.cellCount(sunk) - 1;
+                // open hits also rule out the placements touching them, which the kernel leaves to its hits mask
+                if (open > 0)
+                    continue;
+
+                for (ShipKind kind : ShipKind.values()) {
+                    int[] weights = new int[ShipKind.values().length];
+                    weights[kind.ordinal()] = 1;
+                    long[] counts = new long[config.getCells()];
+                    KERNEL.count(placements, forbidden, misses, noHits, weights, counts);
+                    for (int c = 0; c < config.getCells(); c++)
+                        assertEquals(shooter.coverage(kind, c), counts[c], kind + " at " + codec.decode(c));
+                }
+            }
+        }
+    }
+
+    @Test
+    void vectorMatchesScalar() {
+        Random random = new Random(11);
+        for (BoardConfig config : new BoardConfig[]{BoardConfig.STANDARD, BoardConfig.square(7, 4),
+                new BoardConfig(13, 29, 11)}) {
+            PlacementMasks placements = new PlacementMasks(config, new FleetComposition(2, 1, 1, 1, 1));
+            int words = placements.getWords();
+            for (int round = 0; round < 50; round++) {
+                long[] forbidden = new long[words];
+                long[] misses = new long[words];
+                long[] hits = new long[words];
+                for (int i = 0; i < random.nextInt(30); i++)
+                    set(misses, random.nextInt(config.getCells()));
+                for (int i = 0; i < random.nextInt(3); i++)
+                    set(forbidden, random.nextInt(config.getCells()));
+                if (round % 2 == 0)
+                    set(hits, random.nextInt(config.getCells()));
+                int[] weights = new int[ShipKind.values().length];
+                for (int k = 0; k < weights.length; k++)
+                    weights[k] = random.nextInt(3);
+
+                long[] expected = new long[config.getCells()];
+                long[] actual = new long[config.getCells()];
+                SCALAR.count(placements, forbidden, misses, hits, weights, expected);
+                KERNEL.count(placements, forbidden, misses, hits, weights, actual);
+                assertArrayEquals(expected, actual, config + " round " + round);
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new PlacementMasks(BoardConfig.square(40, 11), FleetComposition.STANDARD));
+    }
+
+    @Test
+    @Tag("benchmark")
+    void benchmark() {
+        for (BoardConfig config : new BoardConfig[]{BoardConfig.STANDARD, BoardConfig.square(30, 11)}) {
+            PlacementMasks placements = new PlacementMasks(config, FleetComposition.STANDARD);
+            int words = placements.getWords();
+            Random random = new Random(1);
+            long[] forbidden = new long[words];
+            long[] misses = new long[words];
+            for (int i = 0; i < config.getCells() / 5; i++)
+                set(misses, random.nextInt(config.getCells()));
+            long[] hits = new long[words];
+            int[] weights = {4, 3, 2, 1, 1};
+
+            long[][] totals = new long[2][config.getCells()];
+            PlacementKernel[] kernels = {SCALAR, KERNEL};
+            int calls = config.getCells() > 200 ? 500 : 5_000;
+            for (int k = 0; k < kernels.length; k++) {
+                long best = Long.MAX_VALUE;
+                for (int round = 0; round < 5; round++) {
+                    long[] counts = new long[config.getCells()];
+                    long start = System.nanoTime();
+                    for (int call = 0; call < calls; call++)
+                        kernels[k].count(placements, forbidden, misses, hits, weights, counts);
+                    best = Math.min(best, System.nanoTime() - start);
+                    totals[k] = counts;
+                }
+                System.out.printf("PlacementKernel %s on %s: %d placements, %.1f us per pass%n", kernels[k],
+                        config.getCodec(), placements.getStride(), best / 1e3 / calls);
+            }
+            assertArrayEquals(totals[0], totals[1]);
+        }
+    }
+}
@@ -33,19 +33,22 @@ class PositionTest {
         Position position3 = new Position(4, 5);
         assertNotEquals(position1.hashCode(), position3.hashCode());
 
-        // Test hash code consistency when isOccupied changes
+        // Hash code must not change when isOccupied changes (equals ignores it)
         Position position4 = new Position(3, 5);
         int hashBefore = position4.hashCode();
         position4.occupy();
         int hashAfter = position4.hashCode();
-        assertNotEquals(hashBefore, hashAfter);
+        assertEquals(hashBefore, hashAfter);
 
-        // Test hash code consistency when isHit changes
+        // Hash code must not change when isHit changes (equals ignores it)
         Position position5 = new Position(3, 5);
         hashBefore = position5.hashCode();
         position5.shoot();
         hashAfter = position5.hashCode();
-        assertNotEquals(hashBefore, hashAfter);
+        assertEquals(hashBefore, hashAfter);
+
+        // Equal to the stateless coordinate of the same cell
+        assertEquals(Coordinate.of(3, 5).hashCode(), position1.hashCode());
     }
 
     @Test
@@ -204,15 +207,15 @@ class PositionTest {
         Position samePosition = new Position(3, 5);
         assertEquals(position.hashCode(), samePosition.hashCode());
 
-        // Test that occupied state affects hash code
+        // Occupied state does not affect hash code, as it does not affect equals
         Position occupiedPosition = new Position(3, 5);
         occupiedPosition.occupy();
-        assertNotEquals(position.hashCode(), occupiedPosition.hashCode());
+        assertEquals(position.hashCode(), occupiedPosition.hashCode());
 
-        // Test that hit state affects hash code
+        // Hit state does not affect hash code, as it does not affect equals
         Position hitPosition = new Position(3, 5);
         hitPosition.shoot();
-        assertNotEquals(position.hashCode(), hitPosition.hashCode());
+        assertEquals(position.hashCode(), hitPosition.hashCode());
     }
 
     @Test
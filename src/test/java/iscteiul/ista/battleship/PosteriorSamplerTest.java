@@ -0,0 +1,170 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PosteriorSamplerTest {
+    private static final Compass[] BEARINGS = {Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST};
+
+    @Test
+    void matchesTheExactPosterior() {
+        BoardConfig config = BoardConfig.square(5, 10);
+        CellCodec codec = config.getCodec();
+        int miss = codec.encode(2, 2);
+        int hit = codec.encode(1, 3);
+
+        // every legal fleet of a carrack and a barge agreeing with the two shots
+        double[] exact = new double[config.getCells()];
+        int fleets = 0;
+        for (Compass carrackBearing : BEARINGS)
+            for (int carrack = 0; carrack < config.getCells(); carrack++)
+                for (int barge = 0; barge < config.getCells(); barge++) {
+                    if (carrackBearing == Compass.SOUTH || carrackBearing == Compass.WEST)
+                        continue;
+                    Fleet fleet = new Fleet(config);
+                    if (!fleet.addShip(Ship.buildShip("nau", carrackBearing, codec.decode(carrack)))
+                            || !fleet.addShip(Ship.buildShip("barca", Compass.NORTH, codec.decode(barge)))
+                            || fleet.shipAt(miss) != null || fleet.shipAt(hit) == null)
+                        continue;
+                    fleets++;
+                    for (int cell = 0; cell < config.getCells(); cell++)
+                        if (fleet.shipAt(cell) != null)
+                            exact[cell]++;
+                }
+        for (int cell = 0; cell < exact.length; cell++)
+            exact[cell] /= fleets;
+
+        PosteriorSampler sampler = new PosteriorSampler(config, new FleetComposition(1, 0, 1, 0, 0));
+        sampler.observe(miss, false, null);
+        sampler.observe(hit, true, null);
+        double[] estimate = sampler.estimate(5, 40_000, Long.MAX_VALUE / 4);
+        assertEquals(40_000, sampler.getSamples());
+        for (int cell = 0; cell < exact.length; cell++)
+            assertEquals(exact[cell], estimate[cell], 0.02, "cell " + cell);
+    }
+
+    @Test
+    void agreesWithEveryShot() {
+        FleetGenerator fleets = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        Random random = new Random(18);
+        Fleet fleet = fleets.generate(random);
+        Game game = new Game(fleet);
+        PosteriorSampler sampler = new PosteriorSampler(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        boolean[] water = new boolean[100];
+        boolean[] sunkCells = new boolean[100];
+        boolean[] openHits = new boolean[100];
+        for (int shot = 0; shot < 40; shot++) {
+            int cell = random.nextInt(100);
+            int hits = game.getHits();
+            IShip sunk = game.fire(cell);
+            boolean isHit = game.getHits() > hits;
+            sampler.observe(cell, isHit, sunk);
+            if (!isHit)
+                water[cell] = true;
+            else if (!sunkCells[cell])
+                openHits[cell] = true;
+            if (sunk != null)
+                for (int i = 0; i < Ship.cellCount(sunk); i++) {
+                    int part = CellCodec.STANDARD.encode(Ship.cellRow(sunk, i), Ship.cellColumn(sunk, i));
+                    sunkCells[part] = true;
+                    openHits[part] = false;
+                }
+        }
+
+        double[] estimate = sampler.estimate(1, 2_000, Long.MAX_VALUE / 4);
+        assertEquals(2_000, sampler.getSamples());
+        double afloat = 0;
+        for (int cell = 0; cell < 100; cell++) {
+            if (water[cell] || sunkCells[cell])
+                assertEquals(0, estimate[cell], "cell " + cell);
+            if (openHits[cell])
+                assertEquals(1, estimate[cell], "cell " + cell);
+            afloat += estimate[cell];
+        }
+        int cellsAfloat = 0;
+        for (IShip ship : fleet.getFloatingShips())
+            cellsAfloat += Ship.cellCount(ship);
+        assertEquals(cellsAfloat, afloat, 1e-9);
+    }
+
+    @Test
+    void sameSeedSameEstimate() {
+        PosteriorSampler sampler = new PosteriorSampler(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        sampler.observe(44, true, null);
+        sampler.observe(45, false, null);
+        assertArrayEquals(sampler.estimate(3, 500, Long.MAX_VALUE / 4),
+                sampler.estimate(3, 500, Long.MAX_VALUE / 4));
+    }
+
+    @Test
+    void stopsWhenTheTimeIsUp() {
+        BoardConfig ocean = BoardConfig.square(1_000, 10);
+        PosteriorSampler sampler = new PosteriorSampler(ocean, FleetComposition.STANDARD);
+        sampler.observe(ocean.getCodec().encode(500, 500), true, null);
+        long budget = 100_000_000L;
+        long start = System.nanoTime();
+        sampler.estimate(4, Integer.MAX_VALUE, budget);
+        long elapsed = System.nanoTime() - start;
+        assertTrue(sampler.getSamples() > 0);
+        // endless samples stop at the deadline, give or take a slow machine
+        assertTrue(elapsed < 20 * budget, elapsed + " ns for a budget of " + budget);
+
+        // a fleet that cannot agree with the shots is never found, and the estimate says nothing
+        PosteriorSampler impossible = new PosteriorSampler(BoardConfig.STANDARD, new FleetComposition(1, 0, 0, 0, 0));
+        impossible.observe(0, true, null);
+        impossible.observe(99, true, null);
+        double[] estimate = impossible.estimate(4, 10, 50_000_000L);
+        assertEquals(0, impossible.getSamples());
+        assertEquals(0, estimate[0]);
+    }
+
+    @Test
+    void shooterFinishesGames() {
+        FleetGenerator fleets = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        SimulationStats stats = new Simulator(fleets,
+                () -> new MonteCarloShooter(FleetComposition.STANDARD, 50, 1_000_000_000L)).run(10, 9);
+        assertEquals(0, stats.getUnfinishedGames());
+        assertEquals(0, stats.getRepeatedShots());
+        assertEquals(0, stats.getInvalidShots());
+    }
+
+    @Test
+    void shooterRunsWithoutInferenceOnALargeOcean() {
+        BoardConfig ocean = BoardConfig.square(1_100, 11);
+        assertTrue(ocean.getCells() > BoardConfig.DENSE_CELLS);
+        Random random = new Random(1);
+        IFleet fleet = new FleetGenerator(ocean, FleetComposition.STANDARD).generate(random);
+        Game game = new Game(fleet);
+        MonteCarloShooter shooter = new MonteCarloShooter(FleetComposition.STANDARD, 10, 50_000_000L);
+        shooter.start(ocean, random);
+        for (int shot = 0; shot < 5; shot++) {
+            int cell = shooter.nextShot();
+            int hits = game.getHits();
+            IShip sunk = game.fire(cell);
+            shooter.shotResult(cell, game.getHits() > hits, sunk);
+        }
+        assertEquals(5, game.getShots().size());
+        assertEquals(0, game.getInvalidShots());
+        assertEquals(0, game.getRepeatedShots());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void beatsHuntAndTarget() {
+        FleetGenerator fleets = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        SimulationStats hunter = new Simulator(fleets, HuntTargetShooter::new).run(200, 9);
+        long start = System.nanoTime();
+        SimulationStats monteCarlo = new Simulator(fleets,
+                () -> new MonteCarloShooter(FleetComposition.STANDARD, 200, 1_000_000_000L)).run(200, 9);
+        long elapsed = System.nanoTime() - start;
+        assertEquals(0, monteCarlo.getUnfinishedGames());
+        assertEquals(0, monteCarlo.getRepeatedShots());
+        assertTrue(monteCarlo.getMeanShotsToWin() < hunter.getMeanShotsToWin() - 3, monteCarlo + " vs " + hunter);
+        System.out.printf("MonteCarloShooter: %.1f shots per game, %.0f us per shot%n",
+                monteCarlo.getMeanShotsToWin(), elapsed / 1e3 / monteCarlo.getShots());
+    }
+}
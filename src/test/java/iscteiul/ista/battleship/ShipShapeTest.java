@@ -0,0 +1,100 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShipShapeTest {
+
+    @Test
+    void of_sharesOneInstancePerKindAndBearing() {
+        assertSame(ShipShape.of(ShipKind.FRIGATE, Compass.EAST), ShipShape.of(ShipKind.FRIGATE, Compass.EAST));
+        assertNotSame(ShipShape.of(ShipKind.FRIGATE, Compass.EAST), ShipShape.of(ShipKind.FRIGATE, Compass.NORTH));
+        assertSame(new Frigate(Compass.EAST, new Position(0, 0)).getShape(),
+                new Frigate(Compass.EAST, new Position(5, 5)).getShape());
+    }
+
+    @Test
+    void of_unknownBearing() {
+        assertNotNull(ShipShape.of(ShipKind.BARGE, Compass.UNKNOWN));
+        assertNull(ShipShape.of(ShipKind.CARAVEL, Compass.UNKNOWN));
+        assertNull(ShipShape.of(ShipKind.GALLEON, null));
+    }
+
+    @Test
+    void everyShape_hasKindSize_andConsistentBoundsAndMask() {
+        for (ShipKind kind : ShipKind.values())
+            for (Compass bearing : Compass.values()) {
+                ShipShape shape = ShipShape.of(kind, bearing);
+                if (shape == null)
+                    continue;
+                assertEquals(kind.getSize(), shape.getSize());
+                assertEquals(kind.getSize(), Long.bitCount(shape.getMask()), shape.toString());
+                for (int i = 0; i < shape.getSize(); i++) {
+                    int r = shape.getRowOffset(i);
+                    int c = shape.getColumnOffset(i);
+                    assertTrue(r >= shape.getMinRow() && r <= shape.getMaxRow());
+                    assertTrue(c >= shape.getMinColumn() && c <= shape.getMaxColumn());
+                    assertEquals(i, shape.indexOf(r, c));
+                }
+                assertEquals(0, shape.getRowOffset(0));
+                assertEquals(0, shape.getColumnOffset(0));
+            }
+    }
+
+    @Test
+    void galleonSouth_boundingBoxAndLookup() {
+        ShipShape shape = ShipShape.of(ShipKind.GALLEON, Compass.SOUTH);
+        assertEquals(0, shape.getMinRow());
+        assertEquals(2, shape.getMaxRow());
+        assertEquals(-1, shape.getMinColumn());
+        assertEquals(1, shape.getMaxColumn());
+        assertEquals(3, shape.getHeight());
+        assertEquals(3, shape.getWidth());
+        assertEquals(-1, shape.indexOf(1, 1));
+        assertEquals(-1, shape.indexOf(5, 0));
+        assertEquals(2, shape.indexOf(2, -1));
+    }
+
+    @Test
+    void shapedShips_matchTheirPositions() {
+        for (ShipKind kind : ShipKind.values())
+            for (Compass bearing : new Compass[]{Compass.NORTH, Compass.SOUTH, Compass.EAST, Compass.WEST}) {
+                Ship s = Ship.buildShip(kind.getKeyword(), bearing, new Position(4, 4));
+                assertEquals(kind.getCategory(), s.getCategory());
+
+                int top = Integer.MAX_VALUE, bottom = Integer.MIN_VALUE, left = Integer.MAX_VALUE, right = Integer.MIN_VALUE;
+                for (IPosition p : s.getPositions()) {
+                    top = Math.min(top, p.getRow());
+                    bottom = Math.max(bottom, p.getRow());
+                    left = Math.min(left, p.getColumn());
+                    right = Math.max(right, p.getColumn());
+                }
+                assertEquals(top, s.getTopMostPos());
+                assertEquals(bottom, s.getBottomMostPos());
+                assertEquals(left, s.getLeftMostPos());
+                assertEquals(right, s.getRightMostPos());
+
+                for (int r = 0; r < 10; r++)
+                    for (int c = 0; c < 10; c++) {
+                        Position p = new Position(r, c);
+                        assertEquals(s.getPositions().contains(p), s.occupies(p));
+                        boolean close = s.getPositions().stream().anyMatch(q -> q.isAdjacentTo(p));
+                        assertEquals(close, s.tooCloseTo(p));
+                    }
+            }
+    }
+
+    @Test
+    void shapedShips_buildPositionsOnlyWhenAsked() {
+        Ship g = new Galleon(Compass.WEST, new Position(3, 3));
+        Ship other = new Carrack(Compass.NORTH, new Position(3, 6));
+        assertTrue(g.occupies(new Position(4, 5)));
+        assertTrue(g.tooCloseTo(other));
+        assertEquals(3, g.getTopMostPos());
+        assertNull(g.positions);
+
+        assertEquals(5, g.getPositions().size());
+        assertSame(g.getPositions(), g.getPositions());
+    }
+}
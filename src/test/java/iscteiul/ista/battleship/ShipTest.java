@@ -247,4 +247,33 @@ class ShipTest {
     }
 
 
+    // --- Shaped ships keep their hits in a bit mask ---
+    @Test
+    @DisplayName("shaped ship sinks after every cell is hit, once per cell")
+    void shapedShipHitMask() {
+        Ship s = new Carrack(Compass.EAST, new Position(2, 2));
+        s.shoot(new Position(2, 2));
+        s.shoot(new Position(2, 2));
+        s.shoot(new Position(2, 3));
+        s.shoot(new Position(5, 5)); // not part of the ship
+        assertTrue(s.stillFloating());
+        s.shoot(new Position(2, 4));
+        assertFalse(s.stillFloating());
+    }
+
+    @Test
+    @DisplayName("positions of a shaped ship share its hit state")
+    void shapedShipPositionsShareHits() {
+        Ship s = new Caravel(Compass.NORTH, new Position(0, 0));
+        IPosition first = s.getPositions().get(0);
+        assertTrue(first.isOccupied());
+        assertFalse(first.isHit());
+
+        s.shoot(new Position(0, 0));
+        assertTrue(first.isHit());
+
+        s.getPositions().get(1).shoot();
+        assertFalse(s.stillFloating());
+    }
+
 }
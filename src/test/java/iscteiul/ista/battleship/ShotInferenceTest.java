@@ -0,0 +1,113 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShotInferenceTest {
+    private static final CellCodec CODEC = CellCodec.STANDARD;
+
+    @Test
+    void haloOfASunkShipIsWater() {
+        Fleet fleet = new Fleet();
+        IShip barge = Ship.buildShip("barca", Compass.NORTH, new Position(4, 4));
+        assertTrue(fleet.addShip(barge));
+        ShotInference inference = new ShotInference(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        inference.observe(CODEC.encode(4, 4), true, barge);
+        for (int r = 3; r <= 5; r++)
+            for (int c = 3; c <= 5; c++)
+                assertEquals(r != 4 || c != 4, inference.isImpossible(CODEC.encode(r, c)), r + "," + c);
+        assertEquals(8, inference.getImpossible().cardinality());
+        assertTrue(inference.getForced().isEmpty());
+    }
+
+    @Test
+    void diagonalsOfAHitAreWaterOnceNoGalleonIsLeft() {
+        int hit = CODEC.encode(5, 5);
+        int[] diagonals = {CODEC.encode(4, 4), CODEC.encode(4, 6), CODEC.encode(6, 4), CODEC.encode(6, 6)};
+
+        ShotInference withGalleon = new ShotInference(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        withGalleon.observe(hit, true, null);
+        for (int cell : diagonals)
+            assertFalse(withGalleon.isImpossible(cell));
+
+        ShotInference straight = new ShotInference(BoardConfig.STANDARD, new FleetComposition(4, 3, 2, 1, 0));
+        straight.observe(hit, true, null);
+        for (int cell : diagonals)
+            assertTrue(straight.isImpossible(cell));
+        assertEquals(4, straight.getImpossible().cardinality());
+    }
+
+    @Test
+    void aShipWithOneWayLeftIsForced() {
+        // a lone frigate hit in the corner, with water below it, runs along the top row
+        ShotInference inference = new ShotInference(BoardConfig.STANDARD, new FleetComposition(0, 0, 0, 1, 0));
+        inference.observe(CODEC.encode(1, 0), false, null);
+        inference.observe(CODEC.encode(0, 0), true, null);
+        BitSet forced = inference.getForced();
+        assertEquals(3, forced.cardinality());
+        for (int c = 1; c <= 3; c++)
+            assertTrue(inference.isForced(CODEC.encode(0, c)));
+        // the only ship afloat lies there, so every other cell is water
+        assertTrue(inference.isImpossible(CODEC.encode(0, 4)));
+        assertTrue(inference.isImpossible(CODEC.encode(9, 9)));
+        assertEquals(100 - 2 - 3, inference.getImpossible().cardinality());
+
+        inference.reset();
+        assertTrue(inference.getForced().isEmpty());
+        assertTrue(inference.getImpossible().isEmpty());
+    }
+
+    @Test
+    void neverContradictsTheFleet() {
+        FleetGenerator fleets = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        ShotInference inference = new ShotInference(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        Random random = new Random(19);
+        int forcedSeen = 0;
+        int impossibleSeen = 0;
+        for (int round = 0; round < 50; round++) {
+            Fleet fleet = fleets.generate(random);
+            Game game = new Game(fleet);
+            inference.reset();
+            boolean[] fired = new boolean[100];
+            while (game.getRemainingShips() > 0) {
+                int cell = random.nextInt(100);
+                if (fired[cell])
+                    continue;
+                fired[cell] = true;
+                int hits = game.getHits();
+                IShip sunk = game.fire(cell);
+                inference.observe(cell, game.getHits() > hits, sunk);
+
+                BitSet forced = inference.getForced();
+                BitSet impossible = inference.getImpossible();
+                assertFalse(forced.intersects(impossible));
+                for (int c = 0; c <= 100; c++) {
+                    assertEquals(forced.nextSetBit(c), inference.nextForced(c));
+                    assertEquals(impossible.nextSetBit(c), inference.nextImpossible(c));
+                }
+                for (int c = forced.nextSetBit(0); c >= 0; c = forced.nextSetBit(c + 1)) {
+                    assertFalse(fired[c]);
+                    assertNotNull(fleet.shipAt(c), "forced cell " + c);
+                }
+                for (int c = impossible.nextSetBit(0); c >= 0; c = impossible.nextSetBit(c + 1)) {
+                    assertFalse(fired[c]);
+                    assertNull(fleet.shipAt(c), "impossible cell " + c);
+                }
+                forcedSeen += forced.cardinality();
+                impossibleSeen += impossible.cardinality();
+            }
+        }
+        assertTrue(forcedSeen > 0);
+        assertTrue(impossibleSeen > 0);
+    }
+
+    @Test
+    void rejectsHugeBoards() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ShotInference(BoardConfig.square(1_100, 10), FleetComposition.STANDARD));
+    }
+}
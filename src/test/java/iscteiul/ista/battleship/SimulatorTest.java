@@ -0,0 +1,136 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimulatorTest {
+
+    private static Simulator simulator(java.util.function.Supplier<? extends Shooter> shooters) {
+        return new Simulator(new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD), shooters);
+    }
+
+    @Test
+    void generatedFleetsAreComplete() {
+        FleetGenerator generator = new FleetGenerator(BoardConfig.STANDARD, FleetComposition.STANDARD);
+        Random random = new Random(14);
+        for (int i = 0; i < 200; i++) {
+            Fleet fleet = generator.generate(random);
+            assertEquals(11, fleet.getShips().size());
+            for (ShipKind kind : ShipKind.values())
+                assertEquals(FleetComposition.STANDARD.getCount(kind), fleet.getShipsLike(kind.getCategory()).size());
+        }
+        assertEquals(25, FleetComposition.STANDARD.cells());
+        assertThrows(IllegalArgumentException.class,
+                () -> new FleetGenerator(BoardConfig.square(10, 3), FleetComposition.STANDARD));
+        assertThrows(IllegalStateException.class,
+                () -> new FleetGenerator(BoardConfig.square(3, 11), FleetComposition.STANDARD).generate(random));
+    }
+
+    @Test
+    void runIsDeterministicOnAnyPool() {
+        Simulator simulator = simulator(HuntTargetShooter::new);
+        SimulationStats parallel = simulator.run(3_000, 42);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            assertEquals(parallel, simulator.run(3_000, 42, single));
+        } finally {
+            single.shutdown();
+        }
+        assertNotEquals(parallel, simulator.run(3_000, 43));
+    }
+
+    @Test
+    void randomShooterStatistics() {
+        SimulationStats stats = simulator(RandomShooter::new).run(2_000, 1);
+        assertEquals(2_000, stats.getGames());
+        assertEquals(0, stats.getUnfinishedGames());
+        assertEquals(0, stats.getRepeatedShots());
+        assertEquals(0, stats.getInvalidShots());
+        assertEquals(25L * 2_000, stats.getHits());
+        assertEquals(stats.getShots(), Math.round(stats.getMeanShotsToWin() * 2_000));
+        assertTrue(stats.getMinShotsToWin() >= 25);
+        assertTrue(stats.getMaxShotsToWin() <= 100);
+        // the last of 25 ship cells among 100 shuffled cells comes at 25 * 101 / 26 on average
+        assertEquals(97.1, stats.getMeanShotsToWin(), 0.5);
+    }
+
+    @Test
+    void huntTargetBeatsRandom() {
+        SimulationStats random = simulator(RandomShooter::new).run(2_000, 7);
+        SimulationStats hunter = simulator(HuntTargetShooter::new).run(2_000, 7);
+        assertEquals(0, hunter.getUnfinishedGames());
+        assertEquals(0, hunter.getRepeatedShots());
+        assertTrue(hunter.getMeanShotsToWin() < random.getMeanShotsToWin() - 20, hunter + " vs " + random);
+    }
+
+    @Test
+    void unfinishedGamesAreCounted() {
+        Shooter stubborn = new Shooter() {
+            @Override
+            public void start(BoardConfig config, Random random) {
+            }
+
+            @Override
+            public int nextShot() {
+                return -1;
+            }
+
+            @Override
+            public void shotResult(int cell, boolean hit, IShip sunk) {
+                assertFalse(hit);
+            }
+        };
+        Simulator simulator = simulator(() -> stubborn);
+        SimulationStats stats = simulator.run(10, 0, ForkJoinPool.commonPool());
+        assertEquals(10, stats.getUnfinishedGames());
+        assertEquals(10L * simulator.getMaxShots(), stats.getInvalidShots());
+        assertEquals(-1, stats.getMinShotsToWin());
+        assertTrue(Double.isNaN(stats.getMeanShotsToWin()));
+    }
+
+    /**
+     * Prints the throughput of the simulator on all cores
+     */
+    @Test
+    void longGamesKeepAnExactHistogram() {
+        Game game = new Game(new Fleet());
+        SimulationStats stats = new SimulationStats();
+        SimulationStats other = new SimulationStats();
+        stats.record(5, true, game);
+        stats.record(5_000, true, game);
+        other.record(5_000, true, game);
+        other.record(70_000, true, game);
+        other.record(100_000, false, game);
+        stats.merge(other);
+
+        assertEquals(5, stats.getGames());
+        assertEquals(1, stats.getUnfinishedGames());
+        assertEquals(1, stats.getGamesWonIn(5));
+        assertEquals(2, stats.getGamesWonIn(5_000));
+        assertEquals(1, stats.getGamesWonIn(70_000));
+        assertEquals(0, stats.getGamesWonIn(100_000));
+        assertEquals((5 + 2 * 5_000 + 70_000) / 4.0, stats.getMeanShotsToWin());
+        assertEquals(5, stats.getMinShotsToWin());
+        assertEquals(5_000, stats.getShotsToWinPercentile(0.5));
+        assertEquals(70_000, stats.getMaxShotsToWin());
+    }
+
+    @Test
+    @Tag("benchmark")
+    void throughput() {
+        Simulator simulator = simulator(HuntTargetShooter::new);
+        simulator.run(20_000, 0);
+        int games = 200_000;
+        long start = System.nanoTime();
+        SimulationStats stats = simulator.run(games, 1);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(games, stats.getGames());
+        System.out.printf("Simulator on %d cores: %,.0f games/s; %s%n", ForkJoinPool.getCommonPoolParallelism(),
+                games / seconds, stats);
+    }
+}
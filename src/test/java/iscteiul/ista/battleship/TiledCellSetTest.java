@@ -0,0 +1,94 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TiledCellSetTest {
+
+    @Test
+    void matchesHashSet() {
+        CellCodec codec = new CellCodec(1_000, 3_000);
+        TiledCellSet tiled = new TiledCellSet(codec);
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(10);
+        for (int i = 0; i < 5_000; i++) {
+            int cell = codec.encode(random.nextInt(1_000), random.nextInt(3_000));
+            assertEquals(expected.add(cell), tiled.add(cell));
+        }
+        assertEquals(expected.size(), tiled.size());
+        for (int i = 0; i < 5_000; i++) {
+            int cell = random.nextInt(codec.getCells());
+            assertEquals(expected.contains(cell), tiled.contains(cell));
+        }
+
+        Set<Integer> visited = new HashSet<>();
+        tiled.forEach(cell -> assertTrue(visited.add(cell)));
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void rowWord_matchesDefault() {
+        CellCodec codec = new CellCodec(130, 150);
+        TiledCellSet tiled = new TiledCellSet(codec);
+        DenseCellSet dense = new DenseCellSet(codec.getCells());
+        Random random = new Random(64);
+        for (int i = 0; i < 2_000; i++) {
+            int cell = random.nextInt(codec.getCells());
+            tiled.add(cell);
+            dense.add(cell);
+        }
+        for (int row = 0; row < codec.getRows(); row++)
+            for (int column = 0; column < codec.getColumns(); column += 64)
+                assertEquals(dense.rowWord(codec, row, column), tiled.rowWord(codec, row, column));
+    }
+
+    @Test
+    void memoryFollowsCellsNotBoard() {
+        CellCodec codec = new CellCodec(10_000, 10_000);
+        TiledCellSet tiled = new TiledCellSet(codec);
+        assertEquals(0, tiled.getTileCount());
+        for (int row = 0; row < 64; row++)
+            for (int column = 640; column < 704; column++)
+                tiled.add(codec.encode(row, column));
+        assertEquals(1, tiled.getTileCount());
+        tiled.add(codec.encode(9_999, 9_999));
+        assertEquals(2, tiled.getTileCount());
+        assertEquals(64 * 64 + 1, tiled.size());
+        assertFalse(tiled.contains(codec.encode(64, 640)));
+    }
+
+    @Test
+    void printsSparseBoard() {
+        BoardConfig config = new BoardConfig(1_100, 1_000, 1);
+        assertFalse(config.isDense());
+        Fleet fleet = new Fleet(config);
+        fleet.addShip(new Frigate(Compass.EAST, new Position(1_099, 996)));
+        Game game = new Game(fleet);
+        game.fire(new Position(0, 0));
+        game.fire(new Position(1_099, 999));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(out));
+        try {
+            game.printValidShots();
+            game.printFleet();
+        } finally {
+            System.setOut(original);
+        }
+        String[] lines = out.toString().split("\\R");
+        assertEquals(2 * 1_100, lines.length);
+        assertEquals('X', lines[0].charAt(0));
+        assertEquals(1_000, lines[0].length());
+        assertEquals("...X", lines[1_099].substring(996));
+        assertEquals("####", lines[2 * 1_100 - 1].substring(996));
+        assertEquals(-1, lines[5].indexOf('X'));
+    }
+}
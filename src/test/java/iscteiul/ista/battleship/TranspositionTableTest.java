@@ -0,0 +1,127 @@
+package iscteiul.ista.battleship;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+    private static final long MISSING = -1;
+
+    /**
+     * Keys whose halves cancel out, all falling in the first bucket
+     */
+    private static long firstBucket(int i) {
+        return (long) (i + 1) << 32 | (i + 1);
+    }
+
+    @Test
+    void storesAndFinds() {
+        TranspositionTable table = new TranspositionTable(1_000);
+        assertEquals(1_024, table.getCapacity());
+        assertEquals(MISSING, table.probe(42, MISSING));
+        table.store(42, 7, 3);
+        assertEquals(7, table.probe(42, MISSING));
+        table.store(42, 8, 1);
+        assertEquals(8, table.probe(42, MISSING));
+        table.store(0, Long.MIN_VALUE, 0);
+        assertEquals(Long.MIN_VALUE, table.probe(0, MISSING));
+        table.clear();
+        assertEquals(MISSING, table.probe(42, MISSING));
+        assertEquals(MISSING, table.probe(0, MISSING));
+
+        assertEquals(TranspositionTable.WAYS, new TranspositionTable(1).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+        assertThrows(IllegalArgumentException.class, () -> table.store(1, 1, -1));
+    }
+
+    @Test
+    void replacesOldSearchesThenShallowEntries() {
+        int capacity = 64;
+        TranspositionTable table = new TranspositionTable(capacity);
+        long[] keys = new long[TranspositionTable.WAYS + 2];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = firstBucket(i);
+
+        // a full bucket of the current search loses its shallowest entry
+        for (int i = 0; i < TranspositionTable.WAYS; i++)
+            table.store(keys[i], i, 10 + i);
+        table.store(keys[TranspositionTable.WAYS], 99, 0);
+        assertEquals(MISSING, table.probe(keys[0], MISSING));
+        for (int i = 1; i <= TranspositionTable.WAYS; i++)
+            assertNotEquals(MISSING, table.probe(keys[i], MISSING));
+
+        // once a new search starts, the entries of the old one go first, even before shallower new ones
+        table.newSearch();
+        table.store(keys[0], 0, 0);
+        assertEquals(MISSING, table.probe(keys[TranspositionTable.WAYS], MISSING));
+        table.store(keys[TranspositionTable.WAYS + 1], 5, 50);
+        assertEquals(MISSING, table.probe(keys[1], MISSING));
+        assertEquals(0, table.probe(keys[0], MISSING));
+        assertEquals(5, table.probe(keys[TranspositionTable.WAYS + 1], MISSING));
+    }
+
+    @Test
+    void neverReadsATornEntry() {
+        TranspositionTable table = new TranspositionTable(256);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        AtomicLong found = new AtomicLong();
+        AtomicLong wrong = new AtomicLong();
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    RecursiveAction[] workers = new RecursiveAction[4];
+                    for (int w = 0; w < workers.length; w++) {
+                        long seed = w;
+                        workers[w] = new RecursiveAction() {
+                            @Override
+                            protected void compute() {
+                                SplittableRandom random = new SplittableRandom(seed);
+                                for (int i = 0; i < 200_000; i++) {
+                                    long key = random.nextLong(1_000);
+                                    // the value and depth are tied to the key, so a mix-up shows
+                                    if (random.nextBoolean()) {
+                                        table.store(key, Zobrist.shot((int) key), (int) key);
+                                    } else {
+                                        long value = table.probe(key, MISSING);
+                                        if (value != MISSING) {
+                                            found.incrementAndGet();
+                                            if (value != Zobrist.shot((int) key))
+                                                wrong.incrementAndGet();
+                                        }
+                                    }
+                                }
+                            }
+                        };
+                    }
+                    invokeAll(workers);
+                }
+            });
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(found.get() > 0);
+        assertEquals(0, wrong.get());
+    }
+
+    @Test
+    void zobristKeysDiffer() {
+        Set<Long> keys = new HashSet<>();
+        for (int cell = 0; cell < 10_000; cell++) {
+            keys.add(Zobrist.shot(cell));
+            keys.add(Zobrist.hit(cell));
+            keys.add(Zobrist.sunkCell(cell));
+        }
+        for (ShipKind kind : ShipKind.values())
+            for (int before = 0; before < 100; before++)
+                keys.add(Zobrist.sunk(kind, before));
+        assertEquals(3 * 10_000 + ShipKind.values().length * 100, keys.size());
+    }
+}